@@ -0,0 +1,20 @@
+// Copyright (c) 2018 The Hush Developers <contact@myhush.org>
+//
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+package org.myhush.gui;
+
+/**
+ * Balance of a single address, in zatoshi.
+ */
+final class AddressBalance {
+    // Outputs with at least one confirmation, as `z_getbalance <address>`
+    final long confirmed;
+    // All outputs, as `z_getbalance <address> 0`
+    final long unconfirmed;
+
+    AddressBalance(final long confirmed, final long unconfirmed) {
+        this.confirmed = confirmed;
+        this.unconfirmed = unconfirmed;
+    }
+}
@@ -0,0 +1,44 @@
+// Copyright (c) 2018 The Hush Developers <contact@myhush.org>
+//
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+package org.myhush.gui;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Table model over the display rows of own addresses: balance, whether it is confirmed, and the address.
+ */
+class AddressBalanceTableModel extends KeyedTableModel<String[]> {
+    private static final String[] COLUMN_NAMES = { "Balance", "Confirmed?", "Address" };
+
+    AddressBalanceTableModel(final List<String[]> rows) {
+        super(rows);
+    }
+
+    @Override
+    Object getKey(final String[] row) {
+        return row[2];
+    }
+
+    @Override
+    boolean isSameContent(final String[] a, final String[] b) {
+        return Arrays.equals(a, b);
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMN_NAMES.length;
+    }
+
+    @Override
+    public String getColumnName(final int column) {
+        return COLUMN_NAMES[column];
+    }
+
+    @Override
+    public Object getValueAt(final int row, final int column) {
+        return this.getRowAt(row)[column];
+    }
+}
@@ -51,6 +51,20 @@ class AddressBookPanel extends JPanel {
         loadEntriesFromDisk();
     }
 
+    /**
+     * @return the addresses of the contacts whose names contain the text, ignoring case
+     */
+    List<String> getAddressesOfContacts(final String namePart) {
+        final String lowerCaseNamePart = namePart.toLowerCase();
+        final List<String> addresses = new ArrayList<>();
+        for (final AddressBookEntry entry : entries) {
+            if (entry.name.toLowerCase().contains(lowerCaseNamePart)) {
+                addresses.add(entry.address);
+            }
+        }
+        return addresses;
+    }
+
     private JButton createNewContactButton() {
         final JButton newContactButton = new JButton("New contact...");
         newContactButton.addActionListener(new NewContactActionListener());
@@ -6,17 +6,15 @@
 package org.myhush.gui;
 
 import javax.swing.*;
+import javax.swing.table.TableModel;
 import java.awt.*;
 import java.awt.datatransfer.Clipboard;
 import java.awt.datatransfer.StringSelection;
 import java.awt.event.KeyEvent;
 
 class AddressTable extends DataTable {
-    AddressTable(final Object[][] rowData,
-                 final Object[] columnNames,
-                 final HushCommandLineBridge cliBridge
-    ) {
-        super(rowData, columnNames);
+    AddressTable(final TableModel model, final HushCommandLineBridge cliBridge) {
+        super(model);
         final int acceleratorKeyMask = Toolkit.getDefaultToolkit().getMenuShortcutKeyMask();
 
         final JMenuItem obtainPrivateKey = new JMenuItem("Obtain private key...");
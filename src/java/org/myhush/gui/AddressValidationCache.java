@@ -0,0 +1,134 @@
+// Copyright (c) 2018 The Hush Developers <contact@myhush.org>
+//
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+package org.myhush.gui;
+
+import com.eclipsesource.json.JsonObject;
+import com.eclipsesource.json.JsonValue;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * Remembers which T addresses are watch-only or invalid, as reported by `validateaddress`, across restarts.
+ * <p>
+ * The results are kept in the settings directory together with the fingerprint of the wallet they belong to;
+ * results of another wallet are discarded. Addresses not validated yet are validated in parallel batches.
+ */
+class AddressValidationCache {
+    private static final String WALLET_LINE_PREFIX = "wallet,";
+
+    private final HushCommandLineBridge bridge;
+    private final File cacheFile;
+    private final WalletFingerprint walletFingerprint;
+    // null until loaded
+    private Map<String, Boolean> watchOnlyOrInvalid = null;
+
+    AddressValidationCache(final HushCommandLineBridge bridge, final File cacheFile, final WalletFingerprint walletFingerprint) {
+        this.bridge = bridge;
+        this.cacheFile = cacheFile;
+        this.walletFingerprint = walletFingerprint;
+    }
+
+    /**
+     * @return for each address, whether it is watch-only or invalid
+     */
+    synchronized Map<String, Boolean> isWatchOnlyOrInvalid(final Collection<String> addresses)
+            throws HushCommandLineBridge.WalletCallException, IOException, InterruptedException {
+        if (watchOnlyOrInvalid == null) {
+            watchOnlyOrInvalid = this.load();
+        }
+
+        final List<String> unknown = new ArrayList<>();
+        for (final String address : addresses) {
+            if (!watchOnlyOrInvalid.containsKey(address)) {
+                unknown.add(address);
+            }
+        }
+        if (!unknown.isEmpty()) {
+            final List<RpcCall> calls = new ArrayList<>(unknown.size());
+            for (final String address : unknown) {
+                calls.add(new RpcCall("validateaddress", address));
+            }
+            final List<JsonValue> responses = bridge.executeBatchInParallel(calls);
+            for (int i = 0; i < unknown.size(); i++) {
+                final JsonObject response = HushCommandLineBridge.toJsonObject(responses.get(i));
+                final boolean result = !response.getBoolean("isvalid", false) ||
+                                       response.getBoolean("iswatchonly", true);
+                watchOnlyOrInvalid.put(unknown.get(i), result);
+            }
+            this.save(walletFingerprint.get());
+        }
+
+        final Map<String, Boolean> results = new HashMap<>();
+        for (final String address : addresses) {
+            results.put(address, watchOnlyOrInvalid.get(address));
+        }
+        return results;
+    }
+
+    /**
+     * Forgets all results, e.g. after keys were imported.
+     */
+    synchronized void invalidate() {
+        watchOnlyOrInvalid = new HashMap<>();
+        if (cacheFile.exists() && !cacheFile.delete()) {
+            System.out.println("Deleting " + cacheFile.getAbsolutePath() + " failed!");
+        }
+    }
+
+    // Format: a `wallet,<wallet fingerprint>` line, then `address,true|false` lines
+    private Map<String, Boolean> load() throws HushCommandLineBridge.WalletCallException, IOException, InterruptedException {
+        final Map<String, Boolean> results = new HashMap<>();
+        if (!cacheFile.exists()) {
+            return results;
+        }
+        String walletLine = null;
+        try (final BufferedReader reader = new BufferedReader(
+            new InputStreamReader(new FileInputStream(cacheFile), StandardCharsets.UTF_8)
+        )) {
+            walletLine = reader.readLine();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                final int addressEnd = line.indexOf(',');
+                if (addressEnd < 0) {
+                    throw new IOException("Address validation results are corrupted!");
+                }
+                results.put(line.substring(0, addressEnd), Boolean.valueOf(line.substring(addressEnd + 1)));
+            }
+        } catch (final IOException e) {
+            e.printStackTrace();
+            System.out.println("Loading address validation results failed, validating again.");
+            results.clear();
+        }
+        if ((walletLine == null) || !walletLine.startsWith(WALLET_LINE_PREFIX) ||
+            !walletFingerprint.matches(walletLine.substring(WALLET_LINE_PREFIX.length()))) {
+            System.out.println("Address validation results are of another wallet, discarding them.");
+            results.clear();
+        }
+        System.out.println("Loaded " + results.size() + " address validation results");
+        return results;
+    }
+
+    private void save(final String fingerprint) {
+        final File tempFile = new File(cacheFile.getPath() + ".tmp");
+        try {
+            try (final PrintWriter writer = new PrintWriter(new BufferedWriter(
+                new OutputStreamWriter(new FileOutputStream(tempFile), StandardCharsets.UTF_8)
+            ))) {
+                writer.println(WALLET_LINE_PREFIX + fingerprint);
+                for (final Map.Entry<String, Boolean> result : watchOnlyOrInvalid.entrySet()) {
+                    writer.println(result.getKey() + "," + result.getValue());
+                }
+            }
+            Files.move(tempFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (final IOException e) {
+            e.printStackTrace();
+            System.out.println("Saving address validation results failed!");
+        }
+    }
+}
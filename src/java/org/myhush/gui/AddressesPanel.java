@@ -6,10 +6,8 @@
 package org.myhush.gui;
 
 import javax.swing.*;
-import javax.swing.Timer;
 import javax.swing.border.EtchedBorder;
 import java.awt.*;
-import java.awt.event.ActionListener;
 import java.io.IOException;
 import java.text.DecimalFormat;
 import java.util.*;
@@ -19,31 +17,24 @@ import java.util.List;
  * Addresses panel - shows T/Z addresses and their balances.
  */
 class AddressesPanel extends WalletTabPanel {
-    private String[][] lastAddressBalanceData; // BRX-TODO: Encapsulate
     private final JFrame parentFrame;
     private final HushCommandLineBridge cliBridge;
     private final StatusUpdateErrorReporter errorReporter;
-    private JTable addressBalanceTable;
-    private JScrollPane addressBalanceTablePane;
-    private DataGatheringThread<String[][]> balanceGatheringThread;
-
-    private long lastInteractiveRefresh;
-
-    // Table of validated addresses with their validation result. An invalid or watch-only address should not be shown
-    // and should be remembered as invalid here
-    private final Map<String, Boolean> validationMap = new HashMap<>();
+    private final AddressBalanceTableModel addressBalanceTableModel;
+    private final JTable addressBalanceTable;
+    private final WalletStateService walletState;
 
     AddressesPanel(
             final JFrame parentFrame,
             final HushCommandLineBridge cliBridge,
+            final WalletStateService walletState,
             final StatusUpdateErrorReporter errorReporter
     ) throws IOException, InterruptedException, HushCommandLineBridge.WalletCallException {
         this.parentFrame = parentFrame;
         this.cliBridge = cliBridge;
+        this.walletState = walletState;
         this.errorReporter = errorReporter;
 
-        this.lastInteractiveRefresh = System.currentTimeMillis();
-
         // Build content
         final JPanel addressesPanel = this;
         addressesPanel.setBorder(BorderFactory.createEmptyBorder(3, 3, 3, 3));
@@ -65,13 +56,10 @@ class AddressesPanel extends WalletTabPanel {
         addressesPanel.add(buttonPanel, BorderLayout.SOUTH);
 
         // Table of addresses
-        lastAddressBalanceData = getAddressBalanceDataFromWallet();
-        addressesPanel.add(
-                addressBalanceTablePane = new JScrollPane(
-                        addressBalanceTable = this.createAddressBalanceTable(lastAddressBalanceData)
-                ),
-                BorderLayout.CENTER
-        );
+        final WalletState initialState = (walletState.getState() != null) ? walletState.getState() : walletState.refresh();
+        addressBalanceTableModel = new AddressBalanceTableModel(getAddressBalanceData(initialState));
+        addressBalanceTable = this.createAddressBalanceTable(addressBalanceTableModel);
+        addressesPanel.add(new JScrollPane(addressBalanceTable), BorderLayout.CENTER);
 
         final JPanel warningPanel = new JPanel();
         warningPanel.setLayout(new BorderLayout(3, 3));
@@ -85,30 +73,15 @@ class AddressesPanel extends WalletTabPanel {
         warningPanel.add(warningL, BorderLayout.NORTH);
         addressesPanel.add(warningPanel, BorderLayout.NORTH);
 
-        // Thread and timer to update the address/balance table
-        this.balanceGatheringThread = new DataGatheringThread<>(
-                () -> {
-                    final long start = System.currentTimeMillis();
-                    final String[][] data = AddressesPanel.this.getAddressBalanceDataFromWallet();
-                    final long end = System.currentTimeMillis();
-                    System.out.println("Gathering of address/balance table data done in " + (end - start) + "ms.");
-                    return data;
-                },
-                this.errorReporter, 25000
-        );
-        this.threads.add(this.balanceGatheringThread);
-
-        final ActionListener alBalances = actionEvent -> {
+        // The address/balance table is updated as the shared wallet state is gathered
+        walletState.addListener(state -> {
             try {
-                AddressesPanel.this.updateWalletAddressBalanceTableAutomated();
+                AddressesPanel.this.updateWalletAddressBalanceTable(state);
             } catch (final Exception e) {
                 e.printStackTrace();
                 AddressesPanel.this.errorReporter.reportError(e);
             }
-        };
-        final Timer timer = new Timer(5000, alBalances);
-        timer.start();
-        this.timers.add(timer);
+        });
 
         // Button actions
         refreshButton.addActionListener(event -> {
@@ -116,7 +89,7 @@ class AddressesPanel extends WalletTabPanel {
             try {
                 // TODO: dummy progress bar ... maybe
                 AddressesPanel.this.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
-                AddressesPanel.this.updateWalletAddressBalanceTableInteractive();
+                AddressesPanel.this.walletState.refresh();
                 AddressesPanel.this.setCursor(oldCursor);
             } catch (final Exception e) {
                 AddressesPanel.this.setCursor(oldCursor);
@@ -163,64 +136,20 @@ class AddressesPanel extends WalletTabPanel {
                 "A new " + (isZAddress ? "Z (Private)" : "T (Transparent)") + " address has been created cuccessfully:\n" + address,
                 "Address created", JOptionPane.INFORMATION_MESSAGE
             );
-            this.updateWalletAddressBalanceTableInteractive();
+            this.walletState.refresh();
         } catch (final Exception e) {
             e.printStackTrace();
             AddressesPanel.this.errorReporter.reportError(e, false);
         }
     }
 
-    // Interactive and non-interactive are mutually exclusive
-    private synchronized void updateWalletAddressBalanceTableInteractive()
-            throws HushCommandLineBridge.WalletCallException, IOException, InterruptedException {
-        this.lastInteractiveRefresh = System.currentTimeMillis();
-
-        final String[][] newAddressBalanceData = this.getAddressBalanceDataFromWallet();
-
-        if (!Arrays.deepEquals(lastAddressBalanceData, newAddressBalanceData)) {
-            System.out.println("Updating table of addresses/balances I...");
-            this.remove(addressBalanceTablePane);
-            this.add(
-                addressBalanceTablePane = new JScrollPane(
-                    addressBalanceTable = this.createAddressBalanceTable(newAddressBalanceData)
-                ),
-                BorderLayout.CENTER
-            );
-            lastAddressBalanceData = newAddressBalanceData;
-
-            this.validate();
-            this.repaint();
-        }
-    }
-
-
-    // Interactive and non-interactive are mutually exclusive
-    private synchronized void updateWalletAddressBalanceTableAutomated() {
-        // Make sure it is > 1 min since the last interactive refresh
-        if ((System.currentTimeMillis() - lastInteractiveRefresh) < (60 * 1000)) {
-            return;
-        }
-        final String[][] newAddressBalanceData = this.balanceGatheringThread.getLastData();
-
-        if ((newAddressBalanceData != null) && !Arrays.deepEquals(lastAddressBalanceData, newAddressBalanceData)) {
-            System.out.println("Updating table of addresses/balances A...");
-            this.remove(addressBalanceTablePane);
-            this.add(
-                addressBalanceTablePane = new JScrollPane(
-                    addressBalanceTable = this.createAddressBalanceTable(newAddressBalanceData)
-                ),
-                BorderLayout.CENTER
-            );
-            lastAddressBalanceData = newAddressBalanceData;
-            this.validate();
-            this.repaint();
-        }
+    private void updateWalletAddressBalanceTable(final WalletState state) {
+        addressBalanceTableModel.setRows(this.getAddressBalanceData(state));
     }
 
 
-    private JTable createAddressBalanceTable(final String rowData[][]) {
-        final String columnNames[] = { "Balance", "Confirmed?", "Address" };
-        final JTable table = new AddressTable(rowData, columnNames, this.cliBridge);
+    private JTable createAddressBalanceTable(final AddressBalanceTableModel model) {
+        final JTable table = new AddressTable(model, this.cliBridge);
         table.setDefaultEditor(Object.class, null);
         table.setAutoResizeMode(JTable.AUTO_RESIZE_SUBSEQUENT_COLUMNS);
         table.getColumnModel().getColumn(0).setPreferredWidth(160);
@@ -235,9 +164,12 @@ class AddressesPanel extends WalletTabPanel {
     // Format double numbers - else sometimes we get exponential notation 1E-4 ZEC
     private static final DecimalFormat BALANCE_FORMATTER = new DecimalFormat("########0.00######");
 
-    private String[] getAddressBalanceDisplayData(final String address, boolean watchOnlyOrInvalid)
-            throws InterruptedException, HushCommandLineBridge.WalletCallException, IOException
-    {
+    private String[] getAddressBalanceDisplayData(
+        final String address,
+        final boolean watchOnlyOrInvalid,
+        final String confirmedBalance,
+        final String unconfirmedBalance
+    ) {
         final String addressToDisplay;
         if (watchOnlyOrInvalid) {
             System.out.println(String.format("The following address is invalid or a watch-only address: %s. It will not be displayed!", address));
@@ -246,8 +178,6 @@ class AddressesPanel extends WalletTabPanel {
             addressToDisplay = address;
         }
 
-        final String confirmedBalance = cliBridge.getBalanceForAddress(address);
-        final String unconfirmedBalance = cliBridge.getUnconfirmedBalanceForAddress(address);
         final boolean isConfirmed = confirmedBalance.equals(unconfirmedBalance);
         final String balanceToShow = BALANCE_FORMATTER.format(Double.valueOf(isConfirmed ? confirmedBalance : unconfirmedBalance));
 
@@ -258,59 +188,16 @@ class AddressesPanel extends WalletTabPanel {
         };
     }
 
-    private String[][] getAddressBalanceDataFromWallet()
-            throws HushCommandLineBridge.WalletCallException, IOException, InterruptedException
-    {
-        // Z Addresses - they are OK
-        final String[] zAddresses = cliBridge.getWalletZAddresses();
-
-        // T Addresses listed with the list received by addr comamnd
-        final String[] tAddresses = cliBridge.getWalletAllPublicAddresses();
-        final Set<String> tStoredAddressSet = new HashSet<>();
-        Collections.addAll(tStoredAddressSet, tAddresses);
-
-        // T addresses with unspent outputs - just in case they are different
-        final String[] tAddressesWithUnspentOuts = cliBridge.getWalletPublicAddressesWithUnspentOutputs();
-        final Set<String> tAddressSetWithUnspentOuts = new HashSet<>();
-        Collections.addAll(tAddressSetWithUnspentOuts, tAddressesWithUnspentOuts);
-        
-        // Combine all known T addresses
-        final Set<String> tAddressesCombined = new HashSet<>();
-        tAddressesCombined.addAll(tStoredAddressSet);
-        tAddressesCombined.addAll(tAddressSetWithUnspentOuts);
-
+    private List<String[]> getAddressBalanceData(final WalletState state) {
         final List<String[]> addressBalances = new ArrayList<>();
-
-        for (final String address : tAddressesCombined) {
-            // Make sure the current address is not watch-only or invalid
-            if (!this.validationMap.containsKey(address)) {
-                final boolean validationResult = this.cliBridge.isWatchOnlyOrInvalidAddress(address);
-                this.validationMap.put(address, validationResult);
-
-                // if (validationResult) {
-                //     JOptionPane.showMessageDialog(
-                //         this.parentFrame,
-                //         "An invalid or watch-only address exists in the wallet:" + "\n" + address + "\n\n" +
-                //         "The GUI wallet software cannot operate properly with addresses that are invalid or\n" +
-                //         "exist in the wallet as watch-only addresses. Do NOT use this address as a destination\n" +
-                //         "address for payment operations!",
-                //         "Error: invalid or watch-only address exists!",
-                //         JOptionPane.ERROR_MESSAGE
-                //     );
-                // }
-            }
-
-            final boolean watchOnlyOrInvalid = this.validationMap.get(address);
-            if (!watchOnlyOrInvalid) {
-                addressBalances.add(getAddressBalanceDisplayData(address, watchOnlyOrInvalid));
-            }
-        }
-
-        // Z addresses can't be handled above as they will be flagged as invalid.
-        for (final String address : zAddresses) {
-            addressBalances.add(getAddressBalanceDisplayData(address, false));
+        for (final Map.Entry<String, AddressBalance> balance : state.addressBalances.entrySet()) {
+            addressBalances.add(getAddressBalanceDisplayData(
+                balance.getKey(),
+                false,
+                Zatoshi.toPlainString(balance.getValue().confirmed),
+                Zatoshi.toPlainString(balance.getValue().unconfirmed)
+            ));
         }
-        String[][] addarray = new String[addressBalances.size()][];
-        return addressBalances.toArray(addarray);
+        return addressBalances;
     }
 }
@@ -74,7 +74,7 @@ public class App {
 
                 if ((hushdInfo.status != DaemonState.RUNNING) || daemonStartInProgress) {
                     System.out.println("`hushd` is not running at the moment or has not started/synchronized 100% - showing splash...");
-                    startupBar = new StartupProgressDialog(commandLineBridge);
+                    startupBar = new StartupProgressDialog(commandLineBridge, daemonInfoProvider);
                     startupBar.setVisible(true);
                     startupBar.waitForStartup();
                 } else {
@@ -0,0 +1,114 @@
+// Copyright (c) 2018 The Hush Developers <contact@myhush.org>
+//
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+package org.myhush.gui;
+
+import com.eclipsesource.json.JsonValue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Computes the balances of many addresses from the unspent outputs of the wallet, listed by one `listunspent 0` and
+ * one `z_listunspent 0` call, rather than two `z_getbalance` calls per address.
+ * <p>
+ * Daemons without `z_listunspent` get the balances of Z addresses from `z_getbalance` instead.
+ */
+class BalanceEngine {
+    // JSON-RPC error code of unknown methods
+    private static final int RPC_METHOD_NOT_FOUND = -32601;
+    // Upper bound of confirmations passed to `z_listunspent`, as its own default
+    private static final String MAX_CONFIRMATIONS = "9999999";
+
+    private final HushCommandLineBridge bridge;
+    private volatile boolean zListUnspentSupported = true;
+
+    BalanceEngine(final HushCommandLineBridge bridge) {
+        this.bridge = bridge;
+    }
+
+    /**
+     * @return the balances in the order of the addresses
+     */
+    Map<String, AddressBalance> getBalances(final List<String> addresses)
+            throws HushCommandLineBridge.WalletCallException, IOException, InterruptedException {
+        // Confirmed and unconfirmed sum per address
+        final Map<String, long[]> sums = new LinkedHashMap<>();
+        final List<String> zAddresses = new ArrayList<>();
+        for (final String address : addresses) {
+            sums.put(address, new long[2]);
+            if (isZAddress(address)) {
+                zAddresses.add(address);
+            }
+        }
+
+        bridge.executeCommandAndDecode(
+            new UnspentOutput.Decoder(output -> this.add(sums, output)),
+            "listunspent", "0"
+        );
+
+        if (!zAddresses.isEmpty()) {
+            boolean listed = false;
+            if (zListUnspentSupported) {
+                try {
+                    // Including notes of addresses with only a viewing key, which `z_getbalance` reports as well
+                    bridge.executeCommandAndDecode(
+                        new UnspentOutput.Decoder(output -> this.add(sums, output)),
+                        "z_listunspent", "0", MAX_CONFIRMATIONS, "true"
+                    );
+                    listed = true;
+                } catch (final HushCommandLineBridge.WalletErrorException e) {
+                    if (e.getCode() != RPC_METHOD_NOT_FOUND) {
+                        throw e;
+                    }
+                    System.out.println("The daemon does not support z_listunspent, using z_getbalance instead.");
+                    zListUnspentSupported = false;
+                }
+            }
+            if (!listed) {
+                this.addZGetBalances(sums, zAddresses);
+            }
+        }
+
+        final Map<String, AddressBalance> balances = new LinkedHashMap<>();
+        for (final Map.Entry<String, long[]> sum : sums.entrySet()) {
+            balances.put(sum.getKey(), new AddressBalance(sum.getValue()[0], sum.getValue()[1]));
+        }
+        return balances;
+    }
+
+    private void add(final Map<String, long[]> sums, final UnspentOutput output) {
+        final long[] sum = sums.get(output.address);
+        if (sum == null) {
+            return;
+        }
+        if (output.confirmations > 0) {
+            sum[0] += output.amount;
+        }
+        sum[1] += output.amount;
+    }
+
+    // Two `z_getbalance` calls per address, in batches
+    private void addZGetBalances(final Map<String, long[]> sums, final List<String> zAddresses)
+            throws HushCommandLineBridge.WalletCallException, IOException, InterruptedException {
+        final List<RpcCall> calls = new ArrayList<>(zAddresses.size() * 2);
+        for (final String zAddress : zAddresses) {
+            calls.add(new RpcCall("z_getbalance", zAddress));
+            calls.add(new RpcCall("z_getbalance", zAddress, "0"));
+        }
+        final List<JsonValue> responses = bridge.executeBatch(calls);
+        for (int i = 0; i < zAddresses.size(); i++) {
+            final long[] sum = sums.get(zAddresses.get(i));
+            sum[0] = Zatoshi.parse(responses.get(2 * i).toString());
+            sum[1] = Zatoshi.parse(responses.get(2 * i + 1).toString());
+        }
+    }
+
+    private static boolean isZAddress(final String address) {
+        return address.startsWith("z") && (address.length() > 40);
+    }
+}
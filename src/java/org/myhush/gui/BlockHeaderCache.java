@@ -0,0 +1,62 @@
+// Copyright (c) 2018 The Hush Developers <contact@myhush.org>
+//
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+package org.myhush.gui;
+
+import com.eclipsesource.json.JsonObject;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Least recently used cache of block headers, keyed by height. A header is fetched with `getblockheader` only if
+ * the block at its height is not cached yet or was replaced by a chain reorganization.
+ */
+class BlockHeaderCache {
+    static final int DEFAULT_MAX_ENTRIES = 100;
+
+    private final HushCommandLineBridge bridge;
+    private final Map<Integer, BlockHeader> headers;
+
+    BlockHeaderCache(final HushCommandLineBridge bridge, final int maxEntries) {
+        this.bridge = bridge;
+        this.headers = new LinkedHashMap<Integer, BlockHeader>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Integer, BlockHeader> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * @return the header of the block with the given hash at the given height
+     */
+    BlockHeader get(final int height, final String hash)
+            throws HushCommandLineBridge.WalletCallException, IOException, InterruptedException {
+        synchronized (headers) {
+            final BlockHeader cached = headers.get(height);
+            if ((cached != null) && cached.hash.equals(hash)) {
+                return cached;
+            }
+        }
+        final JsonObject response = bridge.executeCommandAndGetJsonObject("getblockheader", hash);
+        final BlockHeader header = new BlockHeader(hash, response.getLong("time", -1));
+        synchronized (headers) {
+            headers.put(height, header);
+        }
+        return header;
+    }
+
+    static class BlockHeader {
+        final String hash;
+        // Seconds since the epoch
+        final long time;
+
+        BlockHeader(final String hash, final long time) {
+            this.hash = hash;
+            this.time = time;
+        }
+    }
+}
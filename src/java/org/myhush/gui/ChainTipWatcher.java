@@ -0,0 +1,136 @@
+// Copyright (c) 2018 The Hush Developers <contact@myhush.org>
+//
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+package org.myhush.gui;
+
+import com.eclipsesource.json.JsonValue;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Tells whether the chain tip or the set of wallet transactions changed, without gathering the wallet state.
+ * <p>
+ * A probe is one small batch of `getbestblockhash` and `getwalletinfo`, whose txcount grows with every wallet
+ * transaction, unconfirmed ones included. When the daemon runs with `-blocknotify`/`-walletnotify` commands that
+ * write to the notify file, changes are also signalled as they happen. The GUI passes such commands when it starts
+ * the daemon itself, unless hush.conf sets its own.
+ */
+class ChainTipWatcher {
+    private static final String[] NOTIFY_OPTIONS = { "blocknotify", "walletnotify" };
+    // Special to sh or cmd even within double quotes, or to the daemon (%s) - and backslashes, except as the
+    // separator of Windows paths, to sh
+    private static final String UNSAFE_PATH_CHARACTERS = "\"$`%!" + ((File.separatorChar == '\\') ? "" : "\\");
+
+    private final HushCommandLineBridge bridge;
+    private final File notifyFile;
+    private WatchService watchService = null;
+
+    ChainTipWatcher(final HushCommandLineBridge bridge, final File notifyFile) {
+        this.bridge = bridge;
+        this.notifyFile = notifyFile;
+    }
+
+    /**
+     * @return a value that changes whenever the chain tip or the set of wallet transactions changes
+     */
+    String probe() throws HushCommandLineBridge.WalletCallException, IOException, InterruptedException {
+        final List<JsonValue> responses = bridge.executeBatch(Arrays.asList(
+            new RpcCall("getbestblockhash"),
+            new RpcCall("getwalletinfo")
+        ));
+        final long txCount = HushCommandLineBridge.toJsonObject(responses.get(1)).getLong("txcount", -1);
+        return responses.get(0).asString() + "/" + txCount;
+    }
+
+    /**
+     * Starts watching the notify file in a daemon thread.
+     *
+     * @param onNotify run whenever the daemon writes to the notify file
+     */
+    synchronized void startWatching(final Runnable onNotify) {
+        if (watchService != null) {
+            return;
+        }
+        final Path directory = notifyFile.getAbsoluteFile().getParentFile().toPath();
+        final Path fileName = notifyFile.toPath().getFileName();
+        final WatchService service;
+        try {
+            service = FileSystems.getDefault().newWatchService();
+            directory.register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (final IOException e) {
+            e.printStackTrace();
+            System.out.println("Watching " + notifyFile.getAbsolutePath() + " failed, relying on probes only.");
+            return;
+        }
+        watchService = service;
+
+        final Thread watcherThread = new Thread(() -> {
+            try {
+                while (true) {
+                    final WatchKey key = service.take();
+                    boolean notified = false;
+                    for (final WatchEvent<?> event : key.pollEvents()) {
+                        notified |= fileName.equals(event.context());
+                    }
+                    if (notified) {
+                        onNotify.run();
+                    }
+                    if (!key.reset()) {
+                        System.out.println("Directory of " + notifyFile.getAbsolutePath() + " is no longer watched.");
+                        return;
+                    }
+                }
+            } catch (final InterruptedException | ClosedWatchServiceException e) {
+                // Stopped
+            }
+        }, "ChainTipWatcher");
+        watcherThread.setDaemon(true);
+        watcherThread.start();
+    }
+
+    synchronized void stopWatching() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (final IOException e) {
+                e.printStackTrace();
+            }
+            watchService = null;
+        }
+    }
+
+    /**
+     * @return the daemon options that make it write to the notify file, leaving out those set in hush.conf
+     */
+    static List<String> getDaemonNotifyOptions(final File notifyFile, final File hushConfigFile) throws IOException {
+        final Properties config = new Properties();
+        if (hushConfigFile.exists()) {
+            try (final Reader reader = new InputStreamReader(new FileInputStream(hushConfigFile), StandardCharsets.UTF_8)) {
+                config.load(reader);
+            }
+        }
+        final List<String> options = new ArrayList<>();
+        final String notifyPath = notifyFile.getCanonicalPath();
+        // Quoting differs between sh and cmd, so a path that would need more than double quotes is not passed
+        for (final char character : notifyPath.toCharArray()) {
+            if ((UNSAFE_PATH_CHARACTERS.indexOf(character) >= 0) || Character.isISOControl(character)) {
+                System.out.println(
+                    "Not passing daemon notify options, the path " + notifyPath + " contains " + character +
+                    " - changes are noticed by polling only."
+                );
+                return options;
+            }
+        }
+        for (final String option : NOTIFY_OPTIONS) {
+            if (config.getProperty(option) == null) {
+                // Works the same in sh and cmd, the daemon replaces %s with the block or transaction hash
+                options.add("-" + option + "=echo %s > \"" + notifyPath + "\"");
+            }
+        }
+        return options;
+    }
+}
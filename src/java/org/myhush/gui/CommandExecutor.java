@@ -5,14 +5,33 @@
 // file LICENSE or http://www.opensource.org/licenses/mit-license.php.
 package org.myhush.gui;
 
-import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * Executes a command and returns the result.
+ * Executes a command and returns its standard output, error output and exit code.
+ * <p>
+ * Standard output is read by the calling thread, error output by a thread of a shared pool. Both are read in bulk
+ * into per-thread buffers that are reused between commands.
  */
 public class CommandExecutor {
+    // Buffers that grew beyond this are not kept for reuse
+    private static final int MAX_RETAINED_BUFFER_SIZE = 1024 * 1024;
+    private static final AtomicInteger drainThreadCounter = new AtomicInteger();
+    private static final ExecutorService drainExecutor = Executors.newCachedThreadPool(runnable -> {
+        final Thread thread = new Thread(runnable, "CommandExecutor-drain-" + drainThreadCounter.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final ThreadLocal<OutputBuffer> outputBuffers = ThreadLocal.withInitial(OutputBuffer::new);
+
     private final String[] args;
 
     public CommandExecutor(final String args[]) {
@@ -23,53 +42,79 @@ public class CommandExecutor {
         return Runtime.getRuntime().exec(args);
     }
 
-    // BRX-TODO: Is this inefficient? Looks like it may need a lot of CPU usage
-    // BRX-TODO: Also, why are we returning one string for two types of results?
-    public String execute() throws IOException, InterruptedException {
-        final StringBuffer result = new StringBuffer();
-        final Runtime runtime = Runtime.getRuntime();
-        final Process process = runtime.exec(args);
-        final BufferedReader in = new BufferedReader(new InputStreamReader(process.getInputStream()));
-        final BufferedReader err = new BufferedReader(new InputStreamReader(process.getErrorStream()));
+    public Result execute() throws IOException, InterruptedException {
+        final Process process = Runtime.getRuntime().exec(args);
+        process.getOutputStream().close();
 
-        final Thread inThread = new Thread(
-            () -> {
-                try {
-                    do {
-                        final int c = in.read();
-                        if (c == -1) {
-                            break;
-                        }
-                        result.append((char) c);
-                    } while (true);
-                } catch (final IOException ioe) {
-                    // TODO: log or handle the exception
-                }
-            }
-        );
-        inThread.start();
+        final Future<String> errorOutput = drainExecutor.submit(() -> drain(process.getErrorStream()));
+        final String output;
+        try {
+            output = drain(process.getInputStream());
+        } catch (final IOException e) {
+            process.destroy();
+            throw e;
+        }
+        final int exitCode = process.waitFor();
+        try {
+            return new Result(output, errorOutput.get(), exitCode);
+        } catch (final ExecutionException e) {
+            throw (e.getCause() instanceof IOException) ? (IOException) e.getCause() : new IOException(e.getCause());
+        }
+    }
 
-        final Thread errThread = new Thread(
-            () -> {
-                try {
-                    do {
-                        final int c = err.read();
-                        if (c == -1) {
-                            break;
-                        }
-                        result.append((char) c);
-                    } while (true);
-                } catch (final IOException ioe) {
-                    // TODO: log or handle the exception
-                }
+    private static String drain(final InputStream stream) throws IOException {
+        final OutputBuffer buffer = outputBuffers.get();
+        try (final InputStream in = stream) {
+            int read;
+            while ((read = in.read(buffer.chunk)) >= 0) {
+                buffer.collected.write(buffer.chunk, 0, read);
             }
-        );
-        errThread.start();
+            // Same decoding as an InputStreamReader with the platform default charset
+            return new String(buffer.collected.toByteArray(), Charset.defaultCharset());
+        } finally {
+            if (buffer.collected.size() > MAX_RETAINED_BUFFER_SIZE) {
+                outputBuffers.remove();
+            } else {
+                buffer.collected.reset();
+            }
+        }
+    }
+
+    private static class OutputBuffer {
+        final byte[] chunk = new byte[8192];
+        final ByteArrayOutputStream collected = new ByteArrayOutputStream(8192);
+    }
+
+    /**
+     * Outcome of an executed command.
+     */
+    public static class Result {
+        private final String output;
+        private final String errorOutput;
+        private final int exitCode;
+
+        Result(final String output, final String errorOutput, final int exitCode) {
+            this.output = output;
+            this.errorOutput = errorOutput;
+            this.exitCode = exitCode;
+        }
+
+        // Standard output
+        public String getOutput() {
+            return output;
+        }
+
+        // Error output
+        public String getErrorOutput() {
+            return errorOutput;
+        }
 
-        process.waitFor();
-        inThread.join();
-        errThread.join();
+        public int getExitCode() {
+            return exitCode;
+        }
 
-        return result.toString();
+        public boolean isSuccessful() {
+            return exitCode == 0;
+        }
     }
 }
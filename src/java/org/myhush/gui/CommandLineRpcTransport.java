@@ -0,0 +1,179 @@
+// Copyright (c) 2016-2017 Ivan Vaklinov <ivan@vaklinov.com>
+// Copyright (c) 2018 The Hush Developers <contact@myhush.org>
+//
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+package org.myhush.gui;
+
+import com.eclipsesource.json.Json;
+import com.eclipsesource.json.JsonHandler;
+import com.eclipsesource.json.JsonObject;
+import com.eclipsesource.json.JsonParser;
+import com.eclipsesource.json.JsonValue;
+import com.eclipsesource.json.ParseException;
+import org.myhush.gui.environment.RuntimeEnvironment;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.LineNumberReader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Issues wallet calls by running `hush-cli` once per call.
+ */
+class CommandLineRpcTransport implements RpcTransport {
+    private final File hushcli;
+
+    CommandLineRpcTransport(final File hushcli) {
+        this.hushcli = hushcli;
+    }
+
+    @Override
+    public JsonValue call(final String method, final String... params)
+            throws HushCommandLineBridge.WalletCallException, IOException, InterruptedException {
+        final String result = execute(method, params);
+        if (result.isEmpty()) {
+            return Json.NULL;
+        }
+        try {
+            return Json.parse(result);
+        } catch (final ParseException e) {
+            // `hush-cli` prints string results without quotes
+            return Json.value(result);
+        }
+    }
+
+    // The output of `hush-cli` is already in memory, but decoding it still avoids building the JSON tree
+    @Override
+    public void callAndDecode(
+        final JsonHandler<Object, Object> resultDecoder,
+        final String method,
+        final String... params
+    ) throws HushCommandLineBridge.WalletCallException, IOException, InterruptedException {
+        final String result = execute(method, params);
+        if (result.isEmpty()) {
+            return;
+        }
+        try {
+            new JsonParser(resultDecoder).parse(result);
+        } catch (final ParseException | NumberFormatException | ArithmeticException e) {
+            throw new HushCommandLineBridge.WalletCallException(
+                "Unexpected response from wallet to " + method + ": " + e.getMessage(), e
+            );
+        }
+    }
+
+    // Runs `hush-cli` and returns its trimmed output
+    private String execute(final String method, final String... params)
+            throws HushCommandLineBridge.WalletCallException, IOException, InterruptedException {
+        final String dataDirectory = App.PATH_PROVIDER.getBlockchainDirectory().getCanonicalPath();
+        final String[] args = new String[params.length + 3];
+        args[0] = hushcli.getCanonicalPath();
+        args[1] = wrapStringParameter(String.format("-datadir=%s", dataDirectory));
+        args[2] = method;
+        for (int i = 0; i < params.length; i++) {
+            args[i + 3] = wrapStringParameter(params[i]);
+        }
+        final CommandExecutor.Result result = new CommandExecutor(args).execute();
+
+        if (!result.isSuccessful()) {
+            // `hush-cli` reports errors on its error output with a non-zero exit code
+            final String error = result.getErrorOutput().trim().isEmpty() ? result.getOutput() : result.getErrorOutput();
+            final String normError = error.trim().toLowerCase(Locale.ROOT);
+            if (normError.startsWith("error: couldn't connect to server")) {
+                throw new HushCommandLineBridge.DaemonConnectionException("Error response from wallet: " + error);
+            } else if (normError.startsWith("error code:")) {
+                throw toWalletErrorException(error, jsonifyErrorMessage(error));
+            }
+            throw toWalletErrorException(error, parseErrorObject(error));
+        }
+        return result.getOutput().trim();
+    }
+
+    // `hush-cli` has no batch support - the calls are issued one by one
+    @Override
+    public List<JsonValue> callBatch(final List<RpcCall> calls)
+            throws HushCommandLineBridge.WalletCallException, IOException, InterruptedException {
+        final List<JsonValue> results = new ArrayList<>(calls.size());
+        for (final RpcCall call : calls) {
+            results.add(call(call.method, call.params));
+        }
+        return results;
+    }
+
+    private static HushCommandLineBridge.WalletErrorException toWalletErrorException(
+        final String result,
+        final JsonObject error
+    ) {
+        return new HushCommandLineBridge.WalletErrorException(
+            "Error response from wallet: " + result,
+            error.getInt("code", 0),
+            error.getString("message", "")
+        );
+    }
+
+    // Old style error message, like: error: {"code":-28,"message":"Loading block index..."}
+    private static JsonObject parseErrorObject(final String result) {
+        final int jsonStart = result.indexOf('{');
+        if (jsonStart >= 0) {
+            try {
+                final JsonValue error = Json.parse(result.substring(jsonStart));
+                if (error.isObject()) {
+                    return error.asObject();
+                }
+            } catch (final ParseException e) {
+                // Fall through - keep the raw text as message
+            }
+        }
+        final String message = result.trim();
+        return new JsonObject().add(
+            "message", message.toLowerCase(Locale.ROOT).startsWith("error:") ? message.substring(6).trim() : message
+        );
+    }
+
+    // Turns a 1.0.7+ error message to a an old json-style message
+    // info - new style error message
+    private static JsonObject jsonifyErrorMessage(final String info) throws IOException {
+        final JsonObject result = new JsonObject();
+
+        // Error message here comes from ZCash 1.0.7+ and is like:
+        /*
+        hush-cli getinfo
+        error code: -28
+        error message:
+        Loading block index...
+        */
+        final LineNumberReader lnr = new LineNumberReader(new StringReader(info.trim()));
+        final int errCode = Integer.parseInt(lnr.readLine().substring(11).trim());
+        result.set("code", errCode);
+        lnr.readLine();
+        final StringBuilder message = new StringBuilder();
+        for (String line = lnr.readLine(); line != null; line = lnr.readLine()) {
+            if (message.length() > 0) {
+                message.append('\n');
+            }
+            message.append(line.trim());
+        }
+        result.set("message", message.toString());
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return hushcli.getName();
+    }
+
+    // Used to wrap string parameters on the command line - not doing so causes problems on Windows.
+    static String wrapStringParameter(String param) {
+        // Fix is made for Windows only
+        // BRX-TODO: This is the only reason for the `isWindowsRuntime` method laziness
+        // BRX-TODO: Does it not make sense to also quote these parameters on *nix?
+        if (RuntimeEnvironment.isWindowsRuntime()) {
+            param = "\"" + param.replace("\"", "\\\"") + "\"";
+        }
+        return param;
+    }
+}
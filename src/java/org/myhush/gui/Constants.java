@@ -6,4 +6,9 @@ class Constants {
 
     final static String HUSH_CONFIG_FILENAME = "hush.conf";
     final static String WALLET_ADDRESS_BOOK_FILENAME = "addressBook.csv";
+    final static String ADDRESS_VALIDATION_FILENAME = "addressValidation.csv";
+    final static String CHAIN_NOTIFY_FILENAME = "chainNotify.txt";
+    final static String POLLING_CADENCE_FILENAME = "pollingCadence.properties";
+    final static String TRANSACTION_SNAPSHOT_FILENAME = "transactions.dat";
+    final static String TRANSACTION_LOG_FILENAME = "transactions.log";
 }
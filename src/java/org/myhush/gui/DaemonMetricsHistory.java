@@ -0,0 +1,113 @@
+// Copyright (c) 2018 The Hush Developers <contact@myhush.org>
+//
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+package org.myhush.gui;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size history of the daemon's resource usage over the last 24 hours, in primitive arrays used as a ring
+ * buffer. Samples are combined per time slot of the configured resolution: the CPU usage is averaged, the memory
+ * sizes are the highest seen in the slot. Slots without samples have no value (NaN), and so does the CPU usage of
+ * slots whose samples did not measure it.
+ */
+class DaemonMetricsHistory {
+    static final int DEFAULT_RESOLUTION_MS = 60 * 1000;
+    private static final long HISTORY_MS = 24 * 60 * 60 * 1000;
+
+    enum Metric { RESIDENT_MB, VIRTUAL_MB, CPU_PERCENTAGE }
+
+    private final long resolutionMs;
+    private final int capacity;
+    private final float[] residentMB;
+    private final float[] virtualMB;
+    private final float[] cpuPercentage;
+    // Ring index and time slot (-1 before the first sample) of the current slot, and the samples combined in it
+    private int head = 0;
+    private long headSlot = -1;
+    private int headSamples = 0;
+    private int headCPUSamples = 0;
+
+    DaemonMetricsHistory(final long resolutionMs) {
+        this.resolutionMs = resolutionMs;
+        this.capacity = (int) Math.max(2, HISTORY_MS / resolutionMs);
+        this.residentMB = newSlots(capacity);
+        this.virtualMB = newSlots(capacity);
+        this.cpuPercentage = newSlots(capacity);
+    }
+
+    synchronized void record(final long timeMs, final double residentMB, final double virtualMB, final double cpuPercentage) {
+        final long slot = timeMs / resolutionMs;
+        if (slot < headSlot) {
+            // The clock went back - keep adding to the current slot
+        } else if (headSlot < 0) {
+            headSlot = slot;
+        } else if (slot > headSlot) {
+            // Slots without samples stay empty
+            final long skipped = Math.min(slot - headSlot, capacity);
+            for (long i = 0; i < skipped; i++) {
+                head = (head + 1) % capacity;
+                this.residentMB[head] = Float.NaN;
+                this.virtualMB[head] = Float.NaN;
+                this.cpuPercentage[head] = Float.NaN;
+            }
+            headSlot = slot;
+            headSamples = 0;
+            headCPUSamples = 0;
+        }
+
+        if (headSamples == 0) {
+            this.residentMB[head] = (float) residentMB;
+            this.virtualMB[head] = (float) virtualMB;
+            this.cpuPercentage[head] = Float.NaN;
+        } else {
+            this.residentMB[head] = Math.max(this.residentMB[head], (float) residentMB);
+            this.virtualMB[head] = Math.max(this.virtualMB[head], (float) virtualMB);
+        }
+        headSamples++;
+        // Not measured, e.g. for the first sample - rather than taken as idle
+        if (!Double.isNaN(cpuPercentage)) {
+            if (headCPUSamples == 0) {
+                this.cpuPercentage[head] = (float) cpuPercentage;
+            } else {
+                this.cpuPercentage[head] += ((float) cpuPercentage - this.cpuPercentage[head]) / (headCPUSamples + 1);
+            }
+            headCPUSamples++;
+        }
+    }
+
+    /**
+     * Copies the history of one metric, oldest slot first, into the given array of {@link #getCapacity()} elements.
+     */
+    synchronized void copy(final Metric metric, final float[] values) {
+        final float[] source;
+        switch (metric) {
+            case RESIDENT_MB:
+                source = residentMB;
+                break;
+            case VIRTUAL_MB:
+                source = virtualMB;
+                break;
+            default:
+                source = cpuPercentage;
+        }
+        final int oldest = (head + 1) % capacity;
+        System.arraycopy(source, oldest, values, 0, capacity - oldest);
+        System.arraycopy(source, 0, values, capacity - oldest, oldest);
+    }
+
+    int getCapacity() {
+        return capacity;
+    }
+
+    long getResolutionMs() {
+        return resolutionMs;
+    }
+
+    private static float[] newSlots(final int capacity) {
+        final float[] slots = new float[capacity];
+        Arrays.fill(slots, Float.NaN);
+        return slots;
+    }
+}
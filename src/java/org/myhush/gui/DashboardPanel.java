@@ -12,6 +12,8 @@ import org.myhush.gui.environment.system.DaemonState;
 
 import javax.swing.*;
 import javax.swing.Timer;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import java.util.*;
 import java.awt.*;
 import java.awt.event.ActionListener;
@@ -24,33 +26,40 @@ class DashboardPanel extends WalletTabPanel {
     private final JFrame parentFrame;
     private final DaemonInfoProvider daemonInfoProvider;
     private final HushCommandLineBridge cliBridge;
+    private final PollingCadence cadence;
     private final StatusUpdateErrorReporter errorReporter;
 
     private final JLabel networkAndBlockchainLabel;
-    private final DataGatheringThread<HushCommandLineBridge.NetworkAndBlockchainInfo> netInfoGatheringThread;
+    private final DataGatheringTask<HushCommandLineBridge.NetworkAndBlockchainInfo> netInfoGatheringTask;
 
     private Boolean walletIsEncrypted = null;
     private Integer blockchainPercentage = null;
 
     private String OSInfo = null;
     private final JLabel daemonStatusLabel;
-    private final DataGatheringThread<DaemonInfo> daemonInfoGatheringThread;
+    private final DataGatheringTask<DaemonInfo> daemonInfoGatheringTask;
+    private final DaemonMetricsHistory daemonMetrics;
+    private final List<Sparkline> daemonSparklines = new ArrayList<>();
 
     private final JLabel walletBalanceLabel;
-    private final DataGatheringThread<HushCommandLineBridge.WalletBalance> walletBalanceGatheringThread;
 
-    private JScrollPane transactionsTablePane;
-    private String[][] lastTransactionsData;
-    private final DataGatheringThread<String[][]> transactionGatheringThread;
+    private final TransactionTableModel transactionsTableModel;
+    private final JTextField transactionSearchField;
+    private final JLabel transactionSearchLabel;
+    // null until set
+    private AddressBookPanel addressBook = null;
 
     DashboardPanel(final JFrame parentFrame,
                    final DaemonInfoProvider daemonInfoProvider,
                    final HushCommandLineBridge cliBridge,
+                   final WalletStateService walletState,
+                   final PollingCadence cadence,
                    final StatusUpdateErrorReporter errorReporter
     ) throws IOException, InterruptedException, HushCommandLineBridge.WalletCallException {
         this.parentFrame = parentFrame;
         this.daemonInfoProvider = daemonInfoProvider;
         this.cliBridge = cliBridge;
+        this.cadence = cadence;
         this.errorReporter = errorReporter;
 
         // Build content
@@ -85,8 +94,42 @@ class DashboardPanel extends WalletTabPanel {
         dashboard.add(balanceStatusPanel, BorderLayout.NORTH);
 
         // Table of transactions
-        lastTransactionsData = getTransactionsDataFromWallet();
-        dashboard.add(transactionsTablePane = new JScrollPane(this.createTransactionsTable(lastTransactionsData)), BorderLayout.CENTER);
+        final WalletState initialState = (walletState.getState() != null) ? walletState.getState() : walletState.refresh();
+        transactionsTableModel = new TransactionTableModel(initialState.transactions);
+        final JPanel transactionsPanel = new JPanel(new BorderLayout(0, 0));
+        transactionsPanel.add(new JScrollPane(this.createTransactionsTable(transactionsTableModel)), BorderLayout.CENTER);
+
+        // Search of transactions, applied once typing pauses
+        final JPanel searchPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 3, 3));
+        searchPanel.add(new JLabel("Search:"));
+        searchPanel.add(transactionSearchField = new JTextField(30));
+        transactionSearchField.setToolTipText(
+            "<html>Transaction ID (at least 4 first digits), part of an address or contact name,<br/>" +
+            "amount or date as yyyy-MM-dd - transactions matching all words are shown</html>"
+        );
+        searchPanel.add(transactionSearchLabel = new JLabel());
+        transactionsPanel.add(searchPanel, BorderLayout.NORTH);
+        dashboard.add(transactionsPanel, BorderLayout.CENTER);
+
+        final Timer searchTimer = new Timer(200, event -> DashboardPanel.this.searchTransactions());
+        searchTimer.setRepeats(false);
+        transactionSearchField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(final DocumentEvent event) {
+                searchTimer.restart();
+            }
+
+            @Override
+            public void removeUpdate(final DocumentEvent event) {
+                searchTimer.restart();
+            }
+
+            @Override
+            public void changedUpdate(final DocumentEvent event) {
+                searchTimer.restart();
+            }
+        });
+        transactionsTableModel.addTableModelListener(event -> DashboardPanel.this.updateTransactionSearchLabel());
 
         // Lower panel with installation status
         final JPanel installationStatusPanel = new JPanel();
@@ -96,24 +139,42 @@ class DashboardPanel extends WalletTabPanel {
         daemonStatusPanel.add(daemonStatusLabel = new JLabel());
         installationStatusPanel.add(daemonStatusPanel, BorderLayout.WEST);
 
+        // History of the daemon's resource usage
+        this.daemonMetrics = new DaemonMetricsHistory(
+            Math.max(1000, Integer.getInteger("daemon.history.resolution", DaemonMetricsHistory.DEFAULT_RESOLUTION_MS))
+        );
+        final PresentationPanel daemonHistoryPanel = new PresentationPanel();
+        daemonHistoryPanel.setLayout(new GridLayout(3, 2, 4, 0));
+        daemonHistoryPanel.setBorder(BorderFactory.createEmptyBorder(4, 8, 4, 8));
+        this.addDaemonSparkline(daemonHistoryPanel, "Resident", DaemonMetricsHistory.Metric.RESIDENT_MB, "MB");
+        this.addDaemonSparkline(daemonHistoryPanel, "Virtual", DaemonMetricsHistory.Metric.VIRTUAL_MB, "MB");
+        this.addDaemonSparkline(daemonHistoryPanel, "CPU", DaemonMetricsHistory.Metric.CPU_PERCENTAGE, "%");
+        installationStatusPanel.add(daemonHistoryPanel, BorderLayout.CENTER);
+
         final PresentationPanel networkAndBlockchainPanel = new PresentationPanel();
         networkAndBlockchainPanel.add(networkAndBlockchainLabel = new JLabel());
         installationStatusPanel.add(networkAndBlockchainPanel, BorderLayout.EAST);
 
         dashboard.add(installationStatusPanel, BorderLayout.SOUTH);
 
-        // Thread and timer to update the daemon status
-        this.daemonInfoGatheringThread = new DataGatheringThread<>(
+        // Task and timer to update the daemon status
+        this.daemonInfoGatheringTask = new DataGatheringTask<>(
             () -> {
                 final long start = System.currentTimeMillis();
                 final DaemonInfo daemonInfo = DashboardPanel.this.daemonInfoProvider.getDaemonInfo();
                 final long end = System.currentTimeMillis();
+                if (daemonInfo.status == DaemonState.RUNNING) {
+                    DashboardPanel.this.daemonMetrics.record(
+                        end, daemonInfo.residentSizeMB, daemonInfo.virtualSizeMB, daemonInfo.cpuPercentage
+                    );
+                }
                 System.out.println("Gathering of dashboard daemon status data done in " + (end - start) + "ms.");
                 return daemonInfo;
             },
-            this.errorReporter, 2000, true
+            this.errorReporter, () -> cadence.getInterval(PollingCadence.Poll.DAEMON_INFO), true
         );
-        this.threads.add(this.daemonInfoGatheringThread);
+        this.gatheringTasks.add(this.daemonInfoGatheringTask);
+        cadence.addListener(this.daemonInfoGatheringTask::reschedule);
 
         final ActionListener alDeamonStatus = actionEvent -> {
             try {
@@ -127,65 +188,20 @@ class DashboardPanel extends WalletTabPanel {
         timer.start();
         this.timers.add(timer);
 
-        // Thread and timer to update the wallet balance
-        this.walletBalanceGatheringThread = new DataGatheringThread<>(
-            () -> {
-                final long start = System.currentTimeMillis();
-                final HushCommandLineBridge.WalletBalance balance = DashboardPanel.this.cliBridge.getWalletInfo();
-                final long end = System.currentTimeMillis();
-
-                // TODO: move this call to a dedicated one-off gathering thread - this is the wrong place
-                // it works but a better design is needed.
-                if (DashboardPanel.this.walletIsEncrypted == null) {
-                    DashboardPanel.this.walletIsEncrypted = DashboardPanel.this.cliBridge.isWalletEncrypted();
-                }
-                System.out.println("Gathering of dashboard wallet balance data done in " + (end - start) + "ms.");
-                return balance;
-            },
-            this.errorReporter, 8000, true
-        );
-        this.threads.add(this.walletBalanceGatheringThread);
-
-        final ActionListener alWalletBalance = actionEvent -> {
+        // Wallet balance and transactions are updated as the shared wallet state is gathered
+        this.updateWalletStatusLabel(initialState);
+        walletState.addListener(state -> {
             try {
-                DashboardPanel.this.updateWalletStatusLabel();
+                DashboardPanel.this.updateWalletStatusLabel(state);
+                DashboardPanel.this.transactionsTableModel.setIndex(state.transactions);
             } catch (final Exception e) {
                 e.printStackTrace();
                 DashboardPanel.this.errorReporter.reportError(e);
             }
-        };
-        final Timer walletBalanceTimer = new Timer(2000, alWalletBalance);
-        walletBalanceTimer.setInitialDelay(1000);
-        walletBalanceTimer.start();
-        this.timers.add(walletBalanceTimer);
-
-        // Thread and timer to update the transactions table
-        this.transactionGatheringThread = new DataGatheringThread<>(
-            () -> {
-                final long start = System.currentTimeMillis();
-                final String[][] data = DashboardPanel.this.getTransactionsDataFromWallet();
-                final long end = System.currentTimeMillis();
-                System.out.println("Gathering of dashboard wallet transactions table data done in " + (end - start) + "ms.");
-                return data;
-            },
-            this.errorReporter, 25000
-        );
-        this.threads.add(this.transactionGatheringThread);
-
-        final ActionListener alTransactions = actionEvent -> {
-            try {
-                DashboardPanel.this.updateWalletTransactionsTable();
-            } catch (final Exception e) {
-                e.printStackTrace();
-                DashboardPanel.this.errorReporter.reportError(e);
-            }
-        };
-        final Timer updateTransactionsTimer = new Timer(5000, alTransactions);
-        updateTransactionsTimer.start();
-        this.timers.add(updateTransactionsTimer);
+        });
 
-        // Thread and timer to update the network and blockchain details
-        this.netInfoGatheringThread = new DataGatheringThread<>(
+        // Task and timer to update the network and blockchain details
+        this.netInfoGatheringTask = new DataGatheringTask<>(
             () -> {
                 final long start = System.currentTimeMillis();
                 final HushCommandLineBridge.NetworkAndBlockchainInfo data = DashboardPanel.this.cliBridge.getNetworkAndBlockchainInfo();
@@ -193,9 +209,10 @@ class DashboardPanel extends WalletTabPanel {
                 System.out.println("Gathering of network and blockchain info data done in " + (end - start) + "ms.");
                 return data;
             },
-            this.errorReporter, 10000, true
+            this.errorReporter, () -> cadence.getInterval(PollingCadence.Poll.NETWORK_INFO), true
         );
-        this.threads.add(this.netInfoGatheringThread);
+        this.gatheringTasks.add(this.netInfoGatheringTask);
+        cadence.addListener(this.netInfoGatheringTask::reschedule);
 
         final ActionListener alNetAndBlockchain = actionEvent -> {
             try {
@@ -211,18 +228,56 @@ class DashboardPanel extends WalletTabPanel {
         this.timers.add(netAndBlockchainTimer);
     }
 
+    // Contacts are searched by name once set
+    void setAddressBook(final AddressBookPanel addressBook) {
+        this.addressBook = addressBook;
+    }
+
+    private void searchTransactions() {
+        final String search = transactionSearchField.getText().trim();
+        final long start = System.currentTimeMillis();
+        transactionsTableModel.setFilter(search.isEmpty() ? null : index -> index.getSearchIndex().search(
+            search, namePart -> (addressBook != null) ? addressBook.getAddressesOfContacts(namePart) : Collections.emptyList()
+        )::get);
+        System.out.println("Search of transactions done in " + (System.currentTimeMillis() - start) + "ms.");
+    }
+
+    private void updateTransactionSearchLabel() {
+        transactionSearchLabel.setText(transactionsTableModel.isFiltered()
+            ? (transactionsTableModel.getRowCount() + " of " + transactionsTableModel.getIndex().size() + " transactions")
+            : ""
+        );
+    }
+
     // May be null!
     public Integer getBlockchainPercentage() {
         return this.blockchainPercentage;
     }
 
+    private void addDaemonSparkline(
+        final JPanel panel,
+        final String name,
+        final DaemonMetricsHistory.Metric metric,
+        final String unit
+    ) {
+        final JLabel label = new JLabel(name);
+        label.setFont(label.getFont().deriveFont(9f));
+        panel.add(label);
+        final Sparkline sparkline = new Sparkline(this.daemonMetrics, metric, unit);
+        panel.add(sparkline);
+        this.daemonSparklines.add(sparkline);
+    }
+
     private void updateDaemonStatusLabel() throws IOException, InterruptedException {
-        final DaemonInfo daemonInfo = this.daemonInfoGatheringThread.getLastData();
+        final DaemonInfo daemonInfo = this.daemonInfoGatheringTask.getLastData();
 
         // It is possible there has been no gathering initially
         if (daemonInfo == null) {
             return;
         }
+        for (final Sparkline sparkline : this.daemonSparklines) {
+            sparkline.update();
+        }
 
         // If the virtual size/CPU are 0 - do not show them
         final String virtual = (daemonInfo.virtualSizeMB > 0) ? ", Virtual: " + daemonInfo.virtualSizeMB + " MB" : "";
@@ -246,7 +301,7 @@ class DashboardPanel extends WalletTabPanel {
             this.OSInfo = RuntimeEnvironment.getSystemInfo();
         }
 
-        // TODO: Use a one-off data gathering thread - better design
+        // Known once the wallet state has been gathered
         final String walletEncryption = (this.walletIsEncrypted == null) ? "" :
             "<span style=\"font-size:8px\"> (" + (this.walletIsEncrypted ? "" : "not ") + "encrypted)</span>";
 
@@ -263,7 +318,7 @@ class DashboardPanel extends WalletTabPanel {
     }
 
     private void updateNetworkAndBlockchainLabel() {
-        final HushCommandLineBridge.NetworkAndBlockchainInfo info = this.netInfoGatheringThread.getLastData();
+        final HushCommandLineBridge.NetworkAndBlockchainInfo info = this.netInfoGatheringTask.getLastData();
 
         // It is possible there has been no gathering initially
         if (info == null) {
@@ -288,6 +343,7 @@ class DashboardPanel extends WalletTabPanel {
         } else {
             this.blockchainPercentage = 100;
         }
+        this.cadence.setSynchronizing(this.blockchainPercentage < 100);
 
         final String percentage =
             blockchainPercentage == 100 ? "100" : new DecimalFormat("##0.##").format(this.blockchainPercentage);
@@ -324,13 +380,9 @@ class DashboardPanel extends WalletTabPanel {
         );
     }
 
-    private void updateWalletStatusLabel() {
-        final HushCommandLineBridge.WalletBalance balance = this.walletBalanceGatheringThread.getLastData();
-
-        // It is possible there has been no gathering initially
-        if (balance == null) {
-            return;
-        }
+    private void updateWalletStatusLabel(final WalletState state) {
+        final HushCommandLineBridge.WalletBalance balance = state.balance;
+        this.walletIsEncrypted = state.walletEncrypted;
 
         // Format double numbers - else sometimes we get exponential notation 1E-4 ZEC
         final DecimalFormat df = new DecimalFormat("########0.00######");
@@ -374,28 +426,8 @@ class DashboardPanel extends WalletTabPanel {
         this.walletBalanceLabel.setToolTipText(toolTip);
     }
 
-    private void updateWalletTransactionsTable() {
-        final String[][] newTransactionsData = this.transactionGatheringThread.getLastData();
-
-        // May be null - not even gathered once
-        if (newTransactionsData == null) {
-            return;
-        }
-        if (!Arrays.deepEquals(lastTransactionsData, newTransactionsData)) {
-            System.out.println("Updating table of transactions...");
-            this.remove(transactionsTablePane);
-            this.add(transactionsTablePane = new JScrollPane(this.createTransactionsTable(newTransactionsData)), BorderLayout.CENTER);
-        }
-        lastTransactionsData = newTransactionsData;
-
-        this.validate();
-        this.repaint();
-    }
-
-
-    private JTable createTransactionsTable(String rowData[][]) {
-        final String columnNames[] = { "Type", "Direction", "Confirmed?", "Amount", "Date", "Destination Address" };
-        final JTable table = new TransactionTable(rowData, columnNames, this.parentFrame, this.cliBridge);
+    private JTable createTransactionsTable(final TransactionTableModel model) {
+        final JTable table = new TransactionTable(model, this.parentFrame, this.cliBridge);
         table.setAutoResizeMode(JTable.AUTO_RESIZE_SUBSEQUENT_COLUMNS);
         table.getColumnModel().getColumn(0).setPreferredWidth(190);
         table.getColumnModel().getColumn(1).setPreferredWidth(145);
@@ -405,81 +437,4 @@ class DashboardPanel extends WalletTabPanel {
         table.getColumnModel().getColumn(5).setPreferredWidth(800);
         return table;
     }
-
-
-    private String[][] getTransactionsDataFromWallet()
-            throws HushCommandLineBridge.WalletCallException, IOException, InterruptedException {
-        // Get available public+private transactions and unify them.
-        final String[][] publicTransactions = this.cliBridge.getWalletPublicTransactions();
-        final String[][] zReceivedTransactions = this.cliBridge.getWalletZReceivedTransactions();
-
-        final List<String[]> transactions = new ArrayList<>();
-        transactions.addAll(Arrays.asList(publicTransactions));
-        transactions.addAll(Arrays.asList(zReceivedTransactions));
-
-        // Sort transactions by date
-        Collections.sort(transactions, (a, b) -> {
-            final Date aDate = new Date(
-                a[4].equals("N/A") ? 0 : Long.valueOf(a[4]) * 1000L
-            );
-            final Date bDate = new Date(
-                b[4].equals("N/A") ? 0 : Long.valueOf(b[4]) * 1000L
-            );
-
-            if (aDate.equals(bDate)) {
-                return 0;
-            } else {
-                return bDate.compareTo(aDate);
-            }
-        });
-
-
-        // Confirmation symbols
-        final String confirmed = App.SPECIAL_CHARACTER_PROVIDER.getConfirmedBalanceSymbol();
-        final String notConfirmed = App.SPECIAL_CHARACTER_PROVIDER.getUnconfirmedBalanceSymbol();
-
-        final DecimalFormat decimalFormat = new DecimalFormat("########0.00######");
-
-        // Change the direction and date etc. attributes for presentation purposes
-        for (final String[] transaction : transactions) {
-            // Direction
-            switch (transaction[1]) {
-                case "receive":
-                    transaction[1] = "\u21E8 IN";
-                    break;
-                case "send":
-                    transaction[1] = "\u21E6 OUT";
-                    break;
-                case "generate":
-                    transaction[1] = "\u2692\u2699 MINED";
-                    break;
-                case "immature":
-                    transaction[1] = "\u2696 Immature";
-                    break;
-            }
-
-            // Date
-            if (!transaction[4].equals("N/A")) {
-                transaction[4] = new Date(Long.valueOf(transaction[4]) * 1000L).toLocaleString();
-            }
-
-            // Amount
-            try {
-                final double amount = Math.abs(Double.valueOf(transaction[3]));
-                transaction[3] = decimalFormat.format(amount);
-            } catch (final NumberFormatException e) {
-                System.out.println("Error occurred while formatting amount: " + transaction[3] + " - " + e.getMessage() + "!");
-            }
-
-            // Confirmed?
-            try {
-                final boolean isConfirmed = !transaction[2].trim().equals("0");
-                transaction[2] = isConfirmed ? ("Yes " + confirmed) : ("No  " + notConfirmed);
-            } catch (final NumberFormatException e) {
-                System.out.println("Error occurred while formatting confirmations: " + transaction[2] + " - " + e.getMessage() + "!");
-            }
-        }
-        String[][] array = new String[transactions.size()][];
-        return transactions.toArray(array);
-    }
 }
@@ -0,0 +1,215 @@
+// Copyright (c) 2016-2017 Ivan Vaklinov <ivan@vaklinov.com>
+// Copyright (c) 2018 The Hush Developers <contact@myhush.org>
+//
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+package org.myhush.gui;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntSupplier;
+
+/**
+ * Periodically and asynchronously loads data whose loading takes considerable time. The creator of the task may
+ * obtain the latest gathered data quickly since it is stored in the task.
+ * <p>
+ * A single shared scheduler thread sleeps until a gathering of any task is due, and hands it to a shared pool of
+ * worker threads, so a slow gathering never holds up those of other tasks. The interval is asked for anew after
+ * each gathering, so it may follow what the user is doing. Requests to gather right away are coalesced: however
+ * many arrive, at most one more gathering follows the one in progress, and no thread waits for it. A scheduled
+ * gathering that is due while a requested one is in progress is skipped.
+ *
+ * @param <T> the type of data that is gathered
+ */
+class DataGatheringTask<T> {
+    private static final ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+        final Thread thread = new Thread(runnable, "DataGatheringScheduler");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final AtomicInteger workerThreadCounter = new AtomicInteger();
+    // Gatherings of one task never overlap, so there are at most about as many workers as tasks
+    private static final ExecutorService workers = Executors.newCachedThreadPool(runnable -> {
+        final Thread thread = new Thread(runnable, "DataGathering-" + workerThreadCounter.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+    static {
+        scheduler.setRemoveOnCancelPolicy(true);
+    }
+
+    // Last gathered data - stored
+    private volatile T lastGatheredData;
+    // Gatherer used for the data
+    private final DataGatherer<T> gatherer;
+    // Error reporter
+    private final StatusUpdateErrorReporter errorReporter;
+    // Gatherings of one task never overlap
+    private final ReentrantLock gatheringLock = new ReentrantLock();
+    // Whether a gathering was requested since the last one started
+    private final AtomicBoolean refreshPending = new AtomicBoolean();
+    private volatile boolean cancelled;
+    // Interval in ms between the end of one gathering and the start of the next
+    private final IntSupplier interval;
+    // Next scheduled gathering, whether it is running, and end of the last one - guarded by this
+    private ScheduledFuture<?> schedule = null;
+    private boolean scheduledGatheringRunning = false;
+    private long lastGatheringEnd;
+
+    /**
+     * Creates and schedules a new task for data gathering.
+     *
+     * @param gatherer      Gatherer used for the data
+     * @param errorReporter Error reporter - may be null
+     * @param interval      Interval in ms between the end of one gathering and the start of the next
+     */
+    DataGatheringTask(final DataGatherer<T> gatherer, final StatusUpdateErrorReporter errorReporter, final IntSupplier interval) {
+        this(gatherer, errorReporter, interval, false);
+    }
+
+    /**
+     * Creates and schedules a new task for data gathering.
+     *
+     * @param gatherer          Gatherer used for the data
+     * @param errorReporter     Error reporter - may be null
+     * @param interval          Interval in ms between the end of one gathering and the start of the next
+     * @param doAFirstGathering Whether to gather immediately rather than after the first interval
+     */
+    DataGatheringTask(
+        final DataGatherer<T> gatherer,
+        final StatusUpdateErrorReporter errorReporter,
+        final IntSupplier interval,
+        final boolean doAFirstGathering
+    ) {
+        this.gatherer = gatherer;
+        this.errorReporter = errorReporter;
+        this.interval = interval;
+        this.lastGatheredData = null;
+        this.cancelled = false;
+
+        synchronized (this) {
+            this.lastGatheringEnd = System.currentTimeMillis();
+            this.scheduleNext(doAFirstGathering ? 0 : interval.getAsInt());
+        }
+    }
+
+    /**
+     * Obtains the last gathered data
+     *
+     * @return the last gathered data
+     */
+    public T getLastData() {
+        return lastGatheredData;
+    }
+
+    /**
+     * Gathers once more as soon as possible, in addition to the scheduled gatherings. Requests made before a
+     * gathering starts are all served by it.
+     */
+    public void refreshNow() {
+        if (!cancelled && refreshPending.compareAndSet(false, true)) {
+            workers.execute(this::doRequestedGatherings);
+        }
+    }
+
+    /**
+     * Stops the scheduled gatherings. A gathering in progress is completed, but its result and errors are ignored.
+     */
+    public synchronized void cancel() {
+        cancelled = true;
+        schedule.cancel(false);
+    }
+
+    /**
+     * Moves the next scheduled gathering to one interval after the last one, as the interval may have changed.
+     */
+    public synchronized void reschedule() {
+        // If the scheduled gathering was already handed to a worker, it schedules the next one with the new interval
+        // itself
+        if (!cancelled && !scheduledGatheringRunning && schedule.cancel(false)) {
+            this.scheduleNext(Math.max(0, lastGatheringEnd + interval.getAsInt() - System.currentTimeMillis()));
+        }
+    }
+
+    private synchronized void scheduleNext(final long delay) {
+        if (!cancelled) {
+            schedule = scheduler.schedule(this::dispatchScheduledGathering, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // On the scheduler thread
+    private synchronized void dispatchScheduledGathering() {
+        scheduledGatheringRunning = true;
+        workers.execute(this::doScheduledGathering);
+    }
+
+    private void doScheduledGathering() {
+        // If a requested gathering is in progress, it stands in for this one
+        if (gatheringLock.tryLock()) {
+            try {
+                refreshPending.set(false);
+                this.doOneGathering();
+            } finally {
+                gatheringLock.unlock();
+            }
+        }
+        this.doRequestedGatherings();
+        synchronized (this) {
+            scheduledGatheringRunning = false;
+            lastGatheringEnd = System.currentTimeMillis();
+            this.scheduleNext(interval.getAsInt());
+        }
+    }
+
+    // Serves pending requests - if a gathering is in progress, its thread does so once it is done
+    private void doRequestedGatherings() {
+        while (refreshPending.get() && gatheringLock.tryLock()) {
+            try {
+                if (refreshPending.getAndSet(false)) {
+                    this.doOneGathering();
+                }
+            } finally {
+                gatheringLock.unlock();
+            }
+        }
+    }
+
+    // Obtains the data in a single run - holding the gathering lock
+    private void doOneGathering() {
+        if (cancelled) {
+            return;
+        }
+        try {
+            final T localData = this.gatherer.gatherData();
+            if (!cancelled) {
+                this.lastGatheredData = localData;
+            }
+        } catch (final Exception e) {
+            if (!cancelled) {
+                e.printStackTrace();
+                this.lastGatheredData = null;
+                if (this.errorReporter != null) {
+                    this.errorReporter.reportError(e);
+                }
+            } else {
+                System.out.println("DataGatheringTask: ignoring " + e.getClass().getName() + " due to cancellation!");
+            }
+        }
+    }
+
+    /**
+     * All implementations must provide an impl. of this interface to
+     * gather the actual data.
+     *
+     * @param <T> the type of data that is gathered.
+     */
+    public interface DataGatherer<T> {
+        T gatherData() throws Exception;
+    }
+}
@@ -7,6 +7,7 @@ package org.myhush.gui;
 
 import javax.swing.*;
 import javax.swing.filechooser.FileNameExtensionFilter;
+import javax.swing.table.TableModel;
 import java.awt.*;
 import java.awt.datatransfer.Clipboard;
 import java.awt.datatransfer.StringSelection;
@@ -23,11 +24,20 @@ class DataTable extends JTable {
     int lastRow = -1;
     int lastColumn = -1;
     final JPopupMenu popupMenu; // used by child classes
+    JMenuItem exportMenuItem; // used by child classes
 
     DataTable(final Object[][] rowData, final Object[] columnNames) {
         super(rowData, columnNames);
+        popupMenu = this.createPopupMenu();
+    }
+
+    DataTable(final TableModel model) {
+        super(model);
+        popupMenu = this.createPopupMenu();
+    }
 
-        popupMenu = new JPopupMenu();
+    private JPopupMenu createPopupMenu() {
+        final JPopupMenu popupMenu = new JPopupMenu();
         final int acceleratorKeyMask = Toolkit.getDefaultToolkit().getMenuShortcutKeyMask();
 
         final JMenuItem copy = new JMenuItem("Copy value");
@@ -44,11 +54,12 @@ class DataTable extends JTable {
         });
 
         final JMenuItem exportToCSV = new JMenuItem("Export data to CSV...");
+        exportMenuItem = exportToCSV;
         popupMenu.add(exportToCSV);
         exportToCSV.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_V, acceleratorKeyMask));
         exportToCSV.addActionListener(event -> {
             try {
-                DataTable.this.exportToCSV();
+                DataTable.this.exportData();
             } catch (final Exception e) {
                 e.printStackTrace();
                 // TODO: better error handling
@@ -75,7 +86,7 @@ class DataTable extends JTable {
                     table.changeSelection(lastRow, lastColumn, false, false);
                 }
 
-                popupMenu.show(event.getComponent(), event.getPoint().x, event.getPoint().y);
+                DataTable.this.popupMenu.show(event.getComponent(), event.getPoint().x, event.getPoint().y);
                 event.consume();
             }
 
@@ -85,10 +96,11 @@ class DataTable extends JTable {
                 }
             }
         });
+        return popupMenu;
     }
 
     // Exports the table data to a CSV file
-    private void exportToCSV() throws IOException {
+    void exportData() throws IOException {
         final JFileChooser fileChooser = new JFileChooser();
         fileChooser.setDialogTitle("Export data to CSV file...");
         fileChooser.setFileFilter(new FileNameExtensionFilter("CSV Files (*.csv)", "csv"));
@@ -0,0 +1,90 @@
+// Copyright (c) 2018 The Hush Developers <contact@myhush.org>
+//
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+package org.myhush.gui;
+
+import com.eclipsesource.json.JsonHandler;
+import com.eclipsesource.json.JsonValue;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Uses a primary transport and retries failed calls with a fallback one. Once the fallback succeeds where the
+ * primary could not reach the daemon, the primary is assumed to be misconfigured and no longer used.
+ */
+class FallbackRpcTransport implements RpcTransport {
+    private final RpcTransport primary;
+    private final RpcTransport fallback;
+    private volatile boolean primaryDisabled = false;
+
+    FallbackRpcTransport(final RpcTransport primary, final RpcTransport fallback) {
+        this.primary = primary;
+        this.fallback = fallback;
+    }
+
+    @Override
+    public JsonValue call(final String method, final String... params)
+            throws HushCommandLineBridge.WalletCallException, IOException, InterruptedException {
+        if (primaryDisabled) {
+            return fallback.call(method, params);
+        }
+        try {
+            return primary.call(method, params);
+        } catch (final HushCommandLineBridge.DaemonConnectionException e) {
+            final JsonValue result = fallback.call(method, params);
+            disablePrimary(e);
+            return result;
+        }
+    }
+
+    // A connection failure happens before any of the result has been decoded, so the fallback can start over
+    @Override
+    public void callAndDecode(
+        final JsonHandler<Object, Object> resultDecoder,
+        final String method,
+        final String... params
+    ) throws HushCommandLineBridge.WalletCallException, IOException, InterruptedException {
+        if (primaryDisabled) {
+            fallback.callAndDecode(resultDecoder, method, params);
+            return;
+        }
+        try {
+            primary.callAndDecode(resultDecoder, method, params);
+        } catch (final HushCommandLineBridge.DaemonConnectionException e) {
+            fallback.callAndDecode(resultDecoder, method, params);
+            disablePrimary(e);
+        }
+    }
+
+    @Override
+    public List<JsonValue> callBatch(final List<RpcCall> calls)
+            throws HushCommandLineBridge.WalletCallException, IOException, InterruptedException {
+        if (primaryDisabled) {
+            return fallback.callBatch(calls);
+        }
+        try {
+            return primary.callBatch(calls);
+        } catch (final HushCommandLineBridge.DaemonConnectionException e) {
+            final List<JsonValue> results = fallback.callBatch(calls);
+            disablePrimary(e);
+            return results;
+        }
+    }
+
+    private void disablePrimary(final Exception cause) {
+        if (!primaryDisabled) {
+            primaryDisabled = true;
+            System.out.println(
+                "Wallet calls via " + primary + " failed (" + cause.getMessage() + "), " +
+                "but succeeded via " + fallback + ". Using the latter from now on."
+            );
+        }
+    }
+
+    @Override
+    public String toString() {
+        return primaryDisabled ? fallback.toString() : primary.toString();
+    }
+}
@@ -0,0 +1,300 @@
+// Copyright (c) 2018 The Hush Developers <contact@myhush.org>
+//
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+package org.myhush.gui;
+
+import com.eclipsesource.json.Json;
+import com.eclipsesource.json.JsonArray;
+import com.eclipsesource.json.JsonHandler;
+import com.eclipsesource.json.JsonObject;
+import com.eclipsesource.json.JsonParser;
+import com.eclipsesource.json.JsonValue;
+import com.eclipsesource.json.ParseException;
+
+import java.io.*;
+import java.net.ConnectException;
+import java.net.HttpURLConnection;
+import java.net.SocketException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Issues wallet calls directly to `hushd` as JSON-RPC over HTTP, avoiding a `hush-cli` process per call.
+ * Connections are kept alive and reused, see {@link RpcConnectionPool}. The pool size may be set with the
+ * `rpc.max.connections` system property.
+ */
+class HttpRpcTransport implements RpcTransport {
+    static final int DEFAULT_RPC_PORT = 8822;
+    private static final String DEFAULT_RPC_HOST = "127.0.0.1";
+    private static final int CONNECT_TIMEOUT_MS = 5000;
+    // Some calls (e.g. z_importwallet) may legitimately take very long
+    private static final int READ_TIMEOUT_MS = 30 * 60 * 1000;
+    private static final int PARSE_BUFFER_SIZE = 8192;
+    // Calls that change nothing in the wallet or node, so they may safely be sent twice
+    private static final Set<String> READ_ONLY_METHODS = new HashSet<>(Arrays.asList(
+        "getaddednodeinfo", "getbalance", "getbestblockhash", "getblock", "getblockchaininfo", "getblockcount",
+        "getblockhash", "getblockheader", "getblocksubsidy", "getinfo", "getnetworkhashps", "getnetworkinfo",
+        "getnetworksolps", "getrawmempool", "getrawtransaction", "getreceivedbyaddress", "gettransaction", "gettxout",
+        "getwalletinfo", "listreceivedbyaddress", "listsinceblock", "listtransactions", "listunspent",
+        "validateaddress", "z_getbalance", "z_getoperationstatus", "z_gettotalbalance", "z_listaddresses",
+        "z_listreceivedbyaddress", "z_listunspent", "z_validateaddress"
+    ));
+
+    private final URL url;
+    private final String authorization;
+    private final RpcConnectionPool connectionPool;
+    private final AtomicLong nextRequestId = new AtomicLong(1);
+
+    HttpRpcTransport(final String host, final int port, final String user, final String password) throws IOException {
+        this.url = new URL("http", host, port, "/");
+        this.authorization = "Basic " + Base64.getEncoder().encodeToString(
+            (user + ":" + password).getBytes(StandardCharsets.UTF_8)
+        );
+        this.connectionPool = new RpcConnectionPool(
+            host, port, CONNECT_TIMEOUT_MS, READ_TIMEOUT_MS,
+            Math.max(1, Integer.getInteger("rpc.max.connections", RpcConnectionPool.DEFAULT_MAX_CONNECTIONS)),
+            RpcConnectionPool.DEFAULT_IDLE_TIMEOUT_MS
+        );
+    }
+
+    /**
+     * Creates a transport from the RPC settings in the daemon configuration file.
+     *
+     * @param hushConfigFile the `hush.conf` file
+     * @return the transport or null if the file does not specify both `rpcuser` and `rpcpassword`
+     */
+    static HttpRpcTransport fromConfigFile(final File hushConfigFile) throws IOException {
+        if (!hushConfigFile.exists()) {
+            return null;
+        }
+        final Properties config = new Properties();
+        try (final Reader reader = new InputStreamReader(new FileInputStream(hushConfigFile), StandardCharsets.UTF_8)) {
+            config.load(reader);
+        }
+        final String user = config.getProperty("rpcuser");
+        final String password = config.getProperty("rpcpassword");
+        if ((user == null) || (password == null)) {
+            return null;
+        }
+        final String host = config.getProperty("rpcconnect", DEFAULT_RPC_HOST).trim();
+        final int port;
+        try {
+            port = Integer.parseInt(config.getProperty("rpcport", String.valueOf(DEFAULT_RPC_PORT)).trim());
+        } catch (final NumberFormatException e) {
+            System.out.println("Invalid rpcport in " + hushConfigFile.getCanonicalPath() + ": " + e.getMessage());
+            return null;
+        }
+        return new HttpRpcTransport(host, port, user.trim(), password.trim());
+    }
+
+    @Override
+    public JsonValue call(final String method, final String... params)
+            throws HushCommandLineBridge.WalletCallException, IOException, InterruptedException {
+        final JsonObject request = new JsonObject()
+            .add("jsonrpc", "1.0")
+            .add("id", nextRequestId.getAndIncrement())
+            .add("method", method)
+            .add("params", RpcParameters.toJson(method, params));
+        final String response = post(request.toString(), READ_ONLY_METHODS.contains(method), HttpRpcTransport::readFully);
+        try {
+            return unwrapResponse(Json.parse(response).asObject());
+        } catch (final ParseException | UnsupportedOperationException e) {
+            throw new HushCommandLineBridge.WalletCallException(response + "\n" + e.getMessage() + "\n", e);
+        }
+    }
+
+    // The response is parsed as it arrives on the connection
+    @Override
+    public void callAndDecode(
+        final JsonHandler<Object, Object> resultDecoder,
+        final String method,
+        final String... params
+    ) throws HushCommandLineBridge.WalletCallException, IOException, InterruptedException {
+        final JsonObject request = new JsonObject()
+            .add("jsonrpc", "1.0")
+            .add("id", nextRequestId.getAndIncrement())
+            .add("method", method)
+            .add("params", RpcParameters.toJson(method, params));
+        final RpcResponseHandler responseHandler = new RpcResponseHandler(resultDecoder);
+        post(request.toString(), READ_ONLY_METHODS.contains(method), in -> {
+            try {
+                new JsonParser(responseHandler).parse(new InputStreamReader(in, StandardCharsets.UTF_8), PARSE_BUFFER_SIZE);
+            } catch (final ParseException | NumberFormatException | ArithmeticException e) {
+                throw new HushCommandLineBridge.WalletCallException(
+                    "Unexpected response from wallet to " + method + ": " + e.getMessage(), e
+                );
+            }
+            return null;
+        });
+        responseHandler.checkError();
+    }
+
+    // The daemon answers a batch with an array of responses, matched to the requests by id
+    @Override
+    public List<JsonValue> callBatch(final List<RpcCall> calls)
+            throws HushCommandLineBridge.WalletCallException, IOException, InterruptedException {
+        if (calls.isEmpty()) {
+            return new ArrayList<>();
+        }
+        final JsonArray request = new JsonArray();
+        final long firstId = nextRequestId.getAndAdd(calls.size());
+        boolean isReadOnly = true;
+        for (int i = 0; i < calls.size(); i++) {
+            final RpcCall call = calls.get(i);
+            isReadOnly &= READ_ONLY_METHODS.contains(call.method);
+            request.add(new JsonObject()
+                .add("jsonrpc", "1.0")
+                .add("id", firstId + i)
+                .add("method", call.method)
+                .add("params", RpcParameters.toJson(call.method, call.params)));
+        }
+        final String response = post(request.toString(), isReadOnly, HttpRpcTransport::readFully);
+
+        final JsonValue parsedResponse;
+        try {
+            parsedResponse = Json.parse(response);
+        } catch (final ParseException e) {
+            throw new HushCommandLineBridge.WalletCallException(response + "\n" + e.getMessage() + "\n", e);
+        }
+        if (parsedResponse.isObject()) {
+            // The batch as a whole was rejected
+            unwrapResponse(parsedResponse.asObject());
+        }
+        if (!parsedResponse.isArray()) {
+            throw new HushCommandLineBridge.WalletCallException("Unexpected response to batch request: " + response);
+        }
+        final Map<Long, JsonObject> responsesById = new HashMap<>();
+        for (final JsonValue element : parsedResponse.asArray()) {
+            if (element.isObject()) {
+                final JsonValue id = element.asObject().get("id");
+                if ((id != null) && id.isNumber()) {
+                    responsesById.put(id.asLong(), element.asObject());
+                }
+            }
+        }
+        final List<JsonValue> results = new ArrayList<>(calls.size());
+        for (int i = 0; i < calls.size(); i++) {
+            final JsonObject callResponse = responsesById.get(firstId + i);
+            if (callResponse == null) {
+                throw new HushCommandLineBridge.WalletCallException(
+                    "No response from wallet for batched call: " + calls.get(i)
+                );
+            }
+            results.add(unwrapResponse(callResponse));
+        }
+        return results;
+    }
+
+    static JsonValue unwrapResponse(final JsonObject response) throws HushCommandLineBridge.WalletErrorException {
+        final JsonValue error = response.get("error");
+        if ((error != null) && !error.isNull()) {
+            final JsonObject errorObject = error.isObject() ? error.asObject() : new JsonObject().add("message", error);
+            throw new HushCommandLineBridge.WalletErrorException(
+                "Error response from wallet: error: " + errorObject.toString(),
+                errorObject.getInt("code", 0),
+                errorObject.getString("message", "")
+            );
+        }
+        final JsonValue result = response.get("result");
+        return (result == null) ? Json.NULL : result;
+    }
+
+    // Read-only requests are retried even if the daemon may have received them
+    private <T> T post(final String body, final boolean isReadOnly, final ResponseBodyReader<T> bodyReader)
+            throws HushCommandLineBridge.WalletCallException, IOException, InterruptedException {
+        final byte[] requestBytes = body.getBytes(StandardCharsets.UTF_8);
+        try {
+            RpcConnection connection = connectionPool.acquire();
+            RpcConnection.Response response;
+            try {
+                response = send(connection, requestBytes);
+            } catch (final EOFException | SocketException e) {
+                // The daemon may close a kept-alive connection at any time - retry once if it was not a fresh one.
+                // Nothing of the response has been read at this point, but unless the request could not be sent,
+                // the daemon may have carried it out: sending funds or importing keys twice must not happen.
+                if ((connection.getRequestCount() <= 1) ||
+                    !(isReadOnly || (e instanceof RpcConnection.RequestNotSentException))) {
+                    throw e;
+                }
+                connection = connectionPool.acquireNew();
+                response = send(connection, requestBytes);
+            }
+            return receive(connection, response, bodyReader);
+        } catch (final ConnectException e) {
+            throw new HushCommandLineBridge.DaemonConnectionException(
+                "Error response from wallet: error: couldn't connect to server " + url + ": " + e.getMessage(), e
+            );
+        }
+    }
+
+    // Sends the request and reads the response headers, the connection is discarded if that fails
+    private RpcConnection.Response send(final RpcConnection connection, final byte[] requestBytes) throws IOException {
+        try {
+            return connection.post(authorization, requestBytes);
+        } catch (final IOException | RuntimeException e) {
+            connectionPool.discard(connection);
+            throw e;
+        }
+    }
+
+    private <T> T receive(
+        final RpcConnection connection,
+        final RpcConnection.Response response,
+        final ResponseBodyReader<T> bodyReader
+    ) throws HushCommandLineBridge.WalletCallException, IOException {
+        boolean released = false;
+        try {
+            if (response.status == HttpURLConnection.HTTP_UNAUTHORIZED ||
+                response.status == HttpURLConnection.HTTP_FORBIDDEN) {
+                throw new HushCommandLineBridge.DaemonConnectionException(
+                    "RPC authorization to " + url + " failed (HTTP " + response.status + "). " +
+                    "Check rpcuser/rpcpassword."
+                );
+            }
+            // The daemon reports RPC errors with HTTP 404/500 and a regular JSON-RPC body
+            final T result = bodyReader.read(response.body);
+            response.body.close();
+            connectionPool.release(connection);
+            released = true;
+            return result;
+        } finally {
+            if (!released) {
+                connectionPool.discard(connection);
+            }
+        }
+    }
+
+    private interface ResponseBodyReader<T> {
+        T read(final InputStream body) throws HushCommandLineBridge.WalletCallException, IOException;
+    }
+
+    private static String readFully(final InputStream in) throws HushCommandLineBridge.WalletCallException, IOException {
+        final Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8);
+        final StringBuilder result = new StringBuilder();
+        final char[] buffer = new char[8192];
+        int read;
+        while ((read = reader.read(buffer)) >= 0) {
+            result.append(buffer, 0, read);
+        }
+        if (result.length() == 0) {
+            throw new HushCommandLineBridge.WalletCallException("Empty response from wallet");
+        }
+        return result.toString();
+    }
+
+    @Override
+    public String toString() {
+        return "JSON-RPC " + url;
+    }
+}
@@ -10,18 +10,63 @@ import org.myhush.gui.environment.RuntimeEnvironment;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.LineNumberReader;
-import java.io.StringReader;
 import java.math.BigDecimal;
 import java.nio.charset.StandardCharsets;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Stream;
 
+/**
+ * Wallet operations on top of the daemon RPC interface. Safe for use by several threads at once - at most
+ * `rpc.max.concurrent.calls` (system property) calls are in flight at any time.
+ */
 public class HushCommandLineBridge {
+    // Calls per JSON-RPC batch, may be set with the `rpc.batch.size` system property
+    private static final int DEFAULT_BATCH_SIZE = 200;
+    private static final int DEFAULT_MAX_CONCURRENT_CALLS = 4;
+    private static final int WALLET_UNLOCK_SECONDS = 300;
+    // How long unlocking waits for another operation to lock the wallet again
+    private static final long WALLET_SESSION_WAIT_MS = 10 * 1000;
+
     private final File hushcli;
     private final File hushd;
+    private final RpcTransport transport;
+    private final int batchSize = Math.max(1, Integer.getInteger("rpc.batch.size", DEFAULT_BATCH_SIZE));
+    private final int maxConcurrentCalls =
+        Math.max(1, Integer.getInteger("rpc.max.concurrent.calls", DEFAULT_MAX_CONCURRENT_CALLS));
+    private final Semaphore callPermits = new Semaphore(maxConcurrentCalls, true);
+    // Runs per-address queries in parallel, as many as calls may be in flight
+    private final ExecutorService addressQueryExecutor = Executors.newFixedThreadPool(maxConcurrentCalls, runnable -> {
+        final Thread thread = new Thread(runnable, "HushCommandLineBridge-address-query");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Unlock -> operation -> lock sequences must not overlap, or one would lock the wallet under the other.
+    // Unlocking and locking may happen on different threads, hence a semaphore rather than a lock.
+    private final Semaphore walletSession = new Semaphore(1);
+    private final AtomicBoolean walletSessionActive = new AtomicBoolean(false);
+    private volatile long walletSessionExpiry = 0;
+    // Probing for encryption locks the wallet, so it is done only once
+    private volatile Boolean walletEncrypted = null;
+    private final TransactionSyncEngine transactionSync = new TransactionSyncEngine(this);
+    private final BalanceEngine balanceEngine = new BalanceEngine(this);
+    private final WalletFingerprint walletFingerprint = new WalletFingerprint(this);
+    private final AddressValidationCache addressValidationCache;
+    private final BlockHeaderCache blockHeaderCache = new BlockHeaderCache(this, BlockHeaderCache.DEFAULT_MAX_ENTRIES);
+    private final TransactionCache transactionCache = new TransactionCache(
+        this,
+        Math.max(1, Integer.getInteger("tx.cache.size", TransactionCache.DEFAULT_MAX_ENTRIES)),
+        TransactionCache.DEFAULT_FINAL_CONFIRMATIONS
+    );
 
     public HushCommandLineBridge(final File installDirectory) throws IOException {
         // Detect daemon and client tools installation
@@ -39,77 +84,88 @@ public class HushCommandLineBridge {
                     "The HUSH command line utility " + hushcli.getCanonicalPath() +
                             " was found, but `hushd` was not found!");
         }
+
+        // Prefer talking JSON-RPC to the daemon directly, `hush-cli` remains as a fallback
+        final RpcTransport cliTransport = new CommandLineRpcTransport(hushcli);
+        final HttpRpcTransport httpTransport = HttpRpcTransport.fromConfigFile(
+            new File(App.PATH_PROVIDER.getBlockchainDirectory(), Constants.HUSH_CONFIG_FILENAME)
+        );
+        if (httpTransport != null) {
+            transport = new FallbackRpcTransport(httpTransport, cliTransport);
+        } else {
+            transport = cliTransport;
+        }
+        System.out.println("Wallet calls will be issued via: " + transport);
+
+        addressValidationCache = new AddressValidationCache(
+            this,
+            new File(App.PATH_PROVIDER.getSettingsDirectory(), Constants.ADDRESS_VALIDATION_FILENAME),
+            walletFingerprint
+        );
     }
 
-    public synchronized Process startDaemon(final boolean reindex) throws IOException {
+    public Process startDaemon(final boolean reindex) throws IOException {
         final String dataDirectory = App.PATH_PROVIDER.getBlockchainDirectory().getCanonicalPath();
         final List<String> args = new ArrayList<>(Arrays.asList(
                 hushd.getCanonicalPath(),
-                wrapStringParameter(String.format("-datadir=%s", dataDirectory)),
-                wrapStringParameter(String.format("-exportdir=%s", dataDirectory))
+                CommandLineRpcTransport.wrapStringParameter(String.format("-datadir=%s", dataDirectory)),
+                CommandLineRpcTransport.wrapStringParameter(String.format("-exportdir=%s", dataDirectory))
         ));
         if (reindex) {
-            args.add(wrapStringParameter("-reindex"));
+            args.add(CommandLineRpcTransport.wrapStringParameter("-reindex"));
+        }
+        // Let the daemon signal new blocks and wallet transactions to the GUI
+        final List<String> notifyOptions = ChainTipWatcher.getDaemonNotifyOptions(
+            new File(App.PATH_PROVIDER.getSettingsDirectory(), Constants.CHAIN_NOTIFY_FILENAME),
+            new File(App.PATH_PROVIDER.getBlockchainDirectory(), Constants.HUSH_CONFIG_FILENAME)
+        );
+        for (final String option : notifyOptions) {
+            args.add(CommandLineRpcTransport.wrapStringParameter(option));
         }
         String argsarray[] = new String[args.size()];
         return new CommandExecutor(args.toArray(argsarray)).startChildProcess();
     }
 
-    private CommandExecutor getCommandLineExecutor(final String[] args) throws IOException {
-        final String dataDirectory = App.PATH_PROVIDER.getBlockchainDirectory().getCanonicalPath();
-        final String[] processArgs = new String[] {
-                hushcli.getCanonicalPath(),
-                wrapStringParameter(String.format("-datadir=%s", dataDirectory)),
-        };
-        final String[] runnableArgs = Arrays.copyOf(processArgs, processArgs.length + args.length);
-        System.arraycopy(args, 0, runnableArgs, processArgs.length, args.length);
-        return new CommandExecutor(runnableArgs);
-    }
-
-    public /*synchronized*/ void stopDaemon() throws IOException, InterruptedException {
-        final String result = getCommandLineExecutor(new String[]{ "stop" }).execute();
+    public void stopDaemon() throws IOException, InterruptedException {
+        String result;
+        try {
+            result = this.executeCommandAndGetJsonValue("stop").toString();
+        } catch (final WalletCallException e) {
+            result = e.getMessage();
+        }
         System.out.println("Stop command issued: " + result);
     }
 
-    public synchronized JsonObject getDaemonRawRuntimeInfo()
+    public JsonObject getDaemonRawRuntimeInfo()
             throws IOException, InterruptedException, DaemonUnavailableException {
-        final String info = getCommandLineExecutor(new String[]{ "getinfo" }).execute().trim();
-        final String normInfo = info.toLowerCase(Locale.ROOT);
-
-        if (normInfo.startsWith("error: couldn't connect to server")) {
-            throw new DaemonUnavailableException(info, DaemonUnavailableException.Reason.NOT_RUNNING);
-        } else if (normInfo.contains("error") && normInfo.contains("-reindex")) {
-            // this is a special case error for failure to load the block index when launching the daemon
-            // ": Error loading block database.\nPlease restart with -reindex to recover."
-            throw new DaemonUnavailableException(info, DaemonUnavailableException.Reason.START_FAILURE_REINDEX);
-        }
-
-        if (normInfo.startsWith("error: ")) {
-            final String errorInfo = info.substring(7);
-
-            try {
-                return Json.parse(errorInfo).asObject();
-            } catch (final ParseException e) {
-                System.out.println("unexpected daemon info: " + errorInfo);
-                throw new IOException(e);
-            }
-        } else if (normInfo.startsWith("error code:")) {
-            return jsonifyErrorMessage(info);
-        } else {
-            try {
-                return Json.parse(info).asObject();
-            } catch (final ParseException e) {
+        try {
+            final JsonValue info = this.executeCommandAndGetJsonValue("getinfo");
+            if (!info.isObject()) {
                 System.out.println("unexpected daemon info: " + info);
-                throw new IOException(e);
+                throw new IOException("Unexpected daemon info: " + info);
+            }
+            return info.asObject();
+        } catch (final DaemonConnectionException e) {
+            throw new DaemonUnavailableException(e.getMessage(), DaemonUnavailableException.Reason.NOT_RUNNING);
+        } catch (final WalletErrorException e) {
+            if (e.getErrorMessage().toLowerCase(Locale.ROOT).contains("-reindex")) {
+                // this is a special case error for failure to load the block index when launching the daemon
+                // ": Error loading block database.\nPlease restart with -reindex to recover."
+                throw new DaemonUnavailableException(e.getMessage(), DaemonUnavailableException.Reason.START_FAILURE_REINDEX);
             }
+            // Errors such as -28 (still loading) are returned as the info for the caller to inspect
+            return new JsonObject().add("code", e.getCode()).add("message", e.getErrorMessage());
+        } catch (final WalletCallException e) {
+            System.out.println("unexpected daemon info: " + e.getMessage());
+            throw new IOException(e);
         }
     }
 
-    public synchronized WalletBalance getWalletInfo() throws WalletCallException, IOException, InterruptedException {
+    public WalletBalance getWalletInfo() throws WalletCallException, IOException, InterruptedException {
         final WalletBalance balance = new WalletBalance();
 
         // call `hush-cli z_gettotalbalance [1]` to get confirmed balances (1 is default, included)
-        final JsonObject confirmedBalances = this.executeCommandAndGetJsonObject("z_gettotalbalance", null);
+        final JsonObject confirmedBalances = this.executeCommandAndGetJsonObject("z_gettotalbalance");
 
         balance.transparentBalance = Double.valueOf(confirmedBalances.getString("transparent", "-1"));
         balance.privateBalance = Double.valueOf(confirmedBalances.getString("private", "-1"));
@@ -125,32 +181,43 @@ public class HushCommandLineBridge {
         return balance;
     }
 
-    public synchronized String[][] getWalletPublicTransactions()
+    /**
+     * @return all public and private wallet transactions, fetching only what changed since the previous call
+     */
+    public List<WalletTransaction> getWalletTransactions()
             throws WalletCallException, IOException, InterruptedException {
-        final String notListed = App.SPECIAL_CHARACTER_PROVIDER.getUnlistedAddressSymbol();
-        final JsonArray jsonTransactions = executeCommandAndGetJsonArray(
-            "listtransactions", wrapStringParameter(""), "100"
+        return transactionSync.sync();
+    }
+
+    // Height of the chain tip the confirmations of getWalletTransactions() were last counted at
+    int getSyncedTipHeight() {
+        return transactionSync.getTipHeight();
+    }
+
+    int getBlockCount() throws WalletCallException, IOException, InterruptedException {
+        return this.executeCommandAndGetJsonValue("getblockcount").asInt();
+    }
+
+    public List<WalletTransaction> getWalletPublicTransactions()
+            throws WalletCallException, IOException, InterruptedException {
+        final List<WalletTransaction> transactions = new ArrayList<>();
+        this.executeCommandAndDecode(
+            new TransactionListEntry.Decoder(trans -> transactions.add(new WalletTransaction(
+                WalletTransaction.Type.PUBLIC,
+                WalletTransaction.Direction.fromCategory(trans.category),
+                trans.confirmations,
+                trans.amount,
+                trans.time,
+                trans.address,
+                trans.txID
+            ))),
+            "listtransactions", "", "100"
         );
-        final String strTransactions[][] = new String[jsonTransactions.size()][];
-        for (int i = 0; i < jsonTransactions.size(); i++) {
-            strTransactions[i] = new String[7];
-            JsonObject trans = jsonTransactions.get(i).asObject();
-
-            // Needs to be the same as in getWalletZReceivedTransactions()
-            // TODO: some day refactor to use object containers
-            strTransactions[i][0] = "\u2606T (Public)";
-            strTransactions[i][1] = trans.getString("category", "ERROR!");
-            strTransactions[i][2] = trans.get("confirmations").toString();
-            strTransactions[i][3] = trans.get("amount").toString();
-            strTransactions[i][4] = trans.get("time").toString();
-            strTransactions[i][5] = trans.getString("address", notListed + " (Z Address not listed by wallet!)");
-            strTransactions[i][6] = trans.get("txid").toString();
-        }
-        return strTransactions;
-    }
-
-    public synchronized String[] getWalletZAddresses() throws WalletCallException, IOException, InterruptedException {
-        final JsonArray jsonAddresses = executeCommandAndGetJsonArray("z_listaddresses", null);
+        return transactions;
+    }
+
+    public String[] getWalletZAddresses() throws WalletCallException, IOException, InterruptedException {
+        final JsonArray jsonAddresses = executeCommandAndGetJsonArray("z_listaddresses");
         final String strAddresses[] = new String[jsonAddresses.size()];
         for (int i = 0; i < jsonAddresses.size(); i++) {
             strAddresses[i] = jsonAddresses.get(i).asString();
@@ -158,51 +225,163 @@ public class HushCommandLineBridge {
         return strAddresses;
     }
 
-    public synchronized String[][] getWalletZReceivedTransactions()
+    public List<WalletTransaction> getWalletZReceivedTransactions()
             throws WalletCallException, IOException, InterruptedException {
         final String[] zAddresses = this.getWalletZAddresses();
-        final List<String[]> zReceivedTransactions = new ArrayList<>();
 
+        // Notes are decoded as they are received - one call per address, as batch responses cannot be streamed
+        final ReceivedNotesByAddress received = this.getReceivedNotes(Arrays.asList(zAddresses), 0);
+        final List<List<ReceivedNote>> receivedByAddress = new ArrayList<>(zAddresses.length);
         for (final String zAddress : zAddresses) {
-            final JsonArray jsonTransactions = executeCommandAndGetJsonArray(
-                "z_listreceivedbyaddress", wrapStringParameter(zAddress), "0"
-            );
-            for (int i = 0; i < jsonTransactions.size(); i++) {
-                final String[] currentTransaction = new String[7];
-                final JsonObject trans = jsonTransactions.get(i).asObject();
-
-                String txID = trans.getString("txid", "ERROR!");
-                // Needs to be the same as in getWalletPublicTransactions()
-                // TODO: some day refactor to use object containers
-                currentTransaction[0] = "\u2605Z (Private)";
-                currentTransaction[1] = "receive";
-                currentTransaction[2] = this.getWalletTransactionConfirmations(txID);
-                currentTransaction[3] = trans.get("amount").toString();
-                currentTransaction[4] = this.getWalletTransactionTime(txID); // TODO: minimize sub-calls
-                currentTransaction[5] = zAddress;
-                currentTransaction[6] = trans.get("txid").toString();
-
-                zReceivedTransactions.add(currentTransaction);
+            // Addresses that failed are left out of this refresh
+            receivedByAddress.add(received.notes.getOrDefault(zAddress, Collections.emptyList()));
+        }
+
+        // Confirmations and time come from the wallet transaction - look up each transaction once
+        final Set<String> txIDs = new LinkedHashSet<>();
+        for (final List<ReceivedNote> notes : receivedByAddress) {
+            for (final ReceivedNote note : notes) {
+                txIDs.add(note.txID);
+            }
+        }
+        final List<JsonObject> walletTransactions = this.getWalletTransactionsByID(new ArrayList<>(txIDs));
+        final Map<String, JsonObject> walletTransactionsByID = new HashMap<>();
+        final Iterator<JsonObject> walletTransactionIterator = walletTransactions.iterator();
+        for (final String txID : txIDs) {
+            walletTransactionsByID.put(txID, walletTransactionIterator.next());
+        }
+
+        final List<WalletTransaction> zReceivedTransactions = new ArrayList<>();
+        for (int a = 0; a < zAddresses.length; a++) {
+            for (final ReceivedNote note : receivedByAddress.get(a)) {
+                final JsonObject walletTransaction = walletTransactionsByID.get(note.txID);
+                zReceivedTransactions.add(new WalletTransaction(
+                    WalletTransaction.Type.PRIVATE,
+                    WalletTransaction.Direction.IN,
+                    walletTransaction.getInt("confirmations", 0),
+                    note.amount,
+                    walletTransaction.getLong("time", -1),
+                    zAddresses[a],
+                    note.txID
+                ));
             }
         }
-        return zReceivedTransactions.toArray(new String[0][]);
+        return zReceivedTransactions;
     }
 
-    // ./src/hush-cli listunspent only returns T addresses it seems
-    public synchronized String[] getWalletPublicAddressesWithUnspentOutputs()
+    // gettransaction for each txid, answered from the cache where possible
+    List<JsonObject> getWalletTransactionsByID(final List<String> txIDs)
             throws WalletCallException, IOException, InterruptedException {
-        final JsonArray jsonUnspentOutputs = executeCommandAndGetJsonArray("listunspent", "0");
-        final Set<String> addresses = new HashSet<>();
+        return transactionCache.getAll(txIDs);
+    }
 
-        for (int i = 0; i < jsonUnspentOutputs.size(); i++) {
-            final JsonObject outp = jsonUnspentOutputs.get(i).asObject();
-            addresses.add(outp.getString("address", "ERROR!"));
+    // After a reorganization deeper than the cache considers final
+    void invalidateTransactionCache() {
+        transactionCache.invalidate();
+    }
+
+    /**
+     * Lists the notes received by several Z addresses, querying the addresses in parallel.
+     *
+     * @return the notes in the order of the addresses; addresses whose query failed are reported with the error
+     *     instead, unless all of them failed - then the first error is thrown
+     */
+    ReceivedNotesByAddress getReceivedNotes(final List<String> zAddresses, final int minConfirmations)
+            throws WalletCallException, IOException, InterruptedException {
+        final List<Future<List<ReceivedNote>>> queries = new ArrayList<>(zAddresses.size());
+        for (final String zAddress : zAddresses) {
+            queries.add(addressQueryExecutor.submit(() -> this.getReceivedNotes(zAddress, minConfirmations)));
+        }
+
+        final ReceivedNotesByAddress received = new ReceivedNotesByAddress();
+        try {
+            for (int i = 0; i < zAddresses.size(); i++) {
+                try {
+                    received.notes.put(zAddresses.get(i), queries.get(i).get());
+                } catch (final ExecutionException e) {
+                    received.failures.put(zAddresses.get(i), e.getCause());
+                }
+            }
+        } finally {
+            for (final Future<List<ReceivedNote>> query : queries) {
+                query.cancel(true);
+            }
+        }
+
+        if (received.notes.isEmpty() && !received.failures.isEmpty()) {
+            throw rethrow(received.failures.values().iterator().next());
+        }
+        for (final Map.Entry<String, Throwable> failure : received.failures.entrySet()) {
+            System.out.println("Listing the notes of " + failure.getKey() + " failed: " + failure.getValue());
         }
+        return received;
+    }
+
+    /**
+     * Issues the calls as batches that run in parallel - with `hush-cli`, where a batch is a sequence of calls, this
+     * is what spreads them over several processes.
+     *
+     * @return the results in the order of the calls
+     */
+    List<JsonValue> executeBatchInParallel(final List<RpcCall> calls)
+            throws WalletCallException, IOException, InterruptedException {
+        final int chunkSize = Math.max(1, Math.min(batchSize, (calls.size() + maxConcurrentCalls - 1) / maxConcurrentCalls));
+        final List<Future<List<JsonValue>>> batches = new ArrayList<>();
+        for (int start = 0; start < calls.size(); start += chunkSize) {
+            final List<RpcCall> chunk = calls.subList(start, Math.min(start + chunkSize, calls.size()));
+            batches.add(addressQueryExecutor.submit(() -> this.executeBatch(chunk)));
+        }
+        final List<JsonValue> results = new ArrayList<>(calls.size());
+        try {
+            for (final Future<List<JsonValue>> batch : batches) {
+                results.addAll(batch.get());
+            }
+        } catch (final ExecutionException e) {
+            throw rethrow(e.getCause());
+        } finally {
+            for (final Future<List<JsonValue>> batch : batches) {
+                batch.cancel(true);
+            }
+        }
+        return results;
+    }
+
+    // Throws a failure of a parallel call as the caller would have thrown it
+    private static RuntimeException rethrow(final Throwable failure) throws WalletCallException, IOException {
+        if (failure instanceof WalletCallException) {
+            throw (WalletCallException) failure;
+        } else if (failure instanceof IOException) {
+            throw (IOException) failure;
+        } else if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        }
+        throw new IOException(failure);
+    }
+
+    // z_listreceivedbyaddress
+    List<ReceivedNote> getReceivedNotes(final String zAddress, final int minConfirmations)
+            throws WalletCallException, IOException, InterruptedException {
+        final List<ReceivedNote> notes = new ArrayList<>();
+        this.executeCommandAndDecode(
+            new ReceivedNote.Decoder(notes::add),
+            "z_listreceivedbyaddress", zAddress, String.valueOf(minConfirmations)
+        );
+        return notes;
+    }
+
+    // ./src/hush-cli listunspent only returns T addresses it seems
+    public String[] getWalletPublicAddressesWithUnspentOutputs()
+            throws WalletCallException, IOException, InterruptedException {
+        final Set<String> addresses = new HashSet<>();
+        this.executeCommandAndDecode(
+            new UnspentOutput.Decoder(output -> addresses.add((output.address != null) ? output.address : "ERROR!")),
+            "listunspent", "0"
+        );
         return addresses.toArray(new String[0]);
     }
 
     // ./hush-cli listreceivedbyaddress 0 true
-    public synchronized String[] getWalletAllPublicAddresses()
+    public String[] getWalletAllPublicAddresses()
             throws WalletCallException, IOException, InterruptedException {
         final JsonArray jsonReceivedOutputs = executeCommandAndGetJsonArray("listreceivedbyaddress", "0", "true");
         final Set<String> addresses = new HashSet<>();
@@ -214,11 +393,9 @@ public class HushCommandLineBridge {
         return addresses.toArray(new String[0]);
     }
 
-    public synchronized Map<String, String> getRawTransactionDetails(final String txID)
+    public Map<String, String> getRawTransactionDetails(final String txID)
             throws WalletCallException, IOException, InterruptedException {
-        final JsonObject jsonTransaction = this.executeCommandAndGetJsonObject(
-            "gettransaction", wrapStringParameter(txID)
-        );
+        final JsonObject jsonTransaction = transactionCache.get(txID);
         final Map<String, String> map = new HashMap<>();
 
         for (final String name : jsonTransaction.names()) {
@@ -227,19 +404,16 @@ public class HushCommandLineBridge {
         return map;
     }
 
-    public synchronized String getMemoField(final String acc, final String txID)
+    public String getMemoField(final String acc, final String txID)
             throws WalletCallException, IOException, InterruptedException {
-        final JsonArray jsonTransactions = this.executeCommandAndGetJsonArray(
-            "z_listreceivedbyaddress", wrapStringParameter(acc)
-        );
-
-        for (int i = 0; i < jsonTransactions.size(); i++) {
-            if (jsonTransactions.get(i).asObject().getString("txid", "ERROR!").equals(txID)) {
-                if (jsonTransactions.get(i).asObject().get("memo") == null) {
+        // Default of 1 confirmation, as `hush-cli z_listreceivedbyaddress <address>`
+        for (final ReceivedNote note : this.getReceivedNotes(acc, 1)) {
+            if (note.txID.equals(txID)) {
+                if (note.memo == null) {
                     return null;
                 }
 
-                final String memoHex = jsonTransactions.get(i).asObject().getString("memo", "ERROR!");
+                final String memoHex = note.memo;
                 // Skip empty memos
                 if (memoHex.startsWith("f60000")) {
                     return null;
@@ -258,68 +432,72 @@ public class HushCommandLineBridge {
         return null;
     }
 
-    public synchronized String getRawTransaction(final String txID)
+    public String getRawTransaction(final String txID)
             throws WalletCallException, IOException, InterruptedException {
-        final JsonObject jsonTransaction = this.executeCommandAndGetJsonObject(
-            "gettransaction", wrapStringParameter(txID)
-        );
+        final JsonObject jsonTransaction = transactionCache.get(txID);
         return jsonTransaction.toString(WriterConfig.PRETTY_PRINT);
     }
 
-    // return UNIX time as String
-    private synchronized String getWalletTransactionTime(final String txID)
+    // Checks if a certain T address is a watch-only address or is otherwise invalid.
+    public boolean isWatchOnlyOrInvalidAddress(String address)
             throws WalletCallException, IOException, InterruptedException {
-        final JsonObject jsonTransaction = this.executeCommandAndGetJsonObject(
-            "gettransaction", wrapStringParameter(txID)
-        );
-        return String.valueOf(jsonTransaction.getLong("time", -1));
+        return addressValidationCache.isWatchOnlyOrInvalid(Collections.singletonList(address)).get(address);
     }
 
-    private synchronized String getWalletTransactionConfirmations(String txID)
+    /**
+     * Checks many T addresses at once - results are remembered across restarts, until keys are imported.
+     *
+     * @return for each address, whether it is watch-only or invalid
+     */
+    Map<String, Boolean> getWatchOnlyOrInvalidAddresses(final Collection<String> addresses)
             throws WalletCallException, IOException, InterruptedException {
-        final JsonObject jsonTransaction = this.executeCommandAndGetJsonObject(
-            "gettransaction", wrapStringParameter(txID)
-        );
-        return jsonTransaction.get("confirmations").toString();
+        return addressValidationCache.isWatchOnlyOrInvalid(addresses);
     }
 
-    // Checks if a certain T address is a watch-only address or is otherwise invalid.
-    public synchronized boolean isWatchOnlyOrInvalidAddress(String address)
-            throws WalletCallException, IOException, InterruptedException {
-        final JsonObject response = this.executeCommandAndGetJsonValue(
-            "validateaddress", wrapStringParameter(address)
-        ).asObject();
+    // Tells data stored for the loaded wallet from that of another one
+    WalletFingerprint getWalletFingerprint() {
+        return walletFingerprint;
+    }
 
-        if (response.getBoolean("isvalid", false)) {
-            return response.getBoolean("iswatchonly", true);
-        }
-        return true;
+    // Whether the wallet owns the keys of a T or Z address
+    boolean isWalletAddress(final String address) throws WalletCallException, IOException, InterruptedException {
+        final boolean isZAddress = address.startsWith("z") && (address.length() > 40);
+        return this.executeCommandAndGetJsonObject(isZAddress ? "z_validateaddress" : "validateaddress", address)
+                   .getBoolean("ismine", false);
     }
 
     // Returns confirmed balance only!
-    public synchronized String getBalanceForAddress(final String address)
+    public String getBalanceForAddress(final String address)
             throws WalletCallException, IOException, InterruptedException {
         final JsonValue response = this.executeCommandAndGetJsonValue(
-            "z_getbalance", wrapStringParameter(address)
+            "z_getbalance", address
         );
         return String.valueOf(response.toString());
     }
 
-    public synchronized String getUnconfirmedBalanceForAddress(final String address)
+    public String getUnconfirmedBalanceForAddress(final String address)
             throws WalletCallException, IOException, InterruptedException {
         final JsonValue response = this.executeCommandAndGetJsonValue(
-            "z_getbalance", wrapStringParameter(address), "0"
+            "z_getbalance", address, "0"
         );
         return String.valueOf(response.toString());
     }
 
-    public synchronized String createNewAddress(final boolean isZAddress)
+    /**
+     * @return the confirmed and unconfirmed balances of the addresses, in their order
+     */
+    Map<String, AddressBalance> getAddressBalances(final List<String> addresses)
+            throws WalletCallException, IOException, InterruptedException {
+        return balanceEngine.getBalances(addresses);
+    }
+
+    public String createNewAddress(final boolean isZAddress)
             throws WalletCallException, IOException, InterruptedException {
         return this.executeCommandAndGetSingleStringResponse((isZAddress ? "z_" : "") + "getnewaddress").trim();
     }
 
     // Returns OPID
-    public synchronized String sendCash(
+    public String sendCash(
         final String from,
         final String to,
         final String amount,
@@ -388,8 +566,8 @@ public class HushCommandLineBridge {
 
         final String[] sendCashParameters = new String[]{
                 "z_sendmany",
-                wrapStringParameter(from),
-                wrapStringParameter(toManyArrayStr),
+                from,
+                toManyArrayStr,
                 "1",                                   // default min confirmations for the input transactions is 1
                 preparedTxFee                          // transaction fee
         };
@@ -402,12 +580,9 @@ public class HushCommandLineBridge {
         );
 
         // Create caller to send cash
-        final String strResponse = getCommandLineExecutor(sendCashParameters).execute();
-
-        if (strResponse.trim().toLowerCase(Locale.ROOT).startsWith("error:") ||
-                    strResponse.trim().toLowerCase(Locale.ROOT).startsWith("error code:")) {
-            throw new WalletCallException("Error response from wallet: " + strResponse);
-        }
+        final String strResponse = this.executeCommandAndGetSingleStringResponse(
+            sendCashParameters[0], Arrays.copyOfRange(sendCashParameters, 1, sendCashParameters.length)
+        );
 
         System.out.println(
             "Sending cash with the following command: " +
@@ -419,10 +594,10 @@ public class HushCommandLineBridge {
         return strResponse.trim();
     }
 
-    public synchronized boolean isSendingOperationComplete(final String opID)
+    public boolean isSendingOperationComplete(final String opID)
             throws WalletCallException, IOException, InterruptedException {
         final JsonArray response = this.executeCommandAndGetJsonArray(
-            "z_getoperationstatus", wrapStringParameter("[\"" + opID + "\"]")
+            "z_getoperationstatus", "[\"" + opID + "\"]"
         );
         final JsonObject jsonStatus = response.get(0).asObject();
         final String status = jsonStatus.getString("status", "ERROR");
@@ -438,10 +613,10 @@ public class HushCommandLineBridge {
         }
     }
 
-    public synchronized boolean isCompletedOperationSuccessful(final String opID)
+    public boolean isCompletedOperationSuccessful(final String opID)
             throws WalletCallException, IOException, InterruptedException {
         final JsonArray response = this.executeCommandAndGetJsonArray(
-            "z_getoperationstatus", wrapStringParameter("[\"" + opID + "\"]")
+            "z_getoperationstatus", "[\"" + opID + "\"]"
         );
         final JsonObject jsonStatus = response.get(0).asObject();
         final String status = jsonStatus.getString("status", "ERROR");
@@ -458,92 +633,105 @@ public class HushCommandLineBridge {
     }
 
     // May only be called for already failed operations
-    public synchronized String getOperationFinalErrorMessage(final String opID)
+    public String getOperationFinalErrorMessage(final String opID)
             throws WalletCallException, IOException, InterruptedException {
         final JsonArray response = this.executeCommandAndGetJsonArray(
-            "z_getoperationstatus", wrapStringParameter("[\"" + opID + "\"]")
+            "z_getoperationstatus", "[\"" + opID + "\"]"
         );
         final JsonObject jsonStatus = response.get(0).asObject();
         final JsonObject jsonError = jsonStatus.get("error").asObject();
         return jsonError.getString("message", "ERROR!");
     }
 
-    public synchronized NetworkAndBlockchainInfo getNetworkAndBlockchainInfo()
+    public NetworkAndBlockchainInfo getNetworkAndBlockchainInfo()
             throws WalletCallException, IOException, InterruptedException {
-        final NetworkAndBlockchainInfo info = new NetworkAndBlockchainInfo();
-        final String strNumCons = this.executeCommandAndGetSingleStringResponse("getconnectioncount");
-        info.numConnections = Integer.valueOf(strNumCons.trim());
+        final List<JsonValue> responses = this.executeBatch(Arrays.asList(
+            new RpcCall("getblockchaininfo"),
+            new RpcCall("getnetworkinfo")
+        ));
+        final JsonObject blockchainInfo = toJsonObject(responses.get(0));
+        final JsonObject networkInfo = toJsonObject(responses.get(1));
 
-        final String strBlockCount = this.executeCommandAndGetSingleStringResponse("getblockcount");
-        final String lastBlockHash = this.executeCommandAndGetSingleStringResponse("getblockhash", strBlockCount.trim());
-        final JsonObject lastBlock = this.executeCommandAndGetJsonObject("getblock", wrapStringParameter(lastBlockHash.trim()));
-        info.lastBlockDate = new Date(lastBlock.getLong("time", -1) * 1000L);
+        final NetworkAndBlockchainInfo info = new NetworkAndBlockchainInfo();
+        info.numConnections = networkInfo.getInt("connections", 0);
+        // The header of the tip is only fetched when the tip changed
+        final BlockHeaderCache.BlockHeader lastBlock = blockHeaderCache.get(
+            blockchainInfo.getInt("blocks", -1), blockchainInfo.getString("bestblockhash", "")
+        );
+        info.lastBlockDate = new Date(lastBlock.time * 1000L);
 
         return info;
     }
 
-    public synchronized void lockWallet()
+    public void lockWallet()
             throws WalletCallException, IOException, InterruptedException {
-        final String response = this.executeCommandAndGetSingleStringResponse("walletlock");
+        try {
+            final String response = this.executeCommandAndGetSingleStringResponse("walletlock");
 
-        // Response is expected to be empty
-        if (response.trim().length() > 0) {
-            throw new WalletCallException("Unexpected response from wallet: " + response);
+            // Response is expected to be empty
+            if (response.trim().length() > 0) {
+                throw new WalletCallException("Unexpected response from wallet: " + response);
+            }
+        } finally {
+            this.endWalletSession();
         }
     }
 
     // Unlocks the wallet for 5 minutes - meant to be followed shortly by lock!
     // TODO: tests with a password containing spaces
-    public synchronized void unlockWallet(String password)
+    public void unlockWallet(String password)
             throws WalletCallException, IOException, InterruptedException {
-        final String response = this.executeCommandAndGetSingleStringResponse(
-            "walletpassphrase", wrapStringParameter(password), "300"
-        );
+        this.beginWalletSession();
+        boolean unlocked = false;
+        try {
+            final String response = this.executeCommandAndGetSingleStringResponse(
+                "walletpassphrase", password, String.valueOf(WALLET_UNLOCK_SECONDS)
+            );
 
-        // Response is expected to be empty
-        if (response.trim().length() > 0) {
-            throw new WalletCallException("Unexpected response from wallet: " + response);
+            // Response is expected to be empty
+            if (response.trim().length() > 0) {
+                throw new WalletCallException("Unexpected response from wallet: " + response);
+            }
+            unlocked = true;
+        } finally {
+            if (!unlocked) {
+                this.endWalletSession();
+            }
         }
     }
 
     // Wallet locks check - an unencrypted wallet will give an error
     // hush-cli walletlock
     // error: {"code":-15,"message":"Error: running with an unencrypted wallet, but walletlock was called."}
-    public synchronized boolean isWalletEncrypted()
+    public boolean isWalletEncrypted()
             throws WalletCallException, IOException, InterruptedException {
-        final String strResult = getCommandLineExecutor(new String[]{ "walletlock" }).execute();
+        final Boolean knownEncrypted = walletEncrypted;
+        if (knownEncrypted != null) {
+            return knownEncrypted;
+        }
 
-        if (strResult.trim().length() == 0) {
-            // If it could be locked with no result - obviously encrypted
-            return true;
-        } else if (strResult.trim().toLowerCase(Locale.ROOT).startsWith("error:")) {
+        final String strResult;
+        this.beginWalletSession();
+        try {
+            strResult = this.executeCommandAndGetSingleStringResponse("walletlock");
+        } catch (final WalletErrorException e) {
             // Expecting an error of an unencrypted wallet
-            final String jsonPart = strResult.substring(strResult.indexOf("{"));
-            try {
-                final JsonValue response = Json.parse(jsonPart);
-                final JsonObject respObject = response.asObject();
-                if ((respObject.getDouble("code", -1) == -15) &&
-                            respObject.getString("message", "ERR").contains("unencrypted wallet")) {
-                    // Obviously unencrypted
-                    return false;
-                } else {
-                    throw new WalletCallException("Unexpected response from wallet: " + strResult);
-                }
-            } catch (final ParseException e) {
-                throw new WalletCallException(jsonPart + "\n" + e.getMessage() + "\n", e);
-            }
-        } else if (strResult.trim().toLowerCase(Locale.ROOT).startsWith("error code:")) {
-            final JsonObject respObject = jsonifyErrorMessage(strResult);
-            if ((respObject.getDouble("code", -1) == -15) &&
-                        respObject.getString("message", "ERR").contains("unencrypted wallet")) {
+            if ((e.getCode() == -15) && e.getErrorMessage().contains("unencrypted wallet")) {
                 // Obviously unencrypted
+                walletEncrypted = false;
                 return false;
-            } else {
-                throw new WalletCallException("Unexpected response from wallet: " + strResult);
             }
-        } else {
-            throw new WalletCallException("Unexpected response from wallet: " + strResult);
+            throw new WalletCallException("Unexpected response from wallet: " + e.getMessage(), e);
+        } finally {
+            this.endWalletSession();
+        }
+
+        if (strResult.trim().length() == 0) {
+            // If it could be locked with no result - obviously encrypted
+            walletEncrypted = true;
+            return true;
         }
+        throw new WalletCallException("Unexpected response from wallet: " + strResult);
     }
 
     /**
@@ -558,102 +746,94 @@ public class HushCommandLineBridge {
      *
      * @param password
      */
-    public synchronized void encryptWallet(final String password)
+    public void encryptWallet(final String password)
             throws WalletCallException, IOException, InterruptedException {
         final String result = this.executeCommandAndGetSingleStringResponse(
-            "encryptwallet", wrapStringParameter(password)
+            "encryptwallet", password
         );
+        walletEncrypted = null;
         System.out.println("Result of wallet encryption is: \n" + result);
         // If no exception - obviously successful
     }
 
-    public synchronized void backupWallet(final String fileName)
+    public void backupWallet(final String fileName)
             throws WalletCallException, IOException, InterruptedException {
         System.out.println("Backup up wallet to location: " + fileName);
         final String result = this.executeCommandAndGetSingleStringResponse(
-            "backupwallet", wrapStringParameter(fileName)
+            "backupwallet", fileName
         );
         // If no exception - obviously successful
     }
 
-    public synchronized void exportWallet(final String fileName)
+    public void exportWallet(final String fileName)
             throws WalletCallException, IOException, InterruptedException {
         System.out.println("Export wallet keys to location: " + fileName);
         final String result = this.executeCommandAndGetSingleStringResponse(
-            "z_exportwallet", wrapStringParameter(fileName)
+            "z_exportwallet", fileName
         );
         // If no exception - obviously successful
     }
 
-    public synchronized void importWallet(final String fileName)
+    public void importWallet(final String fileName)
             throws WalletCallException, IOException, InterruptedException {
         System.out.println("Import wallet keys from location: " + fileName);
         final String result = this.executeCommandAndGetSingleStringResponse(
-            "z_importwallet", wrapStringParameter(fileName)
+            "z_importwallet", fileName
         );
         // If no exception - obviously successful
+        // Imported keys may change how known transactions and addresses are reported
+        transactionCache.invalidate();
+        addressValidationCache.invalidate();
     }
 
-    public synchronized String getTPrivateKey(final String address)
+    public String getTPrivateKey(final String address)
             throws WalletCallException, IOException, InterruptedException {
         final String result = this.executeCommandAndGetSingleStringResponse(
-            "dumpprivkey", wrapStringParameter(address)
+            "dumpprivkey", address
         );
         return result.trim();
     }
 
-    public synchronized String getZPrivateKey(final String address)
+    public String getZPrivateKey(final String address)
             throws WalletCallException, IOException, InterruptedException {
         final String result = this.executeCommandAndGetSingleStringResponse(
-            "z_exportkey", wrapStringParameter(address)
+            "z_exportkey", address
         );
         return result.trim();
     }
 
     // Imports a private key - tries both possibilities T/Z
-    public synchronized void importPrivateKey(final String key)
+    public void importPrivateKey(final String key)
             throws WalletCallException, IOException, InterruptedException {
-        // First try a Z key
-        final String[] params = new String[]{
-            "z_importkey",
-            wrapStringParameter(key)
-        };
-        final String result = getCommandLineExecutor(params).execute();
-
-        if ((result == null) || (result.trim().length() == 0)) {
-            return;
+        try {
+            this.importTOrZPrivateKey(key);
+        } finally {
+            // Imported keys may change how known transactions and addresses are reported
+            transactionCache.invalidate();
+            addressValidationCache.invalidate();
         }
+    }
 
-        // Obviously we have an error trying to import a Z key
-        if (result.trim().toLowerCase(Locale.ROOT).startsWith("error:")) {
-            // Expecting an error of a T address key
-            final String jsonPart = result.substring(result.indexOf("{"));
-            try {
-                final JsonValue response = Json.parse(jsonPart);
-                final JsonObject respObject = response.asObject();
-                if ((respObject.getDouble("code", +123) == -1) &&
-                            respObject.getString("message", "ERR").contains("wrong network type")) {
-                    // Obviously T address - do nothing here
-                } else {
-                    throw new WalletCallException("Unexpected response from wallet: " + result);
-                }
-            } catch (final ParseException e) {
-                throw new WalletCallException(jsonPart + "\n" + e.getMessage() + "\n", e);
-            }
-        } else if (result.trim().toLowerCase(Locale.ROOT).startsWith("error code:")) {
-            final JsonObject respObject = jsonifyErrorMessage(result);
-            if ((respObject.getDouble("code", +123) == -1) &&
-                        respObject.getString("message", "ERR").contains("wrong network type")) {
-                // Obviously T address - do nothing here
-            } else {
-                throw new WalletCallException("Unexpected response from wallet: " + result);
+    private void importTOrZPrivateKey(final String key)
+            throws WalletCallException, IOException, InterruptedException {
+        // First try a Z key
+        try {
+            final String result = this.executeCommandAndGetSingleStringResponse("z_importkey", key);
+            if (result.trim().length() == 0) {
+                return;
             }
-        } else {
             throw new WalletCallException("Unexpected response from wallet: " + result);
+        } catch (final WalletErrorException e) {
+            // Obviously we have an error trying to import a Z key
+            // Expecting an error of a T address key
+            if (!((e.getCode() == -1) && e.getErrorMessage().contains("wrong network type"))) {
+                throw new WalletCallException("Unexpected response from wallet: " + e.getMessage(), e);
+            }
+            // Obviously T address - do nothing here
         }
 
         // Second try a T key
-        final String result2 = this.executeCommandAndGetSingleStringResponse("importprivkey", wrapStringParameter(key));
+        final String result2 = this.executeCommandAndGetSingleStringResponse("importprivkey", key);
 
         if ((result2 == null) || (result2.trim().length() == 0)) {
             return;
@@ -663,10 +843,17 @@ public class HushCommandLineBridge {
         throw new WalletCallException("Unexpected response from wallet: " + result2);
     }
 
-    private JsonObject executeCommandAndGetJsonObject(final String command1, final String command2)
+    JsonObject executeCommandAndGetJsonObject(final String method, final String... params)
             throws WalletCallException, IOException, InterruptedException {
-        final JsonValue response = this.executeCommandAndGetJsonValue(command1, command2);
+        return toJsonObject(this.executeCommandAndGetJsonValue(method, params));
+    }
 
+    private JsonArray executeCommandAndGetJsonArray(final String method, final String... params)
+            throws WalletCallException, IOException, InterruptedException {
+        return toJsonArray(this.executeCommandAndGetJsonValue(method, params));
+    }
+
+    static JsonObject toJsonObject(final JsonValue response) throws WalletCallException {
         if (response.isObject()) {
             return response.asObject();
         } else {
@@ -674,15 +861,7 @@ public class HushCommandLineBridge {
         }
     }
 
-    private JsonArray executeCommandAndGetJsonArray(final String command1, final String command2)
-            throws WalletCallException, IOException, InterruptedException {
-        return this.executeCommandAndGetJsonArray(command1, command2, null);
-    }
-
-    private JsonArray executeCommandAndGetJsonArray(final String command1, final String command2, final String command3)
-            throws WalletCallException, IOException, InterruptedException {
-        final JsonValue response = this.executeCommandAndGetJsonValue(command1, command2, command3);
-
+    private static JsonArray toJsonArray(final JsonValue response) throws WalletCallException {
         if (response.isArray()) {
             return response.asArray();
         } else {
@@ -690,63 +869,78 @@ public class HushCommandLineBridge {
         }
     }
 
-    private JsonValue executeCommandAndGetJsonValue(final String command1, final String command2)
-            throws WalletCallException, IOException, InterruptedException {
-        return this.executeCommandAndGetJsonValue(command1, command2, null);
-    }
-
-    private JsonValue executeCommandAndGetJsonValue(final String command1, final String command2, final String command3)
-            throws WalletCallException, IOException, InterruptedException {
-        final String result = this.executeCommandAndGetSingleStringResponse(command1, command2, command3);
+    // Feeds the result of the call to a streaming decoder instead of building it in memory
+    void executeCommandAndDecode(
+        final JsonHandler<Object, Object> resultDecoder,
+        final String method,
+        final String... params
+    ) throws WalletCallException, IOException, InterruptedException {
+        callPermits.acquire();
         try {
-            final JsonValue response = Json.parse(result);
-            return response;
-        } catch (final ParseException e) {
-            throw new WalletCallException(result + "\n" + e.getMessage() + "\n", e);
+            transport.callAndDecode(resultDecoder, method, params);
+        } finally {
+            callPermits.release();
         }
     }
 
-    private String executeCommandAndGetSingleStringResponse(final String command1)
+    // Issues the calls in batches of at most `batchSize` and returns the results in the order of the calls
+    List<JsonValue> executeBatch(final List<RpcCall> calls)
             throws WalletCallException, IOException, InterruptedException {
-        return this.executeCommandAndGetSingleStringResponse(command1, null);
+        final List<JsonValue> results = new ArrayList<>(calls.size());
+        for (int start = 0; start < calls.size(); start += batchSize) {
+            final List<RpcCall> batch = calls.subList(start, Math.min(start + batchSize, calls.size()));
+            callPermits.acquire();
+            try {
+                results.addAll(transport.callBatch(batch));
+            } finally {
+                callPermits.release();
+            }
+        }
+        return results;
     }
 
-    private String executeCommandAndGetSingleStringResponse(final String command1, final String command2)
-            throws WalletCallException, IOException, InterruptedException {
-        return this.executeCommandAndGetSingleStringResponse(command1, command2, null);
+    // Waits for any other unlocked wallet operation to finish. A session that was never ended is taken over once
+    // the daemon has locked the wallet again by itself.
+    private void beginWalletSession() throws WalletCallException, InterruptedException {
+        if (!walletSession.tryAcquire(WALLET_SESSION_WAIT_MS, TimeUnit.MILLISECONDS)) {
+            if (System.currentTimeMillis() < walletSessionExpiry) {
+                throw new WalletCallException(
+                    "The wallet is unlocked for another operation in progress. Please try again in a moment."
+                );
+            }
+            System.out.println("Previous unlocked wallet operation did not lock the wallet, taking over.");
+        }
+        walletSessionActive.set(true);
+        walletSessionExpiry = System.currentTimeMillis() + (WALLET_UNLOCK_SECONDS * 1000L);
     }
 
-    private String executeCommandAndGetSingleStringResponse(
-        final String command1,
-        final String command2,
-        final String command3
-    ) throws WalletCallException, IOException, InterruptedException {
-        final String[] params;
-        if (command3 != null) {
-            params = new String[]{ command1, command2, command3 };
-        } else if (command2 != null) {
-            params = new String[]{ command1, command2 };
-        } else {
-            params = new String[]{ command1 };
+    private void endWalletSession() {
+        if (walletSessionActive.compareAndSet(true, false)) {
+            walletSessionExpiry = 0;
+            walletSession.release();
         }
-        final String result = getCommandLineExecutor(params).execute();
+    }
 
-        if (result.trim().toLowerCase(Locale.ROOT).startsWith("error:") ||
-                    result.trim().toLowerCase(Locale.ROOT).startsWith("error code:")) {
-            throw new WalletCallException("Error response from wallet: " + result);
+    private JsonValue executeCommandAndGetJsonValue(final String method, final String... params)
+            throws WalletCallException, IOException, InterruptedException {
+        callPermits.acquire();
+        try {
+            return transport.call(method, params);
+        } finally {
+            callPermits.release();
         }
-        return result;
     }
 
-    // Used to wrap string parameters on the command line - not doing so causes problems on Windows.
-    private String wrapStringParameter(String param) {
-        // Fix is made for Windows only
-        // BRX-TODO: This is the only reason for the `isWindowsRuntime` method laziness
-        // BRX-TODO: Does it not make sense to also quote these parameters on *nix?
-        if (RuntimeEnvironment.isWindowsRuntime()) {
-            param = "\"" + param.replace("\"", "\\\"") + "\"";
+    // Returns the result the way `hush-cli` prints it - strings without quotes, nothing for a null result
+    private String executeCommandAndGetSingleStringResponse(final String method, final String... params)
+            throws WalletCallException, IOException, InterruptedException {
+        final JsonValue result = this.executeCommandAndGetJsonValue(method, params);
+        if (result.isString()) {
+            return result.asString();
+        } else if (result.isNull()) {
+            return "";
         }
-        return param;
+        return result.toString();
     }
 
     private void decomposeJSONValue(final String name, final JsonValue val, final Map<String, String> map) {
@@ -765,27 +959,6 @@ public class HushCommandLineBridge {
         }
     }
 
-    // BRX-TODO: Is this still needed?
-    // Turns a 1.0.7+ error message to a an old json-style message
-    // info - new style error message
-    private JsonObject jsonifyErrorMessage(final String info) throws IOException {
-        final JsonObject result = new JsonObject();
-
-        // Error message here comes from ZCash 1.0.7+ and is like:
-        /*
-        hush-cli getinfo
-        error code: -28
-        error message:
-        Loading block index...
-        */
-        final LineNumberReader lnr = new LineNumberReader(new StringReader(info));
-        final int errCode = Integer.parseInt(lnr.readLine().substring(11).trim());
-        result.set("code", errCode);
-        lnr.readLine();
-        result.set("message", lnr.readLine().trim());
-        return result;
-    }
-
     public static class WalletBalance {
         public double transparentBalance;
         public double privateBalance;
@@ -801,6 +974,12 @@ public class HushCommandLineBridge {
         public Date lastBlockDate;
     }
 
+    static class ReceivedNotesByAddress {
+        // In the order of the queried addresses
+        final Map<String, List<ReceivedNote>> notes = new LinkedHashMap<>();
+        final Map<String, Throwable> failures = new LinkedHashMap<>();
+    }
+
     static class WalletCallException extends Exception {
         WalletCallException(final String message) {
             super(message);
@@ -811,6 +990,37 @@ public class HushCommandLineBridge {
         }
     }
 
+    // An error returned by the daemon for a call, e.g. {"code":-28,"message":"Loading block index..."}
+    static class WalletErrorException extends WalletCallException {
+        private final int code;
+        private final String errorMessage;
+
+        WalletErrorException(final String message, final int code, final String errorMessage) {
+            super(message);
+            this.code = code;
+            this.errorMessage = errorMessage;
+        }
+
+        public int getCode() {
+            return code;
+        }
+
+        public String getErrorMessage() {
+            return errorMessage;
+        }
+    }
+
+    // The daemon could not be reached at all - typically it is not running
+    static class DaemonConnectionException extends WalletCallException {
+        DaemonConnectionException(final String message) {
+            super(message);
+        }
+
+        DaemonConnectionException(final String message, final Throwable cause) {
+            super(message, cause);
+        }
+    }
+
     static class DaemonUnavailableException extends Exception {
         public enum Reason {
             NOT_RUNNING,
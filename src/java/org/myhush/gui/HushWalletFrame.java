@@ -22,6 +22,7 @@ class HushWalletFrame extends JFrame {
     private final DashboardPanel dashboard;
     private final AddressesPanel addresses;
     private final SendCashPanel sendPanel;
+    private final WalletStateService walletState;
 
     HushWalletFrame(
             final StartupProgressDialog progressDialog,
@@ -39,6 +40,13 @@ class HushWalletFrame extends JFrame {
 
         final Container contentPane = this.getContentPane();
         final StatusUpdateErrorReporter errorReporter = new StatusUpdateErrorReporter(this);
+        // How often to poll the daemon, following what the user sees and does
+        final PollingCadence cadence = new PollingCadence(
+            new File(App.PATH_PROVIDER.getSettingsDirectory(), Constants.POLLING_CADENCE_FILENAME)
+        );
+        // Wallet data shared by all panels
+        walletState = new WalletStateService(commandLineBridge, cadence, errorReporter);
+        walletState.refreshFromStore();
 
         // Build content
         final JTabbedPane tabs = new JTabbedPane();
@@ -47,24 +55,31 @@ class HushWalletFrame extends JFrame {
         tabs.setFont(newTabFont);
         tabs.addTab("Overview ",
                 new ImageIcon(classLoader.getResource("images/icon-overview.png")),
-                dashboard = new DashboardPanel(this, daemonInfoProvider, commandLineBridge, errorReporter)
+                dashboard = new DashboardPanel(this, daemonInfoProvider, commandLineBridge, walletState, cadence, errorReporter)
         );
         tabs.addTab("Own addresses ",
                 new ImageIcon(classLoader.getResource("images/icon-own-addresses.png")),
-                addresses = new AddressesPanel(this, commandLineBridge, errorReporter)
+                addresses = new AddressesPanel(this, commandLineBridge, walletState, errorReporter)
         );
         tabs.addTab("Send cash ",
                 new ImageIcon(classLoader.getResource("images/icon-send.png")),
-                sendPanel = new SendCashPanel(commandLineBridge, errorReporter)
+                sendPanel = new SendCashPanel(commandLineBridge, walletState, cadence, errorReporter)
         );
+        final AddressBookPanel addressBook = new AddressBookPanel(sendPanel, tabs);
         tabs.addTab("Address book ",
                 new ImageIcon(classLoader.getResource("images/icon-address-book.png")),
-                new AddressBookPanel(sendPanel, tabs)
+                addressBook
         );
+        dashboard.setAddressBook(addressBook);
         contentPane.add(tabs);
+        tabs.addChangeListener(event -> cadence.setOverviewVisible(tabs.getSelectedComponent() == dashboard));
+        Toolkit.getDefaultToolkit().addAWTEventListener(
+            event -> cadence.userActive(), AWTEvent.KEY_EVENT_MASK | AWTEvent.MOUSE_EVENT_MASK | AWTEvent.MOUSE_MOTION_EVENT_MASK
+        );
+        walletState.start();
 
         final WalletOperations walletOps = new WalletOperations(
-                this, tabs, dashboard, addresses, sendPanel, commandLineBridge, errorReporter
+                this, tabs, dashboard, addresses, sendPanel, walletState, commandLineBridge, errorReporter
         );
         this.setSize(new Dimension(870, 427));
 
@@ -127,6 +142,16 @@ class HushWalletFrame extends JFrame {
             public void windowClosing(final WindowEvent event) {
                 HushWalletFrame.this.exitProgram();
             }
+
+            @Override
+            public void windowIconified(final WindowEvent event) {
+                cadence.setIconified(true);
+            }
+
+            @Override
+            public void windowDeiconified(final WindowEvent event) {
+                cadence.setIconified(false);
+            }
         });
 
         // Show initial message
@@ -171,6 +196,7 @@ class HushWalletFrame extends JFrame {
         System.out.println("Exiting ...");
         this.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
 
+        this.walletState.stop();
         this.dashboard.stopThreadsAndTimers();
         this.addresses.stopThreadsAndTimers();
         this.sendPanel.stopThreadsAndTimers();
@@ -0,0 +1,156 @@
+// Copyright (c) 2018 The Hush Developers <contact@myhush.org>
+//
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+package org.myhush.gui;
+
+import com.eclipsesource.json.JsonHandler;
+
+import java.util.function.Consumer;
+
+/**
+ * Decodes an array of JSON objects - the result of list calls such as `listunspent` - into typed records straight
+ * from the parser events, without building the JSON tree. Only the scalar fields of each object are reported;
+ * nested arrays and objects are skipped. Each record is passed on as soon as its object ends.
+ * <p>
+ * Records may also be nested one level deeper in an array of a top-level object, as in the `listsinceblock` result.
+ * String fields of that top-level object are reported by {@link #topLevelStringField(String, String)}.
+ *
+ * @param <T> the record type
+ */
+abstract class JsonRecordDecoder<T> extends JsonHandler<Object, Object> {
+    private static final Object TOP_LEVEL = new Object();
+    private static final Object RECORD = new Object();
+    private static final Object OTHER = new Object();
+
+    private final Consumer<? super T> sink;
+    private final int recordDepth;
+    // Nesting depth of arrays and objects - records are the objects at recordDepth
+    private int depth = 0;
+    private String field = null;
+    private String topLevelField = null;
+
+    JsonRecordDecoder(final Consumer<? super T> sink) {
+        this(sink, 2);
+    }
+
+    /**
+     * @param recordDepth 2 for records in a top-level array, 3 for records in an array of a top-level object
+     */
+    JsonRecordDecoder(final Consumer<? super T> sink, final int recordDepth) {
+        this.sink = sink;
+        this.recordDepth = recordDepth;
+    }
+
+    /**
+     * Called at the start of each record object.
+     */
+    protected abstract void startRecord();
+
+    /**
+     * Called for a string field of the current record.
+     */
+    protected void stringField(final String name, final String value) {
+    }
+
+    /**
+     * Called for a number field of the current record, with the number as written in the response.
+     */
+    protected void numberField(final String name, final String value) {
+    }
+
+    /**
+     * Called for a boolean field of the current record.
+     */
+    protected void booleanField(final String name, final boolean value) {
+    }
+
+    /**
+     * Called for a string field of a top-level object that contains the records.
+     */
+    protected void topLevelStringField(final String name, final String value) {
+    }
+
+    /**
+     * Called at the end of each record object.
+     *
+     * @return the decoded record
+     */
+    protected abstract T endRecord();
+
+    @Override
+    public Object startArray() {
+        depth++;
+        return OTHER;
+    }
+
+    @Override
+    public void endArray(final Object array) {
+        depth--;
+    }
+
+    @Override
+    public Object startObject() {
+        depth++;
+        if (depth == recordDepth) {
+            startRecord();
+            return RECORD;
+        } else if (depth == 1) {
+            return TOP_LEVEL;
+        }
+        return OTHER;
+    }
+
+    @Override
+    public void endObject(final Object object) {
+        depth--;
+        if (object == RECORD) {
+            sink.accept(endRecord());
+        }
+    }
+
+    @Override
+    public void startObjectValue(final Object object, final String name) {
+        if (object == RECORD) {
+            field = name;
+        } else if (object == TOP_LEVEL) {
+            topLevelField = name;
+        }
+    }
+
+    @Override
+    public void endObjectValue(final Object object, final String name) {
+        if (object == RECORD) {
+            field = null;
+        } else if (object == TOP_LEVEL) {
+            topLevelField = null;
+        }
+    }
+
+    @Override
+    public void endString(final String string) {
+        if (isRecordField()) {
+            stringField(field, string);
+        } else if ((depth == 1) && (topLevelField != null)) {
+            topLevelStringField(topLevelField, string);
+        }
+    }
+
+    @Override
+    public void endNumber(final String string) {
+        if (isRecordField()) {
+            numberField(field, string);
+        }
+    }
+
+    @Override
+    public void endBoolean(final boolean value) {
+        if (isRecordField()) {
+            booleanField(field, value);
+        }
+    }
+
+    private boolean isRecordField() {
+        return (depth == recordDepth) && (field != null);
+    }
+}
@@ -0,0 +1,135 @@
+// Copyright (c) 2018 The Hush Developers <contact@myhush.org>
+//
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+package org.myhush.gui;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.*;
+
+/**
+ * Table model over snapshots of rows that identifies rows by a key. A new snapshot is compared with the shown one
+ * key by key and only the deleted, inserted and changed rows are reported, so the table keeps its selection and
+ * scroll position and repaints just those rows.
+ *
+ * @param <R> the type of the rows
+ */
+abstract class KeyedTableModel<R> extends AbstractTableModel {
+    private final List<R> rows = new ArrayList<>();
+    private final List<Object> keys = new ArrayList<>();
+
+    KeyedTableModel(final List<R> initialRows) {
+        this.setRows(initialRows);
+    }
+
+    /**
+     * @return the key of the row - rows with equal keys are told apart by their order
+     */
+    abstract Object getKey(R row);
+
+    /**
+     * @return whether two rows with the same key look the same in the table
+     */
+    abstract boolean isSameContent(R a, R b);
+
+    R getRowAt(final int row) {
+        return rows.get(row);
+    }
+
+    @Override
+    public int getRowCount() {
+        return rows.size();
+    }
+
+    /**
+     * Shows a new snapshot of the rows - to be called on the event dispatch thread.
+     */
+    void setRows(final List<R> newRows) {
+        final List<Object> newKeys = numberedKeys(newRows);
+
+        // Delete the rows that are gone, from the end so indices of the rows before stay valid
+        final Set<Object> newKeySet = new HashSet<>(newKeys);
+        int end = rows.size() - 1;
+        while (end >= 0) {
+            if (newKeySet.contains(keys.get(end))) {
+                end--;
+                continue;
+            }
+            int start = end;
+            while ((start > 0) && !newKeySet.contains(keys.get(start - 1))) {
+                start--;
+            }
+            rows.subList(start, end + 1).clear();
+            keys.subList(start, end + 1).clear();
+            this.fireTableRowsDeleted(start, end);
+            end = start - 1;
+        }
+
+        // Rows kept must be in the same order - if they were reordered, everything is reported as changed
+        final Set<Object> keptKeySet = new HashSet<>(keys);
+        int kept = 0;
+        for (final Object key : newKeys) {
+            if (keptKeySet.contains(key) && !key.equals(keys.get(kept++))) {
+                rows.clear();
+                rows.addAll(newRows);
+                keys.clear();
+                keys.addAll(newKeys);
+                this.fireTableDataChanged();
+                return;
+            }
+        }
+
+        // Insert the new rows and update the changed ones, in order
+        int insertStart = -1;
+        int updateStart = -1;
+        for (int i = 0; i < newRows.size(); i++) {
+            // While new rows are pending insertion, the next kept row is still where they go
+            final int current = (insertStart >= 0) ? insertStart : i;
+            final boolean isKept = (current < keys.size()) && keys.get(current).equals(newKeys.get(i));
+            final boolean isChanged = isKept && !this.isSameContent(rows.get(current), newRows.get(i));
+            if (!isChanged && (updateStart >= 0)) {
+                this.fireTableRowsUpdated(updateStart, i - 1);
+                updateStart = -1;
+            }
+            if (!isKept) {
+                if (insertStart < 0) {
+                    insertStart = i;
+                }
+                continue;
+            }
+            if (insertStart >= 0) {
+                this.insertRows(insertStart, newRows.subList(insertStart, i), newKeys.subList(insertStart, i));
+                insertStart = -1;
+            }
+            // Take the new row even if it looks the same, it may carry other data
+            rows.set(i, newRows.get(i));
+            if (isChanged && (updateStart < 0)) {
+                updateStart = i;
+            }
+        }
+        if (insertStart >= 0) {
+            this.insertRows(insertStart, newRows.subList(insertStart, newRows.size()), newKeys.subList(insertStart, newRows.size()));
+        }
+        if (updateStart >= 0) {
+            this.fireTableRowsUpdated(updateStart, newRows.size() - 1);
+        }
+    }
+
+    private void insertRows(final int start, final List<R> insertedRows, final List<Object> insertedKeys) {
+        rows.addAll(start, insertedRows);
+        keys.addAll(start, insertedKeys);
+        this.fireTableRowsInserted(start, start + insertedRows.size() - 1);
+    }
+
+    // Keys made unique by the number of earlier rows with the same key
+    private List<Object> numberedKeys(final List<R> rows) {
+        final List<Object> numbered = new ArrayList<>(rows.size());
+        final Map<Object, Integer> occurrences = new HashMap<>();
+        for (final R row : rows) {
+            final Object key = this.getKey(row);
+            final int occurrence = occurrences.merge(key, 1, Integer::sum);
+            numbered.add(Arrays.asList(key, occurrence));
+        }
+        return numbered;
+    }
+}
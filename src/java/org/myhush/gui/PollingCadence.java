@@ -0,0 +1,232 @@
+// Copyright (c) 2018 The Hush Developers <contact@myhush.org>
+//
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+package org.myhush.gui;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Decides how often data is polled from the daemon, depending on what the user sees and does.
+ * <p>
+ * Wallet probes speed up while send operations are pending, network details while the blockchain synchronizes.
+ * Everything slows down while the wallet window is iconified or the user is idle, and data only the overview tab
+ * shows also while that tab is hidden. Base intervals and factors may be changed in the settings file.
+ */
+class PollingCadence {
+    enum Poll {
+        DAEMON_INFO("daemonInfo", 2000, true),
+        NETWORK_INFO("networkInfo", 10000, true),
+        WALLET_PROBE("walletProbe", 2000, false),
+        // Age after which the wallet state is gathered even if nothing seems to have changed
+        WALLET_REFRESH("walletRefresh", 120000, false);
+
+        final String key;
+        final int defaultInterval;
+        final boolean overviewOnly;
+
+        Poll(final String key, final int defaultInterval, final boolean overviewOnly) {
+            this.key = key;
+            this.defaultInterval = defaultInterval;
+            this.overviewOnly = overviewOnly;
+        }
+    }
+
+    private static final double DEFAULT_PENDING_FACTOR = 0.5;
+    private static final double DEFAULT_SYNC_FACTOR = 0.5;
+    private static final double DEFAULT_ICONIFIED_FACTOR = 10;
+    private static final double DEFAULT_HIDDEN_FACTOR = 5;
+    private static final double DEFAULT_IDLE_FACTOR = 3;
+    private static final int DEFAULT_IDLE_AFTER_MS = 5 * 60 * 1000;
+    private static final int DEFAULT_MIN_INTERVAL_MS = 500;
+    private static final int DEFAULT_MAX_INTERVAL_MS = 10 * 60 * 1000;
+
+    private final int[] baseIntervals = new int[Poll.values().length];
+    private final double pendingFactor;
+    private final double syncFactor;
+    private final double iconifiedFactor;
+    private final double hiddenFactor;
+    private final double idleFactor;
+    private final int idleAfterMs;
+    private final int minIntervalMs;
+    private final int maxIntervalMs;
+
+    private volatile boolean iconified = false;
+    private volatile boolean overviewVisible = true;
+    private volatile boolean synchronizing = false;
+    private volatile long lastUserActivity = System.currentTimeMillis();
+    private final AtomicInteger pendingOperations = new AtomicInteger();
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * @param settingsFile optional properties overriding the defaults, created with the defaults if missing
+     */
+    PollingCadence(final File settingsFile) {
+        final Properties settings = loadSettings(settingsFile);
+        for (final Poll poll : Poll.values()) {
+            baseIntervals[poll.ordinal()] = getInt(settings, "interval." + poll.key, poll.defaultInterval);
+        }
+        pendingFactor = getDouble(settings, "factor.pending", DEFAULT_PENDING_FACTOR);
+        syncFactor = getDouble(settings, "factor.sync", DEFAULT_SYNC_FACTOR);
+        iconifiedFactor = getDouble(settings, "factor.iconified", DEFAULT_ICONIFIED_FACTOR);
+        hiddenFactor = getDouble(settings, "factor.hidden", DEFAULT_HIDDEN_FACTOR);
+        idleFactor = getDouble(settings, "factor.idle", DEFAULT_IDLE_FACTOR);
+        idleAfterMs = getInt(settings, "idle.after", DEFAULT_IDLE_AFTER_MS);
+        minIntervalMs = getInt(settings, "interval.min", DEFAULT_MIN_INTERVAL_MS);
+        maxIntervalMs = Math.max(minIntervalMs, getInt(settings, "interval.max", DEFAULT_MAX_INTERVAL_MS));
+    }
+
+    /**
+     * @return the interval in ms to wait before polling again, as of now
+     */
+    int getInterval(final Poll poll) {
+        double factor = 1;
+        if (iconified) {
+            factor *= iconifiedFactor;
+        } else if (poll.overviewOnly && !overviewVisible) {
+            factor *= hiddenFactor;
+        }
+        if (this.isIdle()) {
+            factor *= idleFactor;
+        }
+        if ((poll == Poll.WALLET_PROBE) && (pendingOperations.get() > 0)) {
+            factor *= pendingFactor;
+        }
+        if ((poll == Poll.NETWORK_INFO) && synchronizing) {
+            factor *= syncFactor;
+        }
+        final double interval = baseIntervals[poll.ordinal()] * factor;
+        return (int) Math.max(minIntervalMs, Math.min(maxIntervalMs, interval));
+    }
+
+    /**
+     * @param listener notified whenever intervals may have changed, e.g. to reschedule polling
+     */
+    void addListener(final Runnable listener) {
+        listeners.add(listener);
+    }
+
+    void setIconified(final boolean iconified) {
+        if (this.iconified != iconified) {
+            this.iconified = iconified;
+            this.fireChanged();
+        }
+    }
+
+    void setOverviewVisible(final boolean overviewVisible) {
+        if (this.overviewVisible != overviewVisible) {
+            this.overviewVisible = overviewVisible;
+            this.fireChanged();
+        }
+    }
+
+    void setSynchronizing(final boolean synchronizing) {
+        if (this.synchronizing != synchronizing) {
+            this.synchronizing = synchronizing;
+            this.fireChanged();
+        }
+    }
+
+    // Called on every user input, so it needs to be cheap
+    void userActive() {
+        final boolean wasIdle = this.isIdle();
+        lastUserActivity = System.currentTimeMillis();
+        if (wasIdle) {
+            this.fireChanged();
+        }
+    }
+
+    void operationStarted() {
+        if (pendingOperations.incrementAndGet() == 1) {
+            this.fireChanged();
+        }
+    }
+
+    void operationFinished() {
+        if (pendingOperations.decrementAndGet() == 0) {
+            this.fireChanged();
+        }
+    }
+
+    private boolean isIdle() {
+        return (System.currentTimeMillis() - lastUserActivity) > idleAfterMs;
+    }
+
+    private void fireChanged() {
+        for (final Runnable listener : listeners) {
+            listener.run();
+        }
+    }
+
+    private static Properties loadSettings(final File settingsFile) {
+        final Properties settings = new Properties();
+        if (!settingsFile.exists()) {
+            writeDefaultSettings(settingsFile);
+            return settings;
+        }
+        try (final Reader reader = new InputStreamReader(new FileInputStream(settingsFile), StandardCharsets.UTF_8)) {
+            settings.load(reader);
+        } catch (final IOException e) {
+            e.printStackTrace();
+            System.out.println("Loading " + settingsFile.getAbsolutePath() + " failed, using default polling intervals.");
+        }
+        return settings;
+    }
+
+    private static void writeDefaultSettings(final File settingsFile) {
+        try (final PrintWriter writer = new PrintWriter(new OutputStreamWriter(
+            new FileOutputStream(settingsFile), StandardCharsets.UTF_8
+        ))) {
+            writer.println("# How often the GUI wallet polls hushd - intervals are in ms");
+            for (final Poll poll : Poll.values()) {
+                writer.println("interval." + poll.key + "=" + poll.defaultInterval);
+            }
+            writer.println("interval.min=" + DEFAULT_MIN_INTERVAL_MS);
+            writer.println("interval.max=" + DEFAULT_MAX_INTERVAL_MS);
+            writer.println("# Intervals are multiplied by these factors while...");
+            writer.println("# ...a send operation is pending (wallet probe only)");
+            writer.println("factor.pending=" + DEFAULT_PENDING_FACTOR);
+            writer.println("# ...the blockchain is synchronizing (network info only)");
+            writer.println("factor.sync=" + DEFAULT_SYNC_FACTOR);
+            writer.println("# ...the window is iconified");
+            writer.println("factor.iconified=" + DEFAULT_ICONIFIED_FACTOR);
+            writer.println("# ...the overview tab is hidden (daemon and network info only)");
+            writer.println("factor.hidden=" + DEFAULT_HIDDEN_FACTOR);
+            writer.println("# ...there was no user input for idle.after ms");
+            writer.println("factor.idle=" + DEFAULT_IDLE_FACTOR);
+            writer.println("idle.after=" + DEFAULT_IDLE_AFTER_MS);
+        } catch (final IOException e) {
+            e.printStackTrace();
+            System.out.println("Writing " + settingsFile.getAbsolutePath() + " failed!");
+        }
+    }
+
+    private static int getInt(final Properties settings, final String key, final int defaultValue) {
+        final String value = settings.getProperty(key);
+        if (value != null) {
+            try {
+                return Integer.parseInt(value.trim());
+            } catch (final NumberFormatException e) {
+                System.out.println("Invalid polling setting " + key + "=" + value + ", using " + defaultValue);
+            }
+        }
+        return defaultValue;
+    }
+
+    private static double getDouble(final Properties settings, final String key, final double defaultValue) {
+        final String value = settings.getProperty(key);
+        if (value != null) {
+            try {
+                return Double.parseDouble(value.trim());
+            } catch (final NumberFormatException e) {
+                System.out.println("Invalid polling setting " + key + "=" + value + ", using " + defaultValue);
+            }
+        }
+        return defaultValue;
+    }
+}
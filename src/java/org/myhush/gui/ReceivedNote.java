@@ -0,0 +1,113 @@
+// Copyright (c) 2018 The Hush Developers <contact@myhush.org>
+//
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+package org.myhush.gui;
+
+import java.util.function.Consumer;
+
+/**
+ * An entry of the `z_listreceivedbyaddress` result - a note received by a Z address.
+ */
+final class ReceivedNote {
+    final String txID;
+    // Position of the note in the transaction: JoinSplit and its output for Sprout notes, output for Sapling ones.
+    // -1 where not applicable.
+    final int jsIndex;
+    final int jsOutIndex;
+    final int outIndex;
+    final long amount;
+    // Hex encoded, null if the daemon did not report it
+    final String memo;
+    final boolean change;
+
+    ReceivedNote(
+        final String txID,
+        final int jsIndex,
+        final int jsOutIndex,
+        final int outIndex,
+        final long amount,
+        final String memo,
+        final boolean change
+    ) {
+        this.txID = txID;
+        this.jsIndex = jsIndex;
+        this.jsOutIndex = jsOutIndex;
+        this.outIndex = outIndex;
+        this.amount = amount;
+        this.memo = memo;
+        this.change = change;
+    }
+
+    // Identifies the note within the wallet
+    String getKey() {
+        return txID + ":" + jsIndex + ":" + jsOutIndex + ":" + outIndex;
+    }
+
+    static class Decoder extends JsonRecordDecoder<ReceivedNote> {
+        private String txID;
+        private int jsIndex;
+        private int jsOutIndex;
+        private int outIndex;
+        private long amount;
+        private String memo;
+        private boolean change;
+
+        Decoder(final Consumer<? super ReceivedNote> sink) {
+            super(sink);
+        }
+
+        @Override
+        protected void startRecord() {
+            txID = null;
+            jsIndex = -1;
+            jsOutIndex = -1;
+            outIndex = -1;
+            amount = 0;
+            memo = null;
+            change = false;
+        }
+
+        @Override
+        protected void stringField(final String name, final String value) {
+            switch (name) {
+                case "txid":
+                    txID = value;
+                    break;
+                case "memo":
+                    memo = value;
+                    break;
+            }
+        }
+
+        @Override
+        protected void numberField(final String name, final String value) {
+            switch (name) {
+                case "amount":
+                    amount = Zatoshi.parse(value);
+                    break;
+                case "jsindex":
+                    jsIndex = Integer.parseInt(value);
+                    break;
+                case "jsoutindex":
+                    jsOutIndex = Integer.parseInt(value);
+                    break;
+                case "outindex":
+                    outIndex = Integer.parseInt(value);
+                    break;
+            }
+        }
+
+        @Override
+        protected void booleanField(final String name, final boolean value) {
+            if (name.equals("change")) {
+                change = value;
+            }
+        }
+
+        @Override
+        protected ReceivedNote endRecord() {
+            return new ReceivedNote(txID, jsIndex, jsOutIndex, outIndex, amount, memo, change);
+        }
+    }
+}
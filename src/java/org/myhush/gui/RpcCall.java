@@ -0,0 +1,25 @@
+// Copyright (c) 2018 The Hush Developers <contact@myhush.org>
+//
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+package org.myhush.gui;
+
+import java.util.Arrays;
+
+/**
+ * A single wallet RPC call, one element of a batch. Parameters are in `hush-cli` command line form.
+ */
+final class RpcCall {
+    final String method;
+    final String[] params;
+
+    RpcCall(final String method, final String... params) {
+        this.method = method;
+        this.params = params;
+    }
+
+    @Override
+    public String toString() {
+        return method + " " + Arrays.toString(params);
+    }
+}
@@ -0,0 +1,319 @@
+// Copyright (c) 2018 The Hush Developers <contact@myhush.org>
+//
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+package org.myhush.gui;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * A persistent HTTP/1.1 connection to the daemon's RPC port. Only the small subset of HTTP that `hushd` speaks
+ * is supported: POST requests with a fixed length body and responses delimited by Content-Length, chunked
+ * encoding or connection close.
+ */
+class RpcConnection implements Closeable {
+    private final Socket socket;
+    private final InputStream in;
+    private final OutputStream out;
+    private final String hostHeader;
+    private final int readTimeoutMs;
+
+    private long lastUsed;
+    private int requestCount = 0;
+    private boolean reusable = true;
+
+    RpcConnection(final String host, final int port, final int connectTimeoutMs, final int readTimeoutMs)
+            throws IOException {
+        this.socket = new Socket();
+        this.readTimeoutMs = readTimeoutMs;
+        try {
+            socket.setTcpNoDelay(true);
+            socket.setKeepAlive(true);
+            socket.connect(new InetSocketAddress(host, port), connectTimeoutMs);
+            socket.setSoTimeout(readTimeoutMs);
+            this.in = new BufferedInputStream(socket.getInputStream(), 16 * 1024);
+            this.out = new BufferedOutputStream(socket.getOutputStream(), 8 * 1024);
+        } catch (final IOException e) {
+            socket.close();
+            throw e;
+        }
+        this.hostHeader = host + ":" + port;
+        this.lastUsed = System.currentTimeMillis();
+    }
+
+    /**
+     * Sends a POST request and reads the response headers. The returned body must be read fully (or the
+     * connection closed) before the connection is used again.
+     *
+     * @throws RequestNotSentException if the request could not be written completely, so the daemon did not get it
+     */
+    Response post(final String authorization, final byte[] body) throws IOException {
+        requestCount++;
+        final String head =
+            "POST / HTTP/1.1\r\n" +
+            "Host: " + hostHeader + "\r\n" +
+            "Authorization: " + authorization + "\r\n" +
+            "Content-Type: application/json\r\n" +
+            "Content-Length: " + body.length + "\r\n" +
+            "Connection: keep-alive\r\n" +
+            "\r\n";
+        try {
+            out.write(head.getBytes(StandardCharsets.ISO_8859_1));
+            out.write(body);
+            out.flush();
+        } catch (final IOException e) {
+            throw new RequestNotSentException(e);
+        }
+
+        final String statusLine = readLine();
+        if (statusLine == null) {
+            throw new EOFException("Connection closed by daemon before a response was received");
+        }
+        // HTTP/1.1 200 OK
+        final String[] statusParts = statusLine.split(" ", 3);
+        if ((statusParts.length < 2) || !statusParts[0].startsWith("HTTP/")) {
+            throw new IOException("Malformed HTTP status line from daemon: " + statusLine);
+        }
+        final int status;
+        try {
+            status = Integer.parseInt(statusParts[1]);
+        } catch (final NumberFormatException e) {
+            throw new IOException("Malformed HTTP status line from daemon: " + statusLine);
+        }
+        boolean keepAlive = statusParts[0].equals("HTTP/1.1");
+        long contentLength = -1;
+        boolean chunked = false;
+        for (String header = readLine(); (header != null) && !header.isEmpty(); header = readLine()) {
+            final int colon = header.indexOf(':');
+            if (colon <= 0) {
+                continue;
+            }
+            final String name = header.substring(0, colon).trim().toLowerCase(Locale.ROOT);
+            final String value = header.substring(colon + 1).trim().toLowerCase(Locale.ROOT);
+            switch (name) {
+                case "content-length":
+                    contentLength = Long.parseLong(value);
+                    break;
+                case "transfer-encoding":
+                    chunked = value.contains("chunked");
+                    break;
+                case "connection":
+                    keepAlive = value.contains("keep-alive") || (keepAlive && !value.contains("close"));
+                    break;
+            }
+        }
+
+        final InputStream responseBody;
+        if (chunked) {
+            responseBody = new ChunkedBodyInputStream();
+        } else if (contentLength >= 0) {
+            responseBody = new FixedLengthBodyInputStream(contentLength);
+        } else {
+            // Delimited by the daemon closing the connection
+            keepAlive = false;
+            responseBody = new FixedLengthBodyInputStream(Long.MAX_VALUE);
+        }
+        reusable = keepAlive;
+        return new Response(status, responseBody);
+    }
+
+    /**
+     * Checks that the daemon has not closed the connection while it was idle in the pool.
+     */
+    boolean isHealthy() {
+        if (!reusable || socket.isClosed() || socket.isInputShutdown() || socket.isOutputShutdown()) {
+            return false;
+        }
+        try {
+            if (in.available() > 0) {
+                // Unsolicited data on an idle connection - cannot be trusted
+                return false;
+            }
+            socket.setSoTimeout(1);
+            try {
+                // Either unsolicited data or end of stream, i.e. closed by the daemon
+                in.read();
+                return false;
+            } catch (final SocketTimeoutException e) {
+                return true; // nothing to read and still open
+            } finally {
+                socket.setSoTimeout(readTimeoutMs);
+            }
+        } catch (final IOException e) {
+            return false;
+        }
+    }
+
+    boolean isReusable() {
+        return reusable;
+    }
+
+    long getLastUsed() {
+        return lastUsed;
+    }
+
+    void touch() {
+        lastUsed = System.currentTimeMillis();
+    }
+
+    int getRequestCount() {
+        return requestCount;
+    }
+
+    @Override
+    public void close() {
+        reusable = false;
+        try {
+            socket.close();
+        } catch (final IOException e) {
+            // Nothing more can be done
+        }
+    }
+
+    private String readLine() throws IOException {
+        final StringBuilder line = new StringBuilder();
+        int c;
+        while ((c = in.read()) >= 0) {
+            if (c == '\n') {
+                final int length = line.length();
+                if ((length > 0) && (line.charAt(length - 1) == '\r')) {
+                    line.setLength(length - 1);
+                }
+                return line.toString();
+            }
+            line.append((char) c);
+        }
+        return (line.length() > 0) ? line.toString() : null;
+    }
+
+    static class RequestNotSentException extends SocketException {
+        RequestNotSentException(final IOException cause) {
+            super("Request could not be sent to daemon: " + cause.getMessage());
+            this.initCause(cause);
+        }
+    }
+
+    static class Response {
+        final int status;
+        final InputStream body;
+
+        Response(final int status, final InputStream body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+
+    // Response body of a known length - closing it skips what has not been read to keep the connection usable.
+    // A length of Long.MAX_VALUE stands for a body delimited by connection close.
+    private class FixedLengthBodyInputStream extends InputStream {
+        private final boolean delimitedByClose;
+        private long remaining;
+
+        FixedLengthBodyInputStream(final long length) {
+            this.delimitedByClose = (length == Long.MAX_VALUE);
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            final int c = in.read();
+            if (c < 0) {
+                return endOfStream();
+            }
+            remaining--;
+            return c;
+        }
+
+        @Override
+        public int read(final byte[] buffer, final int offset, final int length) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            final int read = in.read(buffer, offset, (int) Math.min(length, remaining));
+            if (read < 0) {
+                return endOfStream();
+            }
+            remaining -= read;
+            return read;
+        }
+
+        private int endOfStream() throws EOFException {
+            reusable = false;
+            if (!delimitedByClose) {
+                throw new EOFException("Connection closed with " + remaining + " bytes of the response missing");
+            }
+            remaining = 0;
+            return -1;
+        }
+
+        @Override
+        public void close() throws IOException {
+            drain(this);
+        }
+    }
+
+    // Response body in chunked transfer encoding
+    private class ChunkedBodyInputStream extends InputStream {
+        private long chunkRemaining = 0;
+        private boolean finished = false;
+
+        @Override
+        public int read() throws IOException {
+            final byte[] single = new byte[1];
+            return (read(single, 0, 1) < 0) ? -1 : (single[0] & 0xFF);
+        }
+
+        @Override
+        public int read(final byte[] buffer, final int offset, final int length) throws IOException {
+            if (finished) {
+                return -1;
+            }
+            if (chunkRemaining == 0) {
+                final String sizeLine = readLine();
+                if (sizeLine == null) {
+                    throw new EOFException("Connection closed inside a chunked response");
+                }
+                final int extension = sizeLine.indexOf(';');
+                chunkRemaining = Long.parseLong((extension >= 0 ? sizeLine.substring(0, extension) : sizeLine).trim(), 16);
+                if (chunkRemaining == 0) {
+                    // Skip trailers up to the terminating empty line
+                    for (String trailer = readLine(); (trailer != null) && !trailer.isEmpty(); trailer = readLine()) {
+                        // ignored
+                    }
+                    finished = true;
+                    return -1;
+                }
+            }
+            final int read = in.read(buffer, offset, (int) Math.min(length, chunkRemaining));
+            if (read < 0) {
+                throw new EOFException("Connection closed inside a chunked response");
+            }
+            chunkRemaining -= read;
+            if (chunkRemaining == 0) {
+                readLine(); // CRLF after the chunk data
+            }
+            return read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            drain(this);
+        }
+    }
+
+    private static void drain(final InputStream body) throws IOException {
+        final byte[] buffer = new byte[4096];
+        while (body.read(buffer, 0, buffer.length) >= 0) {
+            // discard
+        }
+    }
+}
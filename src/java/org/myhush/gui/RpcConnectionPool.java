@@ -0,0 +1,220 @@
+// Copyright (c) 2018 The Hush Developers <contact@myhush.org>
+//
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+package org.myhush.gui;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded pool of keep-alive connections to the daemon's RPC port.
+ * <p>
+ * At most {@code maxConnections} connections are in use at any time - further callers wait for one to be released.
+ * Idle connections are closed after {@code idleTimeoutMs}, which should be below the daemon's `-rpcservertimeout`
+ * (30 seconds by default) so that the daemon rarely closes a connection the pool still considers usable.
+ * Connections that were idle for a while are checked before being handed out again.
+ */
+class RpcConnectionPool {
+    static final int DEFAULT_MAX_CONNECTIONS = 4;
+    static final long DEFAULT_IDLE_TIMEOUT_MS = 15 * 1000;
+    // Connections used more recently than this are handed out without a health check
+    private static final long HEALTH_CHECK_AFTER_IDLE_MS = 1000;
+    private static final long STATISTICS_LOG_INTERVAL_MS = 10 * 60 * 1000;
+
+    private final String host;
+    private final int port;
+    private final int connectTimeoutMs;
+    private final int readTimeoutMs;
+    private final long idleTimeoutMs;
+    private final Semaphore permits;
+    // Most recently used connection first
+    private final Deque<RpcConnection> idle = new ArrayDeque<>();
+
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong reused = new AtomicLong();
+    private final AtomicLong evictedIdle = new AtomicLong();
+    private final AtomicLong failedHealthChecks = new AtomicLong();
+    private final AtomicLong discarded = new AtomicLong();
+    private final AtomicLong waitedForConnection = new AtomicLong();
+    private volatile long lastStatisticsLog = System.currentTimeMillis();
+
+    RpcConnectionPool(
+        final String host,
+        final int port,
+        final int connectTimeoutMs,
+        final int readTimeoutMs,
+        final int maxConnections,
+        final long idleTimeoutMs
+    ) {
+        this.host = host;
+        this.port = port;
+        this.connectTimeoutMs = connectTimeoutMs;
+        this.readTimeoutMs = readTimeoutMs;
+        this.idleTimeoutMs = idleTimeoutMs;
+        this.permits = new Semaphore(maxConnections, true);
+    }
+
+    /**
+     * Borrows a connection, opening a new one if no healthy idle connection is available. The connection must be
+     * given back by {@link #release(RpcConnection)}.
+     */
+    RpcConnection acquire() throws IOException, InterruptedException {
+        return acquire(true);
+    }
+
+    /**
+     * Borrows a newly opened connection, e.g. to retry a request that failed on a reused one.
+     */
+    RpcConnection acquireNew() throws IOException, InterruptedException {
+        return acquire(false);
+    }
+
+    private RpcConnection acquire(final boolean reuseIdle) throws IOException, InterruptedException {
+        if (!permits.tryAcquire()) {
+            waitedForConnection.incrementAndGet();
+            permits.acquire();
+        }
+        try {
+            RpcConnection idleConnection;
+            while (reuseIdle && ((idleConnection = pollIdle()) != null)) {
+                final boolean needsCheck =
+                    (System.currentTimeMillis() - idleConnection.getLastUsed()) > HEALTH_CHECK_AFTER_IDLE_MS;
+                if (!needsCheck || idleConnection.isHealthy()) {
+                    reused.incrementAndGet();
+                    return idleConnection;
+                }
+                failedHealthChecks.incrementAndGet();
+                idleConnection.close();
+            }
+            final RpcConnection connection = new RpcConnection(host, port, connectTimeoutMs, readTimeoutMs);
+            created.incrementAndGet();
+            return connection;
+        } catch (final IOException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Gives a borrowed connection back. Connections the daemon asked to close, or that failed, are closed.
+     */
+    void release(final RpcConnection connection) {
+        try {
+            if (connection.isReusable()) {
+                connection.touch();
+                synchronized (idle) {
+                    idle.addFirst(connection);
+                }
+            } else {
+                discarded.incrementAndGet();
+                connection.close();
+            }
+        } finally {
+            permits.release();
+        }
+        evictIdle();
+        logStatisticsPeriodically();
+    }
+
+    /**
+     * Closes a borrowed connection that is in an unknown state (e.g. after an I/O error) and returns its slot.
+     */
+    void discard(final RpcConnection connection) {
+        connection.close();
+        discarded.incrementAndGet();
+        permits.release();
+    }
+
+    /**
+     * Closes all idle connections.
+     */
+    void close() {
+        synchronized (idle) {
+            for (final RpcConnection connection : idle) {
+                connection.close();
+            }
+            idle.clear();
+        }
+    }
+
+    Statistics getStatistics() {
+        final int idleCount;
+        synchronized (idle) {
+            idleCount = idle.size();
+        }
+        return new Statistics(
+            created.get(), reused.get(), evictedIdle.get(), failedHealthChecks.get(), discarded.get(),
+            waitedForConnection.get(), idleCount
+        );
+    }
+
+    private RpcConnection pollIdle() {
+        synchronized (idle) {
+            return idle.pollFirst();
+        }
+    }
+
+    private void evictIdle() {
+        final long now = System.currentTimeMillis();
+        synchronized (idle) {
+            // Least recently used connections are at the end
+            for (final Iterator<RpcConnection> it = idle.descendingIterator(); it.hasNext(); ) {
+                final RpcConnection connection = it.next();
+                if ((now - connection.getLastUsed()) <= idleTimeoutMs) {
+                    break;
+                }
+                it.remove();
+                connection.close();
+                evictedIdle.incrementAndGet();
+            }
+        }
+    }
+
+    private void logStatisticsPeriodically() {
+        final long now = System.currentTimeMillis();
+        if ((now - lastStatisticsLog) > STATISTICS_LOG_INTERVAL_MS) {
+            lastStatisticsLog = now;
+            System.out.println("RPC connection pool " + host + ":" + port + ": " + getStatistics());
+        }
+    }
+
+    static class Statistics {
+        final long created;
+        final long reused;
+        final long evictedIdle;
+        final long failedHealthChecks;
+        final long discarded;
+        final long waitedForConnection;
+        final int idle;
+
+        Statistics(
+            final long created,
+            final long reused,
+            final long evictedIdle,
+            final long failedHealthChecks,
+            final long discarded,
+            final long waitedForConnection,
+            final int idle
+        ) {
+            this.created = created;
+            this.reused = reused;
+            this.evictedIdle = evictedIdle;
+            this.failedHealthChecks = failedHealthChecks;
+            this.discarded = discarded;
+            this.waitedForConnection = waitedForConnection;
+            this.idle = idle;
+        }
+
+        @Override
+        public String toString() {
+            return "created=" + created + ", reused=" + reused + ", evictedIdle=" + evictedIdle +
+                   ", failedHealthChecks=" + failedHealthChecks + ", discarded=" + discarded +
+                   ", waitedForConnection=" + waitedForConnection + ", idle=" + idle;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+// Copyright (c) 2018 The Hush Developers <contact@myhush.org>
+//
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+package org.myhush.gui;
+
+import com.eclipsesource.json.Json;
+import com.eclipsesource.json.JsonArray;
+import com.eclipsesource.json.ParseException;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Converts `hush-cli` style textual parameters to JSON-RPC parameters.
+ * <p>
+ * The table mirrors `vRPCConvertParams` of the daemon's RPC client: the listed parameters are parsed as JSON,
+ * all others are passed as strings. This keeps calls made directly to the daemon identical to those made via
+ * `hush-cli`.
+ */
+final class RpcParameters {
+    private static final Set<String> JSON_PARAMETERS = new HashSet<>();
+    static {
+        add("stop", 0);
+        add("getaddednodeinfo", 0);
+        add("setgenerate", 0, 1);
+        add("generate", 0);
+        add("getnetworkhashps", 0, 1);
+        add("getnetworksolps", 0, 1);
+        add("sendtoaddress", 1, 4);
+        add("settxfee", 0);
+        add("getreceivedbyaddress", 1);
+        add("listreceivedbyaddress", 0, 1, 2);
+        add("getbalance", 1, 2);
+        add("getblockhash", 0);
+        add("listtransactions", 1, 2, 3);
+        add("walletpassphrase", 1);
+        add("listsinceblock", 1, 2);
+        add("sendmany", 1, 2, 4);
+        add("listunspent", 0, 1, 2);
+        add("getblock", 1);
+        add("getblockheader", 1);
+        add("gettransaction", 1);
+        add("getrawtransaction", 1);
+        add("gettxout", 1, 2);
+        add("lockunspent", 0, 1);
+        add("importprivkey", 2);
+        add("importaddress", 2);
+        add("keypoolrefill", 0);
+        add("getrawmempool", 0);
+        add("getblocksubsidy", 0);
+        add("z_listreceivedbyaddress", 1);
+        add("z_getbalance", 1);
+        add("z_gettotalbalance", 0, 1);
+        add("z_sendmany", 1, 2, 3);
+        add("z_getoperationstatus", 0);
+        add("z_getoperationresult", 0);
+        add("z_importkey", 2);
+        add("z_importviewingkey", 2);
+        add("z_listunspent", 0, 1, 2, 3);
+    }
+
+    private RpcParameters() {
+    }
+
+    private static void add(final String method, final int... indexes) {
+        for (final int index : indexes) {
+            JSON_PARAMETERS.add(method + "/" + index);
+        }
+    }
+
+    static JsonArray toJson(final String method, final String... params) throws HushCommandLineBridge.WalletCallException {
+        final JsonArray jsonParams = new JsonArray();
+        for (int i = 0; i < params.length; i++) {
+            if (JSON_PARAMETERS.contains(method + "/" + i)) {
+                try {
+                    jsonParams.add(Json.parse(params[i]));
+                } catch (final ParseException e) {
+                    throw new HushCommandLineBridge.WalletCallException(
+                        "Error parsing JSON parameter " + i + " of " + method + ": " + params[i], e
+                    );
+                }
+            } else {
+                jsonParams.add(params[i]);
+            }
+        }
+        return jsonParams;
+    }
+}
@@ -0,0 +1,194 @@
+// Copyright (c) 2018 The Hush Developers <contact@myhush.org>
+//
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+package org.myhush.gui;
+
+import com.eclipsesource.json.JsonHandler;
+import com.eclipsesource.json.JsonObject;
+
+/**
+ * Handles the parser events of a JSON-RPC response envelope, {"result": ..., "error": ..., "id": ...}. Events of the
+ * result are passed on to a decoder, the error is kept to be reported by {@link #checkError()}.
+ */
+class RpcResponseHandler extends JsonHandler<Object, Object> {
+    private static final Object ENVELOPE = new Object();
+    private static final Object ERROR = new Object();
+    private static final Object OTHER = new Object();
+
+    private final JsonHandler<Object, Object> resultDecoder;
+    private int depth = 0;
+    private boolean inResult = false;
+    private boolean inError = false;
+    private boolean hasError = false;
+    private String errorField = null;
+    private int errorCode = 0;
+    private String errorMessage = "";
+
+    RpcResponseHandler(final JsonHandler<Object, Object> resultDecoder) {
+        this.resultDecoder = resultDecoder;
+    }
+
+    /**
+     * @throws HushCommandLineBridge.WalletErrorException if the response carried an error
+     */
+    void checkError() throws HushCommandLineBridge.WalletErrorException {
+        if (hasError) {
+            final JsonObject error = new JsonObject().add("code", errorCode).add("message", errorMessage);
+            throw new HushCommandLineBridge.WalletErrorException(
+                "Error response from wallet: error: " + error.toString(), errorCode, errorMessage
+            );
+        }
+    }
+
+    @Override
+    public void startNull() {
+        if (inResult) {
+            resultDecoder.startNull();
+        }
+    }
+
+    @Override
+    public void endNull() {
+        if (inResult) {
+            resultDecoder.endNull();
+        }
+    }
+
+    @Override
+    public void startBoolean() {
+        if (inResult) {
+            resultDecoder.startBoolean();
+        }
+    }
+
+    @Override
+    public void endBoolean(final boolean value) {
+        if (inResult) {
+            resultDecoder.endBoolean(value);
+        }
+    }
+
+    @Override
+    public void startString() {
+        if (inResult) {
+            resultDecoder.startString();
+        }
+    }
+
+    @Override
+    public void endString(final String string) {
+        if (inResult) {
+            resultDecoder.endString(string);
+        } else if (inError) {
+            hasError = true;
+            if (errorField == null || errorField.equals("message")) {
+                errorMessage = string;
+            }
+        }
+    }
+
+    @Override
+    public void startNumber() {
+        if (inResult) {
+            resultDecoder.startNumber();
+        }
+    }
+
+    @Override
+    public void endNumber(final String string) {
+        if (inResult) {
+            resultDecoder.endNumber(string);
+        } else if (inError && "code".equals(errorField)) {
+            errorCode = Integer.parseInt(string);
+        }
+    }
+
+    @Override
+    public Object startArray() {
+        depth++;
+        return inResult ? resultDecoder.startArray() : OTHER;
+    }
+
+    @Override
+    public void endArray(final Object array) {
+        depth--;
+        if (inResult) {
+            resultDecoder.endArray(array);
+        }
+    }
+
+    @Override
+    public void startArrayValue(final Object array) {
+        if (inResult) {
+            resultDecoder.startArrayValue(array);
+        }
+    }
+
+    @Override
+    public void endArrayValue(final Object array) {
+        if (inResult) {
+            resultDecoder.endArrayValue(array);
+        }
+    }
+
+    @Override
+    public Object startObject() {
+        depth++;
+        if (inResult) {
+            return resultDecoder.startObject();
+        } else if (depth == 1) {
+            return ENVELOPE;
+        } else if (inError && (depth == 2)) {
+            hasError = true;
+            return ERROR;
+        }
+        return OTHER;
+    }
+
+    @Override
+    public void endObject(final Object object) {
+        depth--;
+        if (inResult) {
+            resultDecoder.endObject(object);
+        }
+    }
+
+    @Override
+    public void startObjectName(final Object object) {
+        if (inResult) {
+            resultDecoder.startObjectName(object);
+        }
+    }
+
+    @Override
+    public void endObjectName(final Object object, final String name) {
+        if (inResult) {
+            resultDecoder.endObjectName(object, name);
+        }
+    }
+
+    @Override
+    public void startObjectValue(final Object object, final String name) {
+        if (object == ENVELOPE) {
+            inResult = name.equals("result");
+            inError = name.equals("error");
+        } else if (object == ERROR) {
+            errorField = name;
+        } else if (inResult) {
+            resultDecoder.startObjectValue(object, name);
+        }
+    }
+
+    @Override
+    public void endObjectValue(final Object object, final String name) {
+        if (object == ENVELOPE) {
+            inResult = false;
+            inError = false;
+        } else if (object == ERROR) {
+            errorField = null;
+        } else if (inResult) {
+            resultDecoder.endObjectValue(object, name);
+        }
+    }
+}
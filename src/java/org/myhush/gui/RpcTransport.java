@@ -0,0 +1,55 @@
+// Copyright (c) 2018 The Hush Developers <contact@myhush.org>
+//
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+package org.myhush.gui;
+
+import com.eclipsesource.json.JsonHandler;
+import com.eclipsesource.json.JsonValue;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * A way of issuing wallet RPC calls to `hushd`.
+ * <p>
+ * Parameters are given in the same textual form `hush-cli` accepts on its command line; each transport
+ * is responsible for converting them to whatever the daemon expects.
+ */
+interface RpcTransport {
+    /**
+     * Issues a single call and returns its result.
+     *
+     * @param method the RPC method, e.g. "getinfo"
+     * @param params the method parameters in `hush-cli` command line form
+     * @return the result of the call, {@link com.eclipsesource.json.Json#NULL} if the call returned nothing
+     * @throws HushCommandLineBridge.WalletErrorException      if the daemon returned an error for the call
+     * @throws HushCommandLineBridge.DaemonConnectionException if the daemon could not be reached
+     */
+    JsonValue call(final String method, final String... params)
+            throws HushCommandLineBridge.WalletCallException, IOException, InterruptedException;
+
+    /**
+     * Issues a single call and feeds its result to a streaming decoder as parser events, without building the
+     * result as a JSON tree.
+     *
+     * @param resultDecoder receives the parser events of the result
+     * @param method        the RPC method, e.g. "listunspent"
+     * @param params        the method parameters in `hush-cli` command line form
+     * @throws HushCommandLineBridge.WalletErrorException      if the daemon returned an error for the call
+     * @throws HushCommandLineBridge.DaemonConnectionException if the daemon could not be reached
+     */
+    void callAndDecode(final JsonHandler<Object, Object> resultDecoder, final String method, final String... params)
+            throws HushCommandLineBridge.WalletCallException, IOException, InterruptedException;
+
+    /**
+     * Issues several calls at once, as a single JSON-RPC batch where the transport supports it.
+     *
+     * @param calls the calls to issue
+     * @return the results in the order of the calls
+     * @throws HushCommandLineBridge.WalletErrorException      if the daemon returned an error for any of the calls
+     * @throws HushCommandLineBridge.DaemonConnectionException if the daemon could not be reached
+     */
+    List<JsonValue> callBatch(final List<RpcCall> calls)
+            throws HushCommandLineBridge.WalletCallException, IOException, InterruptedException;
+}
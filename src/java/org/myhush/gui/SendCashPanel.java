@@ -10,7 +10,6 @@ import javax.swing.Timer;
 import javax.swing.border.EtchedBorder;
 import java.awt.*;
 import java.awt.datatransfer.DataFlavor;
-import java.awt.event.ActionListener;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.io.IOException;
@@ -20,12 +19,13 @@ import java.util.List;
 
 class SendCashPanel extends WalletTabPanel {
     private final HushCommandLineBridge cliBridge;
+    private final WalletStateService walletState;
+    private final PollingCadence cadence;
     private final StatusUpdateErrorReporter errorReporter;
 
     private JComboBox balanceAddressCombo;
     private final JPanel comboBoxParentPanel;
     private String[][] lastAddressBalanceData = null;
-    private final DataGatheringThread<String[][]> addressBalanceGatheringThread;
 
     private final JTextField destinationAddressField;
     private final JTextField destinationAmountField;
@@ -39,13 +39,18 @@ class SendCashPanel extends WalletTabPanel {
     private Timer operationStatusTimer = null;
     private String operationStatusID = null;
     private int operationStatusCounter = 0;
-
-    // Table of validated addresses with their validation result. An invalid or watch-only address should not be shown
-    // and should be remembered as invalid here
-    private final Map<String, Boolean> validationMap = new HashMap<>();
-
-    SendCashPanel(final HushCommandLineBridge cliBridge, final StatusUpdateErrorReporter errorReporter) {
+    // Whether the cadence was told of the operation in progress and not yet of its end
+    private boolean operationPending = false;
+
+    SendCashPanel(
+        final HushCommandLineBridge cliBridge,
+        final WalletStateService walletState,
+        final PollingCadence cadence,
+        final StatusUpdateErrorReporter errorReporter
+    ) {
         this.cliBridge = cliBridge;
+        this.walletState = walletState;
+        this.cadence = cadence;
         this.errorReporter = errorReporter;
 
         // Build content
@@ -206,32 +211,19 @@ class SendCashPanel extends WalletTabPanel {
             }
         });
 
-        // Update the balances via timer and data gathering thread
-        this.addressBalanceGatheringThread = new DataGatheringThread<>(
-                () -> {
-                    final long start = System.currentTimeMillis();
-                    final String[][] data = SendCashPanel.this.getAddressPositiveBalanceDataFromWallet();
-                    final long end = System.currentTimeMillis();
-                    System.out.println("Gathering of address/balance table data done in " + (end - start) + "ms.");
-                    return data;
-                },
-                this.errorReporter, 10000, true
-        );
-        this.threads.add(addressBalanceGatheringThread);
-
-        final ActionListener alBalancesUpdater = event -> {
+        // Update the balances as the shared wallet state is gathered
+        if (walletState.getState() != null) {
+            this.updateWalletAddressPositiveBalanceComboBox(walletState.getState());
+        }
+        walletState.addListener(state -> {
             try {
                 // TODO: if the user has opened the combo box - this closes it (maybe fix)
-                SendCashPanel.this.updateWalletAddressPositiveBalanceComboBox();
+                SendCashPanel.this.updateWalletAddressPositiveBalanceComboBox(state);
             } catch (final Exception e) {
                 e.printStackTrace();
                 SendCashPanel.this.errorReporter.reportError(e);
             }
-        };
-        final Timer timerBalancesUpdater = new Timer(15000, alBalancesUpdater);
-        timerBalancesUpdater.setInitialDelay(3000);
-        timerBalancesUpdater.start();
-        this.timers.add(timerBalancesUpdater);
+        });
 
         // Add a popup menu to the destination address field - for convenience
         final JMenuItem paste = new JMenuItem("Paste address");
@@ -397,24 +389,29 @@ class SendCashPanel extends WalletTabPanel {
                         );
                     }
 
-                    // Lock the wallet again
-                    if (walletIsEncrypted) {
-                        SendCashPanel.this.cliBridge.lockWallet();
+                    try {
+                        // Lock the wallet again
+                        if (walletIsEncrypted) {
+                            SendCashPanel.this.cliBridge.lockWallet();
+                        }
+                    } finally {
+                        // Even if locking failed, the operation is over and its status is not checked again
+                        SendCashPanel.this.finishOperation();
+
+                        // Restore controls etc.
+                        operationStatusCounter = 0;
+                        operationStatusID = null;
+                        operationStatusTimer.stop();
+                        operationStatusTimer = null;
+                        operationStatusProhgressBar.setValue(0);
+
+                        sendButton.setEnabled(true);
+                        balanceAddressCombo.setEnabled(true);
+                        destinationAddressField.setEnabled(true);
+                        destinationAmountField.setEnabled(true);
+                        transactionFeeField.setEnabled(true);
+                        destinationMemoField.setEnabled(true);
                     }
-
-                    // Restore controls etc.
-                    operationStatusCounter = 0;
-                    operationStatusID = null;
-                    operationStatusTimer.stop();
-                    operationStatusTimer = null;
-                    operationStatusProhgressBar.setValue(0);
-
-                    sendButton.setEnabled(true);
-                    balanceAddressCombo.setEnabled(true);
-                    destinationAddressField.setEnabled(true);
-                    destinationAmountField.setEnabled(true);
-                    transactionFeeField.setEnabled(true);
-                    destinationMemoField.setEnabled(true);
                 } else {
                     // Update the progress
                     operationStatusLabel.setText("<html><span style=\"color:orange;font-weight:bold\">IN PROGRESS</span></html>");
@@ -435,6 +432,18 @@ class SendCashPanel extends WalletTabPanel {
         });
         operationStatusTimer.setInitialDelay(0);
         operationStatusTimer.start();
+        this.cadence.operationStarted();
+        operationPending = true;
+    }
+
+    // Once per operation - on the event dispatch thread
+    private void finishOperation() {
+        if (operationPending) {
+            operationPending = false;
+            cadence.operationFinished();
+            // Balances and transactions changed - no need to wait for the next scheduled refresh
+            walletState.refreshNow();
+        }
     }
 
 
@@ -443,14 +452,8 @@ class SendCashPanel extends WalletTabPanel {
     }
 
 
-    private void updateWalletAddressPositiveBalanceComboBox() {
-        final String[][] newAddressBalanceData = this.addressBalanceGatheringThread.getLastData();
-
-        // The data may be null if nothing is yet obtained
-        if (newAddressBalanceData == null) {
-            return;
-        }
-        lastAddressBalanceData = newAddressBalanceData;
+    private void updateWalletAddressPositiveBalanceComboBox(final WalletState state) {
+        lastAddressBalanceData = this.getAddressPositiveBalanceData(state);
 
         final String[] comboBoxItems = new String[lastAddressBalanceData.length];
         for (int i = 0; i < lastAddressBalanceData.length; i++) {
@@ -477,49 +480,11 @@ class SendCashPanel extends WalletTabPanel {
     }
 
 
-    private String[][] getAddressPositiveBalanceDataFromWallet()
-            throws HushCommandLineBridge.WalletCallException, IOException, InterruptedException {
-        // Z Addresses - they are OK
-        final String[] zAddresses = cliBridge.getWalletZAddresses();
-
-        // T Addresses created inside wallet that may be empty
-        final String[] tAddresses = this.cliBridge.getWalletAllPublicAddresses();
-        final Set<String> tStoredAddressSet = new HashSet<>();
-        Collections.addAll(tStoredAddressSet, tAddresses);
-
-        // T addresses with unspent outputs (even if not GUI created)...
-        final String[] tAddressesWithUnspentOuts = this.cliBridge.getWalletPublicAddressesWithUnspentOutputs();
-        final Set<String> tAddressSetWithUnspentOuts = new HashSet<>();
-        Collections.addAll(tAddressSetWithUnspentOuts, tAddressesWithUnspentOuts);
-
-        // Combine all known addresses
-        final Set<String> allAddresses = new HashSet<>();
-        allAddresses.addAll(tStoredAddressSet);
-        allAddresses.addAll(tAddressSetWithUnspentOuts);
-
+    private String[][] getAddressPositiveBalanceData(final WalletState state) {
         final List<String[]> addressBalances = new ArrayList<>();
-
-        for (final String address : allAddresses) {
-            // Make sure the current address is not watch-only or invalid
-            if (!this.validationMap.containsKey(address)) {
-                final boolean validationResult = this.cliBridge.isWatchOnlyOrInvalidAddress(address);
-                this.validationMap.put(address, validationResult);
-            }
-
-            final boolean watchOnlyOrInvalid = this.validationMap.get(address);
-            if (!watchOnlyOrInvalid) {
-                final String balance = cliBridge.getBalanceForAddress(address);
-                if (Double.valueOf(balance) > 0) {
-                    addressBalances.add(new String[]{ balance, address });
-                }
-            }
-        }
-        
-        // Z addresses can't be handled above as they will be flagged as invalid.
-        for (final String address : zAddresses) {
-            final String balance = this.cliBridge.getBalanceForAddress(address);
-            if (Double.valueOf(balance) > 0) {
-                addressBalances.add(new String[]{ balance, address });
+        for (final Map.Entry<String, AddressBalance> balance : state.addressBalances.entrySet()) {
+            if (balance.getValue().confirmed > 0) {
+                addressBalances.add(new String[]{ Zatoshi.toPlainString(balance.getValue().confirmed), balance.getKey() });
             }
         }
 
@@ -0,0 +1,98 @@
+// Copyright (c) 2018 The Hush Developers <contact@myhush.org>
+//
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+package org.myhush.gui;
+
+import javax.swing.*;
+import java.awt.*;
+
+/**
+ * Small line chart of one metric of the {@link DaemonMetricsHistory}, without axes. Each pixel column shows the
+ * highest value of the slots it covers, so short spikes remain visible; slots without values leave gaps.
+ */
+class Sparkline extends JComponent {
+    private static final Color LINE_COLOR = new Color(40, 90, 160);
+    private static final Color BASE_COLOR = new Color(200, 200, 205);
+
+    private final DaemonMetricsHistory history;
+    private final DaemonMetricsHistory.Metric metric;
+    private final String unit;
+    private final float[] values;
+
+    Sparkline(final DaemonMetricsHistory history, final DaemonMetricsHistory.Metric metric, final String unit) {
+        this.history = history;
+        this.metric = metric;
+        this.unit = unit;
+        this.values = new float[history.getCapacity()];
+        this.setPreferredSize(new Dimension(96, 22));
+        this.setOpaque(false);
+    }
+
+    // Takes the latest history - to be called on the event dispatch thread
+    void update() {
+        history.copy(metric, values);
+        float max = 0;
+        float latest = Float.NaN;
+        for (final float value : values) {
+            if (!Float.isNaN(value)) {
+                max = Math.max(max, value);
+                latest = value;
+            }
+        }
+        final long hours = (history.getCapacity() * history.getResolutionMs()) / (60 * 60 * 1000);
+        this.setToolTipText(
+            Float.isNaN(latest) ? null : String.format("Last %d h - now: %.1f %s, max: %.1f %s", hours, latest, unit, max, unit)
+        );
+        this.repaint();
+    }
+
+    @Override
+    protected void paintComponent(final Graphics graphics) {
+        final int width = this.getWidth();
+        final int height = this.getHeight() - 2;
+        if ((width < 2) || (height < 2)) {
+            return;
+        }
+        float max = 0;
+        for (final float value : values) {
+            if (!Float.isNaN(value)) {
+                max = Math.max(max, value);
+            }
+        }
+
+        final Graphics2D graphics2D = (Graphics2D) graphics;
+        graphics2D.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        graphics2D.setColor(BASE_COLOR);
+        graphics2D.drawLine(0, height, width - 1, height);
+        if (max <= 0) {
+            return;
+        }
+
+        graphics2D.setColor(LINE_COLOR);
+        int lastX = -1;
+        int lastY = -1;
+        for (int x = 0; x < width; x++) {
+            final int from = (int) ((long) x * values.length / width);
+            final int to = Math.max(from + 1, (int) ((long) (x + 1) * values.length / width));
+            float columnMax = Float.NaN;
+            for (int i = from; i < to; i++) {
+                if (!Float.isNaN(values[i]) && (Float.isNaN(columnMax) || (values[i] > columnMax))) {
+                    columnMax = values[i];
+                }
+            }
+            if (Float.isNaN(columnMax)) {
+                lastX = -1;
+                continue;
+            }
+            final int y = height - Math.round((columnMax / max) * (height - 1));
+            if (lastX >= 0) {
+                graphics2D.drawLine(lastX, lastY, x, y);
+            } else {
+                graphics2D.drawLine(x, y, x, y);
+            }
+            lastX = x;
+            lastY = y;
+        }
+    }
+}
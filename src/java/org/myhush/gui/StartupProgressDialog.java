@@ -8,6 +8,7 @@ package org.myhush.gui;
 
 import com.eclipsesource.json.JsonObject;
 import com.eclipsesource.json.JsonValue;
+import org.myhush.gui.environment.system.DaemonInfoProvider;
 
 import javax.swing.*;
 import java.awt.*;
@@ -22,9 +23,11 @@ class StartupProgressDialog extends JFrame {
 
     private final JLabel progressLabel = new JLabel();
     private final HushCommandLineBridge cliBridge;
+    private final DaemonInfoProvider daemonInfoProvider;
 
-    StartupProgressDialog(final HushCommandLineBridge cliBridge) {
+    StartupProgressDialog(final HushCommandLineBridge cliBridge, final DaemonInfoProvider daemonInfoProvider) {
         this.cliBridge = cliBridge;
+        this.daemonInfoProvider = daemonInfoProvider;
 
         final URL iconUrl = this.getClass().getClassLoader().getResource("images/hush-logo.png");
         final JLabel imageLabel = new JLabel();
@@ -78,6 +81,7 @@ class StartupProgressDialog extends JFrame {
      */
     private Process startDaemon(boolean performReindex) throws IOException, InterruptedException, DaemonStartupFailureException {
         final Process daemonProcess = cliBridge.startDaemon(performReindex);
+        daemonInfoProvider.watchDaemonProcess(daemonProcess);
 
         final String loadingMessage = "Waiting for daemon to start...";
         setProgressText(loadingMessage);
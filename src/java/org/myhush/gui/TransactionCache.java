@@ -0,0 +1,176 @@
+// Copyright (c) 2018 The Hush Developers <contact@myhush.org>
+//
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+package org.myhush.gui;
+
+import com.eclipsesource.json.JsonObject;
+import com.eclipsesource.json.JsonValue;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Least recently used cache of `gettransaction` results, keyed by txid.
+ * <p>
+ * Once a transaction is buried deep enough it is not expected to change, and its result is kept as is. Its block
+ * height is derived at fetch time, so its confirmations follow from the current tip, which is fetched along with
+ * any missing transactions. Shallower and unconfirmed transactions are fetched again on every lookup.
+ */
+class TransactionCache {
+    static final int DEFAULT_MAX_ENTRIES = 2000;
+    // Transactions with at least this many confirmations are not fetched again
+    static final int DEFAULT_FINAL_CONFIRMATIONS = 10;
+    private static final long STATISTICS_LOG_INTERVAL_MS = 10 * 60 * 1000;
+
+    private final HushCommandLineBridge bridge;
+    private final int maxEntries;
+    private final int finalConfirmations;
+    private final Map<String, CachedTransaction> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private volatile long lastStatisticsLog = System.currentTimeMillis();
+
+    TransactionCache(final HushCommandLineBridge bridge, final int maxEntries, final int finalConfirmations) {
+        this.bridge = bridge;
+        this.maxEntries = maxEntries;
+        this.finalConfirmations = finalConfirmations;
+        this.entries = new LinkedHashMap<String, CachedTransaction>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, CachedTransaction> eldest) {
+                if (size() > TransactionCache.this.maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @return the `gettransaction` result, with confirmations as of the current tip
+     */
+    JsonObject get(final String txID) throws HushCommandLineBridge.WalletCallException, IOException, InterruptedException {
+        return getAll(Collections.singletonList(txID)).get(0);
+    }
+
+    /**
+     * Looks up several transactions, fetching those not cached in one batch.
+     *
+     * @return the `gettransaction` results in the order of the txids
+     */
+    List<JsonObject> getAll(final List<String> txIDs)
+            throws HushCommandLineBridge.WalletCallException, IOException, InterruptedException {
+        final Map<String, CachedTransaction> found = new HashMap<>();
+        final Set<String> missing = new LinkedHashSet<>();
+        synchronized (entries) {
+            for (final String txID : txIDs) {
+                final CachedTransaction cached = entries.get(txID);
+                if (cached != null) {
+                    found.put(txID, cached);
+                } else {
+                    missing.add(txID);
+                }
+            }
+        }
+        hits.addAndGet(txIDs.size() - missing.size());
+        misses.addAndGet(missing.size());
+
+        // The tip comes with the missing transactions, in the same batch
+        final List<RpcCall> calls = new ArrayList<>(missing.size() + 1);
+        calls.add(new RpcCall("getblockcount"));
+        for (final String txID : missing) {
+            calls.add(new RpcCall("gettransaction", txID));
+        }
+        final List<JsonValue> responses = bridge.executeBatch(calls);
+        final int tipHeight = responses.get(0).asInt();
+
+        final Iterator<JsonValue> responseIterator = responses.listIterator(1);
+        for (final String txID : missing) {
+            final JsonObject transaction = HushCommandLineBridge.toJsonObject(responseIterator.next());
+            final int confirmations = transaction.getInt("confirmations", 0);
+            final CachedTransaction fetched = new CachedTransaction(
+                transaction, (confirmations > 0) ? (tipHeight - confirmations + 1) : -1
+            );
+            found.put(txID, fetched);
+            if (confirmations >= finalConfirmations) {
+                synchronized (entries) {
+                    entries.put(txID, fetched);
+                }
+            }
+        }
+        logStatisticsPeriodically();
+
+        final List<JsonObject> transactions = new ArrayList<>(txIDs.size());
+        for (final String txID : txIDs) {
+            transactions.add(found.get(txID).withConfirmationsAt(tipHeight));
+        }
+        return transactions;
+    }
+
+    /**
+     * Drops all cached transactions, e.g. after keys were imported or the chain was reorganized deeper than expected.
+     */
+    void invalidate() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    Statistics getStatistics() {
+        final int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        return new Statistics(hits.get(), misses.get(), evictions.get(), size);
+    }
+
+    private void logStatisticsPeriodically() {
+        final long now = System.currentTimeMillis();
+        if ((now - lastStatisticsLog) > STATISTICS_LOG_INTERVAL_MS) {
+            lastStatisticsLog = now;
+            System.out.println("Transaction cache: " + getStatistics());
+        }
+    }
+
+    private static class CachedTransaction {
+        final JsonObject transaction;
+        // -1 if not in a block
+        final int blockHeight;
+
+        CachedTransaction(final JsonObject transaction, final int blockHeight) {
+            this.transaction = transaction;
+            this.blockHeight = blockHeight;
+        }
+
+        JsonObject withConfirmationsAt(final int tipHeight) {
+            if (blockHeight < 0) {
+                return transaction;
+            }
+            // Copy, as cached results are shared between callers
+            return new JsonObject(transaction).set("confirmations", tipHeight - blockHeight + 1);
+        }
+    }
+
+    static class Statistics {
+        final long hits;
+        final long misses;
+        final long evictions;
+        final int size;
+
+        Statistics(final long hits, final long misses, final long evictions, final int size) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.size = size;
+        }
+
+        @Override
+        public String toString() {
+            return "hits=" + hits + ", misses=" + misses + ", evictions=" + evictions + ", size=" + size;
+        }
+    }
+}
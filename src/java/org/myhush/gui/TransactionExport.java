@@ -0,0 +1,145 @@
+// Copyright (c) 2018 The Hush Developers <contact@myhush.org>
+//
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+package org.myhush.gui;
+
+import com.eclipsesource.json.JsonObject;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * Writes transactions of a {@link TransactionHistoryIndex} to a file as CSV or JSON Lines. Rows are materialized
+ * and written one at a time through a buffered file channel, so any number of transactions is exported with the
+ * same little memory. Meant to run off the event dispatch thread, as the index does not change.
+ */
+class TransactionExport {
+    private static final String[] CSV_COLUMNS = {
+        "Type", "Direction", "Confirmations", "Amount", "Date", "Destination Address", "Transaction ID"
+    };
+    private static final int BUFFER_SIZE = 64 * 1024;
+    // Rows between progress reports
+    private static final int PROGRESS_ROWS = 1000;
+
+    enum Format {
+        CSV("CSV Files (*.csv)", "csv"),
+        JSON_LINES("JSON Lines Files (*.jsonl)", "jsonl");
+
+        final String description;
+        final String extension;
+
+        Format(final String description, final String extension) {
+            this.description = description;
+            this.extension = extension;
+        }
+    }
+
+    interface Progress {
+        /**
+         * @return whether to go on
+         */
+        boolean exported(int rows);
+    }
+
+    private final TransactionHistoryIndex index;
+    private final int[] rows;
+    private final Format format;
+    // Dates in UTC, ISO 8601
+    private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'", Locale.ROOT);
+
+    /**
+     * @param rows the index rows to export, in order
+     */
+    TransactionExport(final TransactionHistoryIndex index, final int[] rows, final Format format) {
+        this.index = index;
+        this.rows = rows;
+        this.format = format;
+        dateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+    }
+
+    int getRowCount() {
+        return rows.length;
+    }
+
+    /**
+     * @return whether all rows were written - if cancelled, the file is deleted
+     */
+    boolean writeTo(final File file, final Progress progress) throws IOException {
+        boolean isComplete = false;
+        try (final FileChannel channel = FileChannel.open(
+            file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE
+        ); final Writer writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), BUFFER_SIZE), BUFFER_SIZE)) {
+            if (format == Format.CSV) {
+                // Byte order mark, so spreadsheets take the file as UTF-8
+                writer.write('\uFEFF');
+                this.writeCSVRow(writer, CSV_COLUMNS);
+            }
+            for (int i = 0; i < rows.length; i++) {
+                if (((i % PROGRESS_ROWS) == 0) && !progress.exported(i)) {
+                    return false;
+                }
+                final WalletTransaction transaction = index.get(rows[i]);
+                if (format == Format.CSV) {
+                    this.writeCSVRow(writer, new String[]{
+                        transaction.type.getLabel(),
+                        transaction.direction.getLabel(),
+                        String.valueOf(transaction.confirmations),
+                        formatAmount(transaction.amount),
+                        (transaction.time < 0) ? "" : dateFormat.format(new Date(transaction.time * 1000L)),
+                        (transaction.address != null) ? transaction.address : "",
+                        transaction.txID
+                    });
+                } else {
+                    final JsonObject json = new JsonObject()
+                        .add("type", transaction.type.name().toLowerCase(Locale.ROOT))
+                        .add("direction", transaction.direction.name().toLowerCase(Locale.ROOT))
+                        .add("confirmations", transaction.confirmations)
+                        .add("amount", formatAmount(transaction.amount))
+                        .add("time", transaction.time)
+                        .add("address", transaction.address)
+                        .add("txid", transaction.txID);
+                    json.writeTo(writer);
+                    writer.write('\n');
+                }
+            }
+            progress.exported(rows.length);
+            isComplete = true;
+        } finally {
+            if (!isComplete && file.exists() && !file.delete()) {
+                System.out.println("Deleting " + file.getAbsolutePath() + " failed!");
+            }
+        }
+        return isComplete;
+    }
+
+    // In HUSH, without exponent and sign - the direction tells
+    private static String formatAmount(final long amount) {
+        return BigDecimal.valueOf(Math.abs(amount), Zatoshi.DECIMALS).stripTrailingZeros().toPlainString();
+    }
+
+    private void writeCSVRow(final Writer writer, final String[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            final String value = values[i];
+            if ((value.indexOf(',') >= 0) || (value.indexOf('"') >= 0) || (value.indexOf('\n') >= 0)) {
+                writer.write('"');
+                writer.write(value.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(value);
+            }
+        }
+        writer.write('\n');
+    }
+}
@@ -0,0 +1,304 @@
+// Copyright (c) 2018 The Hush Developers <contact@myhush.org>
+//
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+package org.myhush.gui;
+
+import java.util.*;
+import java.util.function.IntPredicate;
+
+/**
+ * Wallet transactions stored by column in primitive arrays, so that hundreds of thousands of them take little
+ * memory. Transactions are materialized as {@link WalletTransaction} objects only when asked for one row at a time.
+ * Sorted views are computed here on the columns and cached. An index is never modified once built.
+ */
+final class TransactionHistoryIndex {
+    enum Column { TYPE, DIRECTION, CONFIRMED, AMOUNT, TIME, ADDRESS }
+
+    static final int TXID_BYTES = 32;
+    private static final WalletTransaction.Type[] TYPES = WalletTransaction.Type.values();
+    private static final WalletTransaction.Direction[] DIRECTIONS = WalletTransaction.Direction.values();
+    static final int NO_ADDRESS = -1;
+
+    private final int size;
+    private final byte[] types;
+    private final byte[] directions;
+    private final int[] confirmations;
+    private final long[] amounts;
+    private final long[] times;
+    private final int[] addressIDs;
+    // Address dictionary, and the rank of each address in alphabetical order
+    private final String[] addresses;
+    private final int[] addressRanks;
+    // Transaction IDs as binary, TXID_BYTES per row - the rare one that is not 64 hex digits is kept as is
+    private final byte[] txIDs;
+    private final Map<Integer, String> irregularTxIDs = new HashMap<>();
+    // Hashes identifying each row across indexes, and of what the table shows of it
+    private final long[] keyHashes;
+    private final long[] contentHashes;
+    // Sorted views by column and direction
+    private final Map<String, int[]> views = new HashMap<>();
+    // null until searched
+    private TransactionSearchIndex searchIndex = null;
+
+    private TransactionHistoryIndex(final List<WalletTransaction> transactions) {
+        size = transactions.size();
+        types = new byte[size];
+        directions = new byte[size];
+        confirmations = new int[size];
+        amounts = new long[size];
+        times = new long[size];
+        addressIDs = new int[size];
+        txIDs = new byte[size * TXID_BYTES];
+        keyHashes = new long[size];
+        contentHashes = new long[size];
+
+        final Map<String, Integer> addressDictionary = new HashMap<>();
+        for (int row = 0; row < size; row++) {
+            final WalletTransaction transaction = transactions.get(row);
+            types[row] = (byte) transaction.type.ordinal();
+            directions[row] = (byte) transaction.direction.ordinal();
+            confirmations[row] = transaction.confirmations;
+            amounts[row] = transaction.amount;
+            times[row] = transaction.time;
+            addressIDs[row] = (transaction.address == null) ? NO_ADDRESS :
+                addressDictionary.computeIfAbsent(transaction.address, address -> addressDictionary.size());
+            if (!packTxID(transaction.txID, txIDs, row * TXID_BYTES)) {
+                irregularTxIDs.put(row, transaction.txID);
+            }
+
+            // Hashed by value rather than by dictionary ID, which depends on the other transactions
+            long keyHash = hash(hash(hash(FNV_OFFSET, types[row]), directions[row]), transaction.address);
+            for (int i = row * TXID_BYTES; i < (row + 1) * TXID_BYTES; i++) {
+                keyHash = hash(keyHash, txIDs[i]);
+            }
+            keyHashes[row] = hash(keyHash, irregularTxIDs.get(row));
+            contentHashes[row] = hash(hash(hash(FNV_OFFSET, transaction.isConfirmed() ? 1 : 0), amounts[row]), times[row]);
+        }
+
+        addresses = new String[addressDictionary.size()];
+        for (final Map.Entry<String, Integer> entry : addressDictionary.entrySet()) {
+            addresses[entry.getValue()] = entry.getKey();
+        }
+        final Integer[] byAddress = new Integer[addresses.length];
+        for (int i = 0; i < byAddress.length; i++) {
+            byAddress[i] = i;
+        }
+        Arrays.sort(byAddress, Comparator.comparing(id -> addresses[id]));
+        addressRanks = new int[addresses.length];
+        for (int rank = 0; rank < byAddress.length; rank++) {
+            addressRanks[byAddress[rank]] = rank;
+        }
+    }
+
+    static TransactionHistoryIndex build(final List<WalletTransaction> transactions) {
+        return new TransactionHistoryIndex(transactions);
+    }
+
+    int size() {
+        return size;
+    }
+
+    WalletTransaction get(final int row) {
+        final String txID = irregularTxIDs.containsKey(row) ? irregularTxIDs.get(row) : unpackTxID(txIDs, row * TXID_BYTES);
+        return new WalletTransaction(
+            TYPES[types[row]], DIRECTIONS[directions[row]], confirmations[row], amounts[row], times[row],
+            (addressIDs[row] == NO_ADDRESS) ? null : addresses[addressIDs[row]], txID
+        );
+    }
+
+    int getConfirmations(final int row) {
+        return confirmations[row];
+    }
+
+    long getAmount(final int row) {
+        return amounts[row];
+    }
+
+    long getTime(final int row) {
+        return times[row];
+    }
+
+    // NO_ADDRESS if the wallet does not list it
+    int getAddressID(final int row) {
+        return addressIDs[row];
+    }
+
+    int getAddressCount() {
+        return addresses.length;
+    }
+
+    String getAddress(final int addressID) {
+        return addresses[addressID];
+    }
+
+    /**
+     * @return the first two bytes of the transaction ID, or -1 if it is not 64 hex digits
+     */
+    int getTxIDBucket(final int row) {
+        if (irregularTxIDs.containsKey(row)) {
+            return -1;
+        }
+        return ((txIDs[row * TXID_BYTES] & 0xFF) << 8) | (txIDs[row * TXID_BYTES + 1] & 0xFF);
+    }
+
+    boolean hasTxIDPrefix(final int row, final String prefix) {
+        final String irregularTxID = irregularTxIDs.get(row);
+        if (irregularTxID != null) {
+            return irregularTxID.startsWith(prefix);
+        }
+        if (prefix.length() > (TXID_BYTES * 2)) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            final int value = txIDs[row * TXID_BYTES + (i / 2)];
+            final int digit = ((i % 2) == 0) ? ((value >> 4) & 0xF) : (value & 0xF);
+            if (Character.forDigit(digit, 16) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    synchronized TransactionSearchIndex getSearchIndex() {
+        if (searchIndex == null) {
+            searchIndex = new TransactionSearchIndex(this);
+        }
+        return searchIndex;
+    }
+
+    long getKeyHash(final int row) {
+        return keyHashes[row];
+    }
+
+    long getContentHash(final int row) {
+        return contentHashes[row];
+    }
+
+    /**
+     * @return the rows sorted by the column, optionally only those accepted by the filter - not to be modified
+     */
+    int[] getView(final Column column, final boolean descending, final IntPredicate filter) {
+        final int[] sorted = this.getSortedView(column, descending);
+        if (filter == null) {
+            return sorted;
+        }
+        int accepted = 0;
+        final int[] filtered = new int[sorted.length];
+        for (final int row : sorted) {
+            if (filter.test(row)) {
+                filtered[accepted++] = row;
+            }
+        }
+        return Arrays.copyOf(filtered, accepted);
+    }
+
+    private synchronized int[] getSortedView(final Column column, final boolean descending) {
+        final String viewKey = column + (descending ? "-" : "+");
+        final int[] cached = views.get(viewKey);
+        if (cached != null) {
+            return cached;
+        }
+        final RowComparator ascending = this.getComparator(column);
+        final RowComparator comparator = descending ? (a, b) -> ascending.compare(b, a) : ascending;
+        final int[] view = new int[size];
+        for (int row = 0; row < size; row++) {
+            view[row] = row;
+        }
+        // Stable, so rows that compare equal stay in the order they were synchronized in
+        mergeSort(view, new int[size], 0, size, comparator);
+        views.put(viewKey, view);
+        return view;
+    }
+
+    private RowComparator getComparator(final Column column) {
+        switch (column) {
+            case TYPE:
+                return (a, b) -> Byte.compare(types[a], types[b]);
+            case DIRECTION:
+                return (a, b) -> Byte.compare(directions[a], directions[b]);
+            case CONFIRMED:
+                return (a, b) -> Boolean.compare(confirmations[a] > 0, confirmations[b] > 0);
+            case AMOUNT:
+                return (a, b) -> Long.compare(Math.abs(amounts[a]), Math.abs(amounts[b]));
+            case TIME:
+                // Unknown times sort as the oldest
+                return (a, b) -> Long.compare(Math.max(times[a], 0), Math.max(times[b], 0));
+            default:
+                // Unlisted addresses last
+                return (a, b) -> Integer.compare(
+                    (addressIDs[a] == NO_ADDRESS) ? Integer.MAX_VALUE : addressRanks[addressIDs[a]],
+                    (addressIDs[b] == NO_ADDRESS) ? Integer.MAX_VALUE : addressRanks[addressIDs[b]]
+                );
+        }
+    }
+
+    private interface RowComparator {
+        int compare(int a, int b);
+    }
+
+    private static void mergeSort(final int[] rows, final int[] buffer, final int from, final int to, final RowComparator comparator) {
+        if ((to - from) < 2) {
+            return;
+        }
+        final int middle = (from + to) >>> 1;
+        mergeSort(rows, buffer, from, middle, comparator);
+        mergeSort(rows, buffer, middle, to, comparator);
+        if (comparator.compare(rows[middle - 1], rows[middle]) <= 0) {
+            return;
+        }
+        System.arraycopy(rows, from, buffer, from, to - from);
+        int left = from;
+        int right = middle;
+        for (int i = from; i < to; i++) {
+            if ((right >= to) || ((left < middle) && (comparator.compare(buffer[left], buffer[right]) <= 0))) {
+                rows[i] = buffer[left++];
+            } else {
+                rows[i] = buffer[right++];
+            }
+        }
+    }
+
+    static boolean packTxID(final String txID, final byte[] packed, final int offset) {
+        if ((txID == null) || (txID.length() != TXID_BYTES * 2)) {
+            return false;
+        }
+        for (int i = 0; i < TXID_BYTES; i++) {
+            final int high = Character.digit(txID.charAt(i * 2), 16);
+            final int low = Character.digit(txID.charAt(i * 2 + 1), 16);
+            if ((high < 0) || (low < 0) || Character.isUpperCase(txID.charAt(i * 2)) || Character.isUpperCase(txID.charAt(i * 2 + 1))) {
+                Arrays.fill(packed, offset, offset + TXID_BYTES, (byte) 0);
+                return false;
+            }
+            packed[offset + i] = (byte) ((high << 4) | low);
+        }
+        return true;
+    }
+
+    static String unpackTxID(final byte[] packed, final int offset) {
+        final char[] hex = new char[TXID_BYTES * 2];
+        for (int i = 0; i < TXID_BYTES; i++) {
+            hex[i * 2] = Character.forDigit((packed[offset + i] >> 4) & 0xF, 16);
+            hex[i * 2 + 1] = Character.forDigit(packed[offset + i] & 0xF, 16);
+        }
+        return new String(hex);
+    }
+
+    // FNV-1a, fed with whole values
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private static long hash(final long hash, final long value) {
+        return (hash ^ value) * FNV_PRIME;
+    }
+
+    private static long hash(long hash, final String value) {
+        if (value == null) {
+            return hash(hash, -1);
+        }
+        for (int i = 0; i < value.length(); i++) {
+            hash = hash(hash, value.charAt(i));
+        }
+        return hash(hash, value.length());
+    }
+}
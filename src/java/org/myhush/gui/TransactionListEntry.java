@@ -0,0 +1,117 @@
+// Copyright (c) 2018 The Hush Developers <contact@myhush.org>
+//
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+package org.myhush.gui;
+
+import java.util.function.Consumer;
+
+/**
+ * An entry of the `listtransactions` or `listsinceblock` result - one transparent input or output of a wallet
+ * transaction.
+ */
+final class TransactionListEntry {
+    final String txID;
+    final String category;
+    // null if not known to the wallet, e.g. for a Z address
+    final String address;
+    final long amount;
+    final int vout;
+    final int confirmations;
+    // null if not yet in a block
+    final String blockHash;
+    // Epoch seconds
+    final long time;
+
+    TransactionListEntry(
+        final String txID,
+        final String category,
+        final String address,
+        final long amount,
+        final int vout,
+        final int confirmations,
+        final String blockHash,
+        final long time
+    ) {
+        this.txID = txID;
+        this.category = category;
+        this.address = address;
+        this.amount = amount;
+        this.vout = vout;
+        this.confirmations = confirmations;
+        this.blockHash = blockHash;
+        this.time = time;
+    }
+
+    static class Decoder extends JsonRecordDecoder<TransactionListEntry> {
+        private String txID;
+        private String category;
+        private String address;
+        private long amount;
+        private int vout;
+        private int confirmations;
+        private String blockHash;
+        private long time;
+
+        Decoder(final Consumer<? super TransactionListEntry> sink) {
+            super(sink);
+        }
+
+        Decoder(final Consumer<? super TransactionListEntry> sink, final int recordDepth) {
+            super(sink, recordDepth);
+        }
+
+        @Override
+        protected void startRecord() {
+            txID = null;
+            category = null;
+            address = null;
+            amount = 0;
+            vout = -1;
+            confirmations = 0;
+            blockHash = null;
+            time = -1;
+        }
+
+        @Override
+        protected void stringField(final String name, final String value) {
+            switch (name) {
+                case "txid":
+                    txID = value;
+                    break;
+                case "category":
+                    category = value;
+                    break;
+                case "address":
+                    address = value;
+                    break;
+                case "blockhash":
+                    blockHash = value;
+                    break;
+            }
+        }
+
+        @Override
+        protected void numberField(final String name, final String value) {
+            switch (name) {
+                case "amount":
+                    amount = Zatoshi.parse(value);
+                    break;
+                case "vout":
+                    vout = Integer.parseInt(value);
+                    break;
+                case "confirmations":
+                    confirmations = Integer.parseInt(value);
+                    break;
+                case "time":
+                    time = Long.parseLong(value);
+                    break;
+            }
+        }
+
+        @Override
+        protected TransactionListEntry endRecord() {
+            return new TransactionListEntry(txID, category, address, amount, vout, confirmations, blockHash, time);
+        }
+    }
+}
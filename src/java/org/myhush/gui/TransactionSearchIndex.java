@@ -0,0 +1,186 @@
+// Copyright (c) 2018 The Hush Developers <contact@myhush.org>
+//
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+package org.myhush.gui;
+
+import java.math.BigDecimal;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Searches the transactions of a {@link TransactionHistoryIndex}. A search is split into words, and finds the
+ * transactions that match all of them. A word matches a transaction by
+ * <ul>
+ *     <li>the start of its transaction ID, of at least 4 hex digits - looked up among the transactions of the same
+ *     first two bytes,</li>
+ *     <li>a part of its address or of the name of the contact with that address - looked up in the addresses of the
+ *     index, of which there are far fewer than transactions,</li>
+ *     <li>its amount in HUSH, or the day of its date as yyyy-MM-dd - looked up in the views sorted by amount and
+ *     time.</li>
+ * </ul>
+ * Built once for an index, which does not change, when first searched.
+ */
+final class TransactionSearchIndex {
+    private static final int MIN_TXID_PREFIX_DIGITS = 4;
+    private static final int BUCKETS = 1 << 16;
+
+    private final TransactionHistoryIndex index;
+    // Rows by the first two bytes of their transaction ID, bucket by bucket - rows of irregular IDs in the last
+    private final int[] bucketStarts = new int[BUCKETS + 2];
+    private final int[] bucketRows;
+    // Rows by address
+    private final int[] addressStarts;
+    private final int[] addressRows;
+    // Rows by amount and by time, ascending
+    private final int[] byAmount;
+    private final int[] byTime;
+
+    TransactionSearchIndex(final TransactionHistoryIndex index) {
+        this.index = index;
+        final int size = index.size();
+
+        final int[] buckets = new int[size];
+        for (int row = 0; row < size; row++) {
+            final int bucket = index.getTxIDBucket(row);
+            buckets[row] = (bucket < 0) ? BUCKETS : bucket;
+        }
+        bucketRows = groupRows(buckets, bucketStarts);
+
+        final int[] addressIDs = new int[size];
+        for (int row = 0; row < size; row++) {
+            final int addressID = index.getAddressID(row);
+            addressIDs[row] = (addressID == TransactionHistoryIndex.NO_ADDRESS) ? index.getAddressCount() : addressID;
+        }
+        addressStarts = new int[index.getAddressCount() + 2];
+        addressRows = groupRows(addressIDs, addressStarts);
+
+        byAmount = index.getView(TransactionHistoryIndex.Column.AMOUNT, false, null);
+        byTime = index.getView(TransactionHistoryIndex.Column.TIME, false, null);
+    }
+
+    /**
+     * @param contactAddresses the addresses of the contacts whose names contain a word
+     * @return the rows that match every word of the search
+     */
+    BitSet search(final String search, final Function<String, Collection<String>> contactAddresses) {
+        BitSet matches = null;
+        for (final String word : search.trim().split("\\s+")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            final BitSet wordMatches = this.searchWord(word, contactAddresses.apply(word));
+            if (matches == null) {
+                matches = wordMatches;
+            } else {
+                matches.and(wordMatches);
+            }
+        }
+        return (matches != null) ? matches : new BitSet();
+    }
+
+    private BitSet searchWord(final String word, final Collection<String> contactAddresses) {
+        final BitSet matches = new BitSet(index.size());
+
+        final String lowerCaseWord = word.toLowerCase(Locale.ROOT);
+        if ((lowerCaseWord.length() >= MIN_TXID_PREFIX_DIGITS) && lowerCaseWord.matches("[0-9a-f]+")) {
+            final int bucket = Integer.parseInt(lowerCaseWord.substring(0, MIN_TXID_PREFIX_DIGITS), 16);
+            this.addTxIDMatches(bucket, lowerCaseWord, matches);
+        }
+        this.addTxIDMatches(BUCKETS, word, matches);
+
+        final Set<String> addresses = new HashSet<>(contactAddresses);
+        for (int addressID = 0; addressID < index.getAddressCount(); addressID++) {
+            final String address = index.getAddress(addressID);
+            if (address.contains(word) || addresses.contains(address)) {
+                for (int i = addressStarts[addressID]; i < addressStarts[addressID + 1]; i++) {
+                    matches.set(addressRows[i]);
+                }
+            }
+        }
+
+        final long zatoshi = parseZatoshi(word);
+        if (zatoshi >= 0) {
+            addRange(byAmount, row -> Math.abs(index.getAmount(row)), zatoshi, zatoshi + 1, matches);
+        }
+        if (word.matches("[0-9]{4}-[0-9]{2}-[0-9]{2}")) {
+            final SimpleDateFormat dayFormat = new SimpleDateFormat("yyyy-MM-dd");
+            dayFormat.setLenient(false);
+            try {
+                final Calendar day = Calendar.getInstance();
+                day.setTime(dayFormat.parse(word));
+                final long start = day.getTimeInMillis() / 1000;
+                day.add(Calendar.DAY_OF_MONTH, 1);
+                addRange(byTime, row -> Math.max(index.getTime(row), 0), start, day.getTimeInMillis() / 1000, matches);
+            } catch (final ParseException e) {
+                // Not a valid day
+            }
+        }
+        return matches;
+    }
+
+    private void addTxIDMatches(final int bucket, final String prefix, final BitSet matches) {
+        for (int i = bucketStarts[bucket]; i < bucketStarts[bucket + 1]; i++) {
+            if (index.hasTxIDPrefix(bucketRows[i], prefix)) {
+                matches.set(bucketRows[i]);
+            }
+        }
+    }
+
+    private interface RowValue {
+        long of(int row);
+    }
+
+    // Adds the rows of the sorted view whose value is at least from and less than to
+    private static void addRange(
+        final int[] view, final RowValue value, final long from, final long to, final BitSet matches
+    ) {
+        for (int i = lowerBound(view, value, from); (i < view.length) && (value.of(view[i]) < to); i++) {
+            matches.set(view[i]);
+        }
+    }
+
+    private static int lowerBound(final int[] view, final RowValue value, final long from) {
+        int low = 0;
+        int high = view.length;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (value.of(view[middle]) < from) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // -1 if not an amount
+    private static long parseZatoshi(final String word) {
+        if (!word.matches("[0-9]*\\.?[0-9]+")) {
+            return -1;
+        }
+        try {
+            return new BigDecimal(word).movePointRight(Zatoshi.DECIMALS).longValueExact();
+        } catch (final ArithmeticException e) {
+            return -1;
+        }
+    }
+
+    // Sorts rows by group with a counting sort - the rows of group g end up at starts[g] to starts[g + 1]
+    private static int[] groupRows(final int[] groups, final int[] starts) {
+        for (final int group : groups) {
+            starts[group + 1]++;
+        }
+        for (int group = 1; group < starts.length; group++) {
+            starts[group] += starts[group - 1];
+        }
+        final int[] next = Arrays.copyOf(starts, starts.length - 1);
+        final int[] rows = new int[groups.length];
+        for (int row = 0; row < groups.length; row++) {
+            rows[next[groups[row]]++] = row;
+        }
+        return rows;
+    }
+}
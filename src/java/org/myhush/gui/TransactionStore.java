@@ -0,0 +1,392 @@
+// Copyright (c) 2018 The Hush Developers <contact@myhush.org>
+//
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+package org.myhush.gui;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * Keeps the wallet transactions in the settings directory across restarts, so they can be shown at startup before
+ * they are synchronized with the daemon again.
+ * <p>
+ * The transactions are stored as a snapshot, newest first, and an append-only log of the rows changed or removed
+ * since. Each save appends only what changed since the previous one; once the log has as many records as the
+ * snapshot has rows, both are compacted into a new snapshot. Like the address validation results, stored
+ * transactions carry the fingerprint of their wallet, and those of another wallet are discarded.
+ * <p>
+ * Rows store the height of their block rather than their confirmations, which change with every block: a row is
+ * written again only when it changes otherwise, and its confirmations follow from the tip when loaded.
+ */
+class TransactionStore {
+    private static final int MAGIC = 0x48545853; // HTXS
+    private static final int VERSION = 2;
+    private static final byte PUT = 1;
+    private static final byte REMOVE = 2;
+    private static final int MIN_COMPACTION_RECORDS = 1000;
+    private static final int NO_STRING = -1;
+    // Longer than any address or transaction ID
+    private static final int MAX_STRING_BYTES = 64 * 1024;
+
+    private final File snapshotFile;
+    private final File logFile;
+    private final WalletFingerprint walletFingerprint;
+    // Keys of the stored rows in ascending order, and the content hash of each, block height included
+    private long[] storedKeys = new long[0];
+    private long[] storedContents = new long[0];
+    private int logRecords = 0;
+
+    TransactionStore(final File snapshotFile, final File logFile, final WalletFingerprint walletFingerprint) {
+        this.snapshotFile = snapshotFile;
+        this.logFile = logFile;
+        this.walletFingerprint = walletFingerprint;
+    }
+
+    /**
+     * @param tipHeight the height of the chain tip, to count confirmations from
+     * @return the stored transactions, or null if there are none
+     */
+    synchronized TransactionHistoryIndex load(final int tipHeight)
+            throws HushCommandLineBridge.WalletCallException, IOException, InterruptedException {
+        if (!snapshotFile.exists()) {
+            return null;
+        }
+        final long start = System.currentTimeMillis();
+        // Rows changed by the log, or null if removed, by key in log order
+        final Map<Long, WalletTransaction> loggedRows = new LinkedHashMap<>();
+        final List<WalletTransaction> rows = new ArrayList<>();
+        final List<Long> keys = new ArrayList<>();
+        // Of the snapshot and of the log
+        final Set<String> fingerprints = new HashSet<>();
+        boolean isLogTruncated = false;
+        try {
+            logRecords = 0;
+            if (logFile.exists()) {
+                try (final DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(logFile)))) {
+                    fingerprints.add(readHeader(input));
+                    while (true) {
+                        final int operation = input.read();
+                        if (operation < 0) {
+                            break;
+                        }
+                        final long key = input.readLong();
+                        if (operation == PUT) {
+                            loggedRows.put(key, readTransaction(input, tipHeight));
+                        } else if (operation == REMOVE) {
+                            loggedRows.put(key, null);
+                        } else {
+                            throw new IOException("Transaction log is corrupted!");
+                        }
+                        logRecords++;
+                    }
+                } catch (final EOFException e) {
+                    // The last record was not written completely
+                    isLogTruncated = true;
+                }
+            }
+
+            // Read at once and decoded in place, the rows being of fixed size
+            final byte[] snapshotBytes = Files.readAllBytes(snapshotFile.toPath());
+            final ByteArrayInputStream header = new ByteArrayInputStream(snapshotBytes);
+            fingerprints.add(readHeader(new DataInputStream(header)));
+            final ByteBuffer snapshot = ByteBuffer.wrap(snapshotBytes, snapshotBytes.length - header.available(), header.available());
+            final String[] strings = new String[snapshot.getInt()];
+            for (int i = 0; i < strings.length; i++) {
+                final int length = snapshot.getInt();
+                if ((length < 0) || (length > MAX_STRING_BYTES)) {
+                    throw new IOException("Stored transactions are corrupted!");
+                }
+                final byte[] bytes = new byte[length];
+                snapshot.get(bytes);
+                strings[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+            final int size = snapshot.getInt();
+            final byte[] txID = new byte[TransactionHistoryIndex.TXID_BYTES];
+            for (int i = 0; i < size; i++) {
+                final long key = snapshot.getLong();
+                final WalletTransaction.Type type = WalletTransaction.Type.values()[snapshot.get()];
+                final WalletTransaction.Direction direction = WalletTransaction.Direction.values()[snapshot.get()];
+                final int confirmations = toConfirmations(snapshot.getInt(), tipHeight);
+                final long amount = snapshot.getLong();
+                final long time = snapshot.getLong();
+                final int address = snapshot.getInt();
+                final int irregularTxID = snapshot.getInt();
+                snapshot.get(txID);
+                if (loggedRows.containsKey(key)) {
+                    // Changed or removed since
+                    final WalletTransaction loggedRow = loggedRows.remove(key);
+                    if (loggedRow != null) {
+                        rows.add(loggedRow);
+                        keys.add(key);
+                    }
+                    continue;
+                }
+                rows.add(new WalletTransaction(
+                    type, direction, confirmations, amount, time, (address == NO_STRING) ? null : strings[address],
+                    (irregularTxID == NO_STRING) ? TransactionHistoryIndex.unpackTxID(txID, 0) : strings[irregularTxID]
+                ));
+                keys.add(key);
+            }
+            // Rows added since
+            for (final Map.Entry<Long, WalletTransaction> loggedRow : loggedRows.entrySet()) {
+                if (loggedRow.getValue() != null) {
+                    rows.add(loggedRow.getValue());
+                    keys.add(loggedRow.getKey());
+                }
+            }
+        } catch (final IOException | RuntimeException e) {
+            e.printStackTrace();
+            System.out.println("Loading stored transactions failed, synchronizing all of them again.");
+            this.delete();
+            return null;
+        }
+        for (final String fingerprint : fingerprints) {
+            if (!walletFingerprint.matches(fingerprint)) {
+                System.out.println("Stored transactions are of another wallet, discarding them.");
+                this.delete();
+                return null;
+            }
+        }
+
+        final TransactionHistoryIndex index = TransactionHistoryIndex.build(rows);
+        final long[] rowKeys = new long[keys.size()];
+        for (int row = 0; row < rowKeys.length; row++) {
+            rowKeys[row] = keys.get(row);
+        }
+        this.setStoredRows(index, rowKeys, tipHeight);
+        if (isLogTruncated) {
+            this.compactQuietly(index, rowKeys, tipHeight, walletFingerprint.get());
+        }
+        System.out.println(
+            "Loaded " + index.size() + " stored transactions in " + (System.currentTimeMillis() - start) + "ms."
+        );
+        return index;
+    }
+
+    /**
+     * Stores the transactions, writing only the rows that changed since the previous save.
+     *
+     * @param tipHeight the height of the chain tip the confirmations of the transactions were counted at
+     */
+    synchronized void save(final TransactionHistoryIndex index, final int tipHeight)
+            throws HushCommandLineBridge.WalletCallException, IOException, InterruptedException {
+        final String fingerprint = walletFingerprint.get();
+        final long[] keys = rowKeys(index);
+        try {
+            if (!snapshotFile.exists()) {
+                this.compact(index, keys, tipHeight, fingerprint);
+                return;
+            }
+
+            final long[] sortedKeys = keys.clone();
+            Arrays.sort(sortedKeys);
+            int records = 0;
+            final boolean isNewLog = !logFile.exists();
+            try (final DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(logFile, true)))) {
+                if (isNewLog) {
+                    writeHeader(output, fingerprint);
+                }
+                for (int row = 0; row < index.size(); row++) {
+                    final int stored = Arrays.binarySearch(storedKeys, keys[row]);
+                    if ((stored < 0) || (storedContents[stored] != storedContentHash(index, row, tipHeight))) {
+                        output.writeByte(PUT);
+                        output.writeLong(keys[row]);
+                        writeTransaction(output, index.get(row), tipHeight);
+                        records++;
+                    }
+                }
+                for (final long storedKey : storedKeys) {
+                    if (Arrays.binarySearch(sortedKeys, storedKey) < 0) {
+                        output.writeByte(REMOVE);
+                        output.writeLong(storedKey);
+                        records++;
+                    }
+                }
+            }
+            logRecords += records;
+            this.setStoredRows(index, keys, tipHeight);
+            if (logRecords >= Math.max(MIN_COMPACTION_RECORDS, storedKeys.length)) {
+                this.compact(index, keys, tipHeight, fingerprint);
+            }
+        } catch (final IOException e) {
+            e.printStackTrace();
+            System.out.println("Storing transactions failed!");
+            // Written again in full next time
+            this.delete();
+        }
+    }
+
+    // Writes a new snapshot of all rows, newest first, and starts a new log
+    private void compact(
+        final TransactionHistoryIndex index, final long[] keys, final int tipHeight, final String fingerprint
+    ) throws IOException {
+        final int[] newestFirst = index.getView(TransactionHistoryIndex.Column.TIME, true, null);
+        final WalletTransaction[] transactions = new WalletTransaction[newestFirst.length];
+        // Addresses and the rare transaction ID that is not 64 hex digits, each written once
+        final Map<String, Integer> strings = new LinkedHashMap<>();
+        for (int i = 0; i < newestFirst.length; i++) {
+            transactions[i] = index.get(newestFirst[i]);
+            if (transactions[i].address != null) {
+                strings.putIfAbsent(transactions[i].address, strings.size());
+            }
+        }
+
+        final File tempFile = new File(snapshotFile.getPath() + ".tmp");
+        try (final DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+            writeHeader(output, fingerprint);
+            final byte[] txID = new byte[TransactionHistoryIndex.TXID_BYTES];
+            final int[] irregularTxIDs = new int[transactions.length];
+            for (int i = 0; i < transactions.length; i++) {
+                irregularTxIDs[i] = TransactionHistoryIndex.packTxID(transactions[i].txID, txID, 0) ? NO_STRING :
+                    strings.computeIfAbsent(String.valueOf(transactions[i].txID), string -> strings.size());
+            }
+            output.writeInt(strings.size());
+            for (final String string : strings.keySet()) {
+                writeString(output, string);
+            }
+            output.writeInt(transactions.length);
+            for (int i = 0; i < transactions.length; i++) {
+                final WalletTransaction transaction = transactions[i];
+                output.writeLong(keys[newestFirst[i]]);
+                output.writeByte(transaction.type.ordinal());
+                output.writeByte(transaction.direction.ordinal());
+                output.writeInt(toBlockHeight(transaction.confirmations, tipHeight));
+                output.writeLong(transaction.amount);
+                output.writeLong(transaction.time);
+                output.writeInt((transaction.address == null) ? NO_STRING : strings.get(transaction.address));
+                output.writeInt(irregularTxIDs[i]);
+                if (irregularTxIDs[i] == NO_STRING) {
+                    TransactionHistoryIndex.packTxID(transaction.txID, txID, 0);
+                } else {
+                    Arrays.fill(txID, (byte) 0);
+                }
+                output.write(txID);
+            }
+        }
+        Files.move(tempFile.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        if (logFile.exists() && !logFile.delete()) {
+            throw new IOException("Deleting " + logFile.getAbsolutePath() + " failed!");
+        }
+        logRecords = 0;
+        this.setStoredRows(index, keys, tipHeight);
+    }
+
+    private void compactQuietly(
+        final TransactionHistoryIndex index, final long[] keys, final int tipHeight, final String fingerprint
+    ) {
+        try {
+            this.compact(index, keys, tipHeight, fingerprint);
+        } catch (final IOException e) {
+            e.printStackTrace();
+            System.out.println("Compacting stored transactions failed!");
+            this.delete();
+        }
+    }
+
+    private void delete() {
+        for (final File file : new File[]{ snapshotFile, logFile }) {
+            if (file.exists() && !file.delete()) {
+                System.out.println("Deleting " + file.getAbsolutePath() + " failed!");
+            }
+        }
+        storedKeys = new long[0];
+        storedContents = new long[0];
+        logRecords = 0;
+    }
+
+    private void setStoredRows(final TransactionHistoryIndex index, final long[] keys, final int tipHeight) {
+        final long[] sortedKeys = keys.clone();
+        Arrays.sort(sortedKeys);
+        final long[] contents = new long[keys.length];
+        for (int row = 0; row < keys.length; row++) {
+            contents[Arrays.binarySearch(sortedKeys, keys[row])] = storedContentHash(index, row, tipHeight);
+        }
+        storedKeys = sortedKeys;
+        storedContents = contents;
+    }
+
+    // The content hash covers whether a row is confirmed, but not since which block
+    private static long storedContentHash(final TransactionHistoryIndex index, final int row, final int tipHeight) {
+        return (index.getContentHash(row) ^ toBlockHeight(index.getConfirmations(row), tipHeight)) * 0x100000001b3L;
+    }
+
+    // Block height of a confirmed transaction, or its confirmations minus one if unconfirmed (conflicted if below 0)
+    private static int toBlockHeight(final int confirmations, final int tipHeight) {
+        return (confirmations > 0) ? (tipHeight - confirmations + 1) : (confirmations - 1);
+    }
+
+    private static int toConfirmations(final int blockHeight, final int tipHeight) {
+        return (blockHeight >= 0) ? (tipHeight - blockHeight + 1) : (blockHeight + 1);
+    }
+
+    // Key hash of each row, told apart from earlier rows with the same key by their number
+    private static long[] rowKeys(final TransactionHistoryIndex index) {
+        final long[] keys = new long[index.size()];
+        final Map<Long, Integer> occurrences = new HashMap<>();
+        for (int row = 0; row < keys.length; row++) {
+            final int occurrence = occurrences.merge(index.getKeyHash(row), 1, Integer::sum);
+            keys[row] = (occurrence == 1) ? index.getKeyHash(row) : ((index.getKeyHash(row) ^ occurrence) * 0x100000001b3L);
+        }
+        return keys;
+    }
+
+    // Both files start with magic, version and wallet fingerprint
+    private static void writeHeader(final DataOutputStream output, final String fingerprint) throws IOException {
+        output.writeInt(MAGIC);
+        output.writeInt(VERSION);
+        writeString(output, fingerprint);
+    }
+
+    // The wallet fingerprint
+    private static String readHeader(final DataInputStream input) throws IOException {
+        if ((input.readInt() != MAGIC) || (input.readInt() != VERSION)) {
+            throw new IOException("Stored transactions are not of this version!");
+        }
+        return readString(input);
+    }
+
+    private static void writeString(final DataOutputStream output, final String string) throws IOException {
+        final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readString(final DataInputStream input) throws IOException {
+        final int length = input.readInt();
+        if ((length < 0) || (length > MAX_STRING_BYTES)) {
+            throw new IOException("Stored transactions are corrupted!");
+        }
+        final byte[] bytes = new byte[length];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeTransaction(
+        final DataOutputStream output, final WalletTransaction transaction, final int tipHeight
+    ) throws IOException {
+        output.writeByte(transaction.type.ordinal());
+        output.writeByte(transaction.direction.ordinal());
+        output.writeInt(toBlockHeight(transaction.confirmations, tipHeight));
+        output.writeLong(transaction.amount);
+        output.writeLong(transaction.time);
+        output.writeBoolean(transaction.address != null);
+        writeString(output, (transaction.address != null) ? transaction.address : "");
+        writeString(output, transaction.txID);
+    }
+
+    private static WalletTransaction readTransaction(final DataInputStream input, final int tipHeight) throws IOException {
+        final WalletTransaction.Type type = WalletTransaction.Type.values()[input.readByte()];
+        final WalletTransaction.Direction direction = WalletTransaction.Direction.values()[input.readByte()];
+        final int confirmations = toConfirmations(input.readInt(), tipHeight);
+        final long amount = input.readLong();
+        final long time = input.readLong();
+        final boolean hasAddress = input.readBoolean();
+        final String address = readString(input);
+        return new WalletTransaction(type, direction, confirmations, amount, time, hasAddress ? address : null, readString(input));
+    }
+}
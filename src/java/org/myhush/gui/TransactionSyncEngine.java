@@ -0,0 +1,365 @@
+// Copyright (c) 2018 The Hush Developers <contact@myhush.org>
+//
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+package org.myhush.gui;
+
+import com.eclipsesource.json.JsonObject;
+import com.eclipsesource.json.JsonValue;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Keeps the wallet transactions up to date by fetching only what changed since the previous sync.
+ * <p>
+ * Transparent transactions come from `listsinceblock` with the last synced block. Notes of Z addresses cannot be
+ * queried by block, so their lists are fetched again only when the wallet's transaction count - the watermark - has
+ * changed or new addresses appeared; only notes not seen before, or not yet confirmed, are then looked up.
+ * <p>
+ * The block height of every confirmed entry is stored, so confirmations follow from the chain tip without fetching
+ * again. Mined coins are listed as immature until they mature, which no tip tells, so while there are any, the
+ * listing starts below the oldest of them instead, and the entries are replaced as they mature.
+ * <p>
+ * If the last synced block is no longer on the main chain, the sync is rolled back to the newest block of the
+ * stored height-to-hash checkpoints that still is, and continues from there.
+ */
+class TransactionSyncEngine {
+    // Checkpoints kept for finding the fork point of a reorganization
+    private static final int MAX_CHECKPOINTS = 100;
+    private static final int UNKNOWN_HEIGHT = -1;
+
+    private final HushCommandLineBridge bridge;
+
+    private String lastBlockHash = null;
+    private int tipHeight = 0;
+    private final TreeMap<Integer, String> checkpoints = new TreeMap<>();
+
+    // Transparent entries by txid, direction of funds, vout and address - a mined entry keeps its key as it matures
+    private final Map<String, SyncedEntry> transparentEntries = new LinkedHashMap<>();
+    // Keys of the entries of immature mined coins
+    private final Set<String> immatureKeys = new HashSet<>();
+
+    // Notes by Z address, then by note key
+    private final Map<String, Map<String, SyncedNote>> notesByAddress = new LinkedHashMap<>();
+    private long noteWatermark = -1;
+
+    TransactionSyncEngine(final HushCommandLineBridge bridge) {
+        this.bridge = bridge;
+    }
+
+    /**
+     * Brings the transactions up to date.
+     *
+     * @return all wallet transactions, public and private, with confirmations as of the current tip
+     */
+    synchronized List<WalletTransaction> sync()
+            throws HushCommandLineBridge.WalletCallException, IOException, InterruptedException {
+        final boolean rolledBack = this.rollBackIfReorganized();
+        this.syncTransparent();
+        this.syncNotes(rolledBack);
+        return this.getTransactions();
+    }
+
+    /**
+     * @return the height of the chain tip the confirmations of the last synced transactions were counted at
+     */
+    synchronized int getTipHeight() {
+        return tipHeight;
+    }
+
+    private boolean rollBackIfReorganized()
+            throws HushCommandLineBridge.WalletCallException, IOException, InterruptedException {
+        if (lastBlockHash == null) {
+            return false;
+        }
+        final JsonObject lastBlockHeader = bridge.executeCommandAndGetJsonObject("getblockheader", lastBlockHash);
+        if (lastBlockHeader.getInt("confirmations", -1) >= 0) {
+            return false;
+        }
+
+        final int forkHeight = this.findForkHeight();
+        if (forkHeight == UNKNOWN_HEIGHT) {
+            System.out.println("Chain reorganization beyond the known checkpoints, synchronizing all transactions.");
+            this.reset();
+            bridge.invalidateTransactionCache();
+            return true;
+        }
+        System.out.println("Chain reorganization detected, rolling back transactions to height " + forkHeight);
+        checkpoints.tailMap(forkHeight, false).clear();
+        lastBlockHash = checkpoints.get(forkHeight);
+        tipHeight = forkHeight;
+        transparentEntries.values().removeIf(entry -> entry.height > forkHeight);
+        immatureKeys.retainAll(transparentEntries.keySet());
+        for (final Map<String, SyncedNote> notes : notesByAddress.values()) {
+            for (final SyncedNote note : notes.values()) {
+                if (note.height > forkHeight) {
+                    note.height = UNKNOWN_HEIGHT;
+                }
+            }
+        }
+        return true;
+    }
+
+    // The newest checkpoint still on the main chain, UNKNOWN_HEIGHT if none is
+    private int findForkHeight() throws HushCommandLineBridge.WalletCallException, IOException, InterruptedException {
+        final List<Integer> heights = new ArrayList<>(checkpoints.descendingKeySet());
+        final List<RpcCall> calls = new ArrayList<>(heights.size());
+        for (final Integer height : heights) {
+            calls.add(new RpcCall("getblockhash", String.valueOf(height)));
+        }
+        final List<JsonValue> mainChainHashes = bridge.executeBatch(calls);
+        for (int i = 0; i < heights.size(); i++) {
+            final JsonValue mainChainHash = mainChainHashes.get(i);
+            if (mainChainHash.isString() && mainChainHash.asString().equals(checkpoints.get(heights.get(i)))) {
+                return heights.get(i);
+            }
+        }
+        return UNKNOWN_HEIGHT;
+    }
+
+    private void reset() {
+        lastBlockHash = null;
+        tipHeight = 0;
+        checkpoints.clear();
+        transparentEntries.clear();
+        immatureKeys.clear();
+        notesByAddress.clear();
+        noteWatermark = -1;
+    }
+
+    private void syncTransparent()
+            throws HushCommandLineBridge.WalletCallException, IOException, InterruptedException {
+        final List<TransactionListEntry> entries = new ArrayList<>();
+        final SinceBlockDecoder decoder = new SinceBlockDecoder(entries::add);
+        final String sinceBlockHash = this.getSinceBlockHash();
+        if (sinceBlockHash == null) {
+            bridge.executeCommandAndDecode(decoder, "listsinceblock");
+        } else {
+            bridge.executeCommandAndDecode(decoder, "listsinceblock", sinceBlockHash);
+        }
+
+        // Unconfirmed entries are listed again as long as they stay in the wallet
+        transparentEntries.values().removeIf(entry -> entry.height == UNKNOWN_HEIGHT);
+
+        final Set<String> blockHashes = new HashSet<>();
+        blockHashes.add(decoder.lastBlock);
+        for (final TransactionListEntry entry : entries) {
+            if ((entry.blockHash != null) && (entry.confirmations > 0)) {
+                blockHashes.add(entry.blockHash);
+            }
+        }
+        final Map<String, Integer> heights = this.getBlockHeights(blockHashes);
+
+        for (final TransactionListEntry entry : entries) {
+            final int height = ((entry.blockHash != null) && (entry.confirmations > 0))
+                ? heights.get(entry.blockHash) : UNKNOWN_HEIGHT;
+            // Sending to an own address lists the same output as sent and received
+            final String key = entry.txID + ":" + ("send".equals(entry.category) ? "out" : "in") + ":" +
+                               entry.vout + ":" + entry.address;
+            transparentEntries.put(key, new SyncedEntry(entry, height));
+            if ("immature".equals(entry.category)) {
+                immatureKeys.add(key);
+            } else {
+                immatureKeys.remove(key);
+            }
+        }
+
+        lastBlockHash = decoder.lastBlock;
+        tipHeight = heights.get(decoder.lastBlock);
+        // Blocks looked up anyway make for checkpoints closer to a fork
+        for (final Map.Entry<String, Integer> blockHeight : heights.entrySet()) {
+            checkpoints.put(blockHeight.getValue(), blockHeight.getKey());
+        }
+        while (checkpoints.size() > MAX_CHECKPOINTS) {
+            checkpoints.pollFirstEntry();
+        }
+    }
+
+    // The last synced block, or the block below the oldest immature entry if there is one - null to list all
+    private String getSinceBlockHash()
+            throws HushCommandLineBridge.WalletCallException, IOException, InterruptedException {
+        int oldestImmatureHeight = Integer.MAX_VALUE;
+        for (final String key : immatureKeys) {
+            final int height = transparentEntries.get(key).height;
+            if (height != UNKNOWN_HEIGHT) {
+                oldestImmatureHeight = Math.min(oldestImmatureHeight, height);
+            }
+        }
+        if ((lastBlockHash == null) || (oldestImmatureHeight == Integer.MAX_VALUE)) {
+            return lastBlockHash;
+        }
+        if (oldestImmatureHeight == 0) {
+            return null;
+        }
+        final String checkpoint = checkpoints.get(oldestImmatureHeight - 1);
+        if (checkpoint != null) {
+            return checkpoint;
+        }
+        final JsonValue blockHash = bridge.executeBatch(
+            Collections.singletonList(new RpcCall("getblockhash", String.valueOf(oldestImmatureHeight - 1)))
+        ).get(0);
+        return blockHash.isString() ? blockHash.asString() : lastBlockHash;
+    }
+
+    private void syncNotes(final boolean rolledBack)
+            throws HushCommandLineBridge.WalletCallException, IOException, InterruptedException {
+        final long watermark = bridge.executeCommandAndGetJsonObject("getwalletinfo").getLong("txcount", -1);
+        final String[] zAddresses = bridge.getWalletZAddresses();
+
+        final List<String> addressesToList = new ArrayList<>();
+        for (final String zAddress : zAddresses) {
+            if ((watermark != noteWatermark) || rolledBack || !notesByAddress.containsKey(zAddress)) {
+                addressesToList.add(zAddress);
+            }
+        }
+        final HushCommandLineBridge.ReceivedNotesByAddress received = bridge.getReceivedNotes(addressesToList, 0);
+        for (final Map.Entry<String, List<ReceivedNote>> addressNotes : received.notes.entrySet()) {
+            final Map<String, SyncedNote> knownNotes = notesByAddress.get(addressNotes.getKey());
+            final Map<String, SyncedNote> notes = new LinkedHashMap<>();
+            for (final ReceivedNote receivedNote : addressNotes.getValue()) {
+                final String key = receivedNote.getKey();
+                final SyncedNote known = (knownNotes != null) ? knownNotes.get(key) : null;
+                notes.put(key, (known != null) ? known : new SyncedNote(receivedNote));
+            }
+            notesByAddress.put(addressNotes.getKey(), notes);
+        }
+        // Keep the wallet's address order, whatever order the addresses were first seen in
+        final Map<String, Map<String, SyncedNote>> ordered = new LinkedHashMap<>();
+        for (final String zAddress : zAddresses) {
+            if (notesByAddress.containsKey(zAddress)) {
+                ordered.put(zAddress, notesByAddress.get(zAddress));
+            }
+        }
+        notesByAddress.clear();
+        notesByAddress.putAll(ordered);
+        // Failed addresses keep their previous notes, and are listed again by the next sync
+        if (received.failures.isEmpty()) {
+            noteWatermark = watermark;
+        }
+
+        // Look up the block of new and not yet confirmed notes
+        final Map<String, List<SyncedNote>> pendingByTxID = new LinkedHashMap<>();
+        for (final Map<String, SyncedNote> notes : notesByAddress.values()) {
+            for (final SyncedNote note : notes.values()) {
+                if (note.height == UNKNOWN_HEIGHT) {
+                    pendingByTxID.computeIfAbsent(note.note.txID, txID -> new ArrayList<>()).add(note);
+                }
+            }
+        }
+        if (pendingByTxID.isEmpty()) {
+            return;
+        }
+        final List<JsonObject> walletTransactions = bridge.getWalletTransactionsByID(new ArrayList<>(pendingByTxID.keySet()));
+
+        final Set<String> blockHashes = new HashSet<>();
+        for (final JsonObject transaction : walletTransactions) {
+            if (transaction.getInt("confirmations", 0) > 0) {
+                blockHashes.add(transaction.getString("blockhash", null));
+            }
+        }
+        blockHashes.remove(null);
+        final Map<String, Integer> heights = this.getBlockHeights(blockHashes);
+
+        final Iterator<JsonObject> walletTransactionIterator = walletTransactions.iterator();
+        for (final List<SyncedNote> notes : pendingByTxID.values()) {
+            final JsonObject transaction = walletTransactionIterator.next();
+            final int confirmations = transaction.getInt("confirmations", 0);
+            final String blockHash = transaction.getString("blockhash", null);
+            for (final SyncedNote note : notes) {
+                note.time = transaction.getLong("time", -1);
+                note.height = ((confirmations > 0) && (blockHash != null)) ? heights.get(blockHash) : UNKNOWN_HEIGHT;
+                note.unconfirmedConfirmations = Math.min(confirmations, 0);
+            }
+        }
+    }
+
+    // getblockheader for each hash, in a batch
+    private Map<String, Integer> getBlockHeights(final Set<String> blockHashes)
+            throws HushCommandLineBridge.WalletCallException, IOException, InterruptedException {
+        final List<String> hashes = new ArrayList<>(blockHashes);
+        final List<RpcCall> calls = new ArrayList<>(hashes.size());
+        for (final String hash : hashes) {
+            calls.add(new RpcCall("getblockheader", hash));
+        }
+        final List<JsonValue> headers = bridge.executeBatch(calls);
+        final Map<String, Integer> heights = new HashMap<>();
+        for (int i = 0; i < hashes.size(); i++) {
+            heights.put(hashes.get(i), HushCommandLineBridge.toJsonObject(headers.get(i)).getInt("height", UNKNOWN_HEIGHT));
+        }
+        return heights;
+    }
+
+    private int getConfirmations(final int height, final int unconfirmedConfirmations) {
+        return (height == UNKNOWN_HEIGHT) ? unconfirmedConfirmations : (tipHeight - height + 1);
+    }
+
+    private List<WalletTransaction> getTransactions() {
+        final List<WalletTransaction> transactions = new ArrayList<>();
+        for (final SyncedEntry synced : transparentEntries.values()) {
+            final TransactionListEntry entry = synced.entry;
+            transactions.add(new WalletTransaction(
+                WalletTransaction.Type.PUBLIC,
+                WalletTransaction.Direction.fromCategory(entry.category),
+                this.getConfirmations(synced.height, Math.min(entry.confirmations, 0)),
+                entry.amount,
+                entry.time,
+                entry.address,
+                entry.txID
+            ));
+        }
+        for (final Map.Entry<String, Map<String, SyncedNote>> addressNotes : notesByAddress.entrySet()) {
+            for (final SyncedNote synced : addressNotes.getValue().values()) {
+                transactions.add(new WalletTransaction(
+                    WalletTransaction.Type.PRIVATE,
+                    WalletTransaction.Direction.IN,
+                    this.getConfirmations(synced.height, synced.unconfirmedConfirmations),
+                    synced.note.amount,
+                    synced.time,
+                    addressNotes.getKey(),
+                    synced.note.txID
+                ));
+            }
+        }
+        return transactions;
+    }
+
+    private static class SyncedEntry {
+        final TransactionListEntry entry;
+        final int height;
+
+        SyncedEntry(final TransactionListEntry entry, final int height) {
+            this.entry = entry;
+            this.height = height;
+        }
+    }
+
+    private static class SyncedNote {
+        final ReceivedNote note;
+        int height = UNKNOWN_HEIGHT;
+        long time = -1;
+        // 0 while in the mempool, negative if conflicted
+        int unconfirmedConfirmations = 0;
+
+        SyncedNote(final ReceivedNote note) {
+            this.note = note;
+        }
+    }
+
+    // listsinceblock: {"transactions": [...], "lastblock": "..."}
+    private static class SinceBlockDecoder extends TransactionListEntry.Decoder {
+        String lastBlock;
+
+        SinceBlockDecoder(final Consumer<? super TransactionListEntry> sink) {
+            super(sink, 3);
+        }
+
+        @Override
+        protected void topLevelStringField(final String name, final String value) {
+            if (name.equals("lastblock")) {
+                lastBlock = value;
+            }
+        }
+    }
+}
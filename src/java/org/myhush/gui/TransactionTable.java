@@ -7,11 +7,18 @@ package org.myhush.gui;
 
 import javax.swing.*;
 import javax.swing.border.EtchedBorder;
+import javax.swing.filechooser.FileFilter;
+import javax.swing.filechooser.FileNameExtensionFilter;
 import java.awt.*;
 import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.io.File;
+import java.io.IOException;
 import java.net.URL;
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 
@@ -19,13 +26,31 @@ import java.util.Map.Entry;
  * Table to be used for transactions - specifically.
  */
 class TransactionTable extends DataTable {
+    private final TransactionTableModel transactionModel;
+
     TransactionTable(
-            final Object[][] rowData,
-            final Object[] columnNames,
+            final TransactionTableModel transactionModel,
             final JFrame parent,
             final HushCommandLineBridge cliBridge
     ) {
-        super(rowData, columnNames);
+        super(transactionModel);
+        this.transactionModel = transactionModel;
+        this.updateSortIndicator();
+        exportMenuItem.setText("Export data to CSV or JSON Lines...");
+
+        // Clicking a column header sorts by it, clicking it again reverses the order
+        this.getTableHeader().addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(final MouseEvent event) {
+                final int viewColumn = TransactionTable.this.columnAtPoint(event.getPoint());
+                if ((event.getButton() != MouseEvent.BUTTON1) || (viewColumn < 0)) {
+                    return;
+                }
+                transactionModel.sortBy(TransactionTable.this.convertColumnIndexToModel(viewColumn));
+                TransactionTable.this.updateSortIndicator();
+            }
+        });
+
         final int acceleratorKeyMask = Toolkit.getDefaultToolkit().getMenuShortcutKeyMask();
 
         final JMenuItem showDetails = new JMenuItem("Show details...");
@@ -38,7 +63,7 @@ class TransactionTable extends DataTable {
                 return;
             }
             try {
-                final String txID = TransactionTable.this.getModel().getValueAt(lastRow, 6).toString().replaceAll("\"", "");
+                final String txID = TransactionTable.this.getTransactionAt(lastRow).txID;
                 System.out.println("Transaction ID for detail dialog is: " + txID);
                 final Map<String, String> details = cliBridge.getRawTransactionDetails(txID);
                 final String rawTrans = cliBridge.getRawTransaction(txID);
@@ -59,7 +84,7 @@ class TransactionTable extends DataTable {
                 return;
             }
             try {
-                final String txID = TransactionTable.this.getModel().getValueAt(lastRow, 6).toString().replaceAll("\"", "");
+                final String txID = TransactionTable.this.getTransactionAt(lastRow).txID;
                 System.out.println("Transaction ID for block explorer is: " + txID);
                 Desktop.getDesktop().browse(new URL("http://explorer.myhush.org/tx/" + txID).toURI()); // BRX-TODO: Move base URL to a configuration file
             } catch (final Exception e) {
@@ -79,8 +104,9 @@ class TransactionTable extends DataTable {
             }
             final Cursor oldCursor = parent.getCursor();
             try {
-                final String txID = TransactionTable.this.getModel().getValueAt(lastRow, 6).toString().replaceAll("\"", "");
-                final String acc = TransactionTable.this.getModel().getValueAt(lastRow, 5).toString().replaceAll("\"", "");
+                final WalletTransaction transaction = TransactionTable.this.getTransactionAt(lastRow);
+                final String txID = transaction.txID;
+                final String acc = (transaction.address != null) ? transaction.address : "";
 
                 // TODO: We need a much more precise criterion to distinguish T/Z adresses;
                 final boolean isZAddress = acc.startsWith("z") && acc.length() > 40;
@@ -126,6 +152,86 @@ class TransactionTable extends DataTable {
         });
     }
 
+    // Exports all transactions, or those found by the search, in the order shown - written in the background
+    @Override
+    void exportData() {
+        final JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("Export transactions...");
+        fileChooser.setAcceptAllFileFilterUsed(false);
+        final Map<FileFilter, TransactionExport.Format> formats = new LinkedHashMap<>();
+        for (final TransactionExport.Format format : TransactionExport.Format.values()) {
+            final FileFilter filter = new FileNameExtensionFilter(format.description, format.extension);
+            formats.put(filter, format);
+            fileChooser.addChoosableFileFilter(filter);
+        }
+        fileChooser.setFileFilter(formats.keySet().iterator().next());
+
+        final Component parent = this.getRootPane().getParent();
+        if (fileChooser.showSaveDialog(parent) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        final TransactionExport.Format format = formats.get(fileChooser.getFileFilter());
+        final File selectedFile = fileChooser.getSelectedFile();
+        final File file = selectedFile.getName().contains(".") ? selectedFile
+                                                               : new File(selectedFile.getPath() + "." + format.extension);
+
+        final TransactionExport export = transactionModel.createExport(format);
+        final ProgressMonitor progressMonitor = new ProgressMonitor(
+            parent, "Exporting " + export.getRowCount() + " transactions...", null, 0, export.getRowCount()
+        );
+        progressMonitor.setMillisToDecideToPopup(100);
+        progressMonitor.setMillisToPopup(200);
+        final Thread exportThread = new Thread(() -> {
+            try {
+                final long start = System.currentTimeMillis();
+                final boolean isComplete = export.writeTo(file, rows -> {
+                    SwingUtilities.invokeLater(() -> progressMonitor.setProgress(rows));
+                    return !progressMonitor.isCanceled();
+                });
+                System.out.println(
+                    "Export of transactions " + (isComplete ? "done" : "cancelled") + " in " + (System.currentTimeMillis() - start) + "ms."
+                );
+                SwingUtilities.invokeLater(() -> {
+                    progressMonitor.close();
+                    if (isComplete) {
+                        JOptionPane.showMessageDialog(
+                            parent,
+                            "The transactions have been exported successfully to location:\n" + file.getAbsolutePath(),
+                            "Export successful...",
+                            JOptionPane.INFORMATION_MESSAGE
+                        );
+                    }
+                });
+            } catch (final IOException e) {
+                e.printStackTrace();
+                SwingUtilities.invokeLater(() -> {
+                    progressMonitor.close();
+                    JOptionPane.showMessageDialog(
+                        parent,
+                        "An unexpected error occurred when exporting transactions.\n\n" + e.getMessage(),
+                        "Error in export", JOptionPane.ERROR_MESSAGE
+                    );
+                });
+            }
+        }, "TransactionExport");
+        exportThread.setDaemon(true);
+        exportThread.start();
+    }
+
+    private void updateSortIndicator() {
+        for (int column = 0; column < this.getColumnModel().getColumnCount(); column++) {
+            final int modelColumn = this.convertColumnIndexToModel(column);
+            final String name = transactionModel.getColumnName(modelColumn);
+            this.getColumnModel().getColumn(column).setHeaderValue(
+                (modelColumn == transactionModel.getSortColumn()) ? (name + (transactionModel.isSortDescending() ? " \u25BC" : " \u25B2")) : name
+            );
+        }
+        this.getTableHeader().repaint();
+    }
+
+    private WalletTransaction getTransactionAt(final int viewRow) {
+        return transactionModel.getTransactionAt(this.convertRowIndexToModel(viewRow));
+    }
 
     private static class DetailsDialog extends JDialog {
         DetailsDialog(final JFrame parent, final Map<String, String> details) {
@@ -0,0 +1,217 @@
+// Copyright (c) 2018 The Hush Developers <contact@myhush.org>
+//
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+package org.myhush.gui;
+
+import javax.swing.table.AbstractTableModel;
+import java.math.BigDecimal;
+import java.text.DecimalFormat;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
+
+/**
+ * Table model over a {@link TransactionHistoryIndex}. Transactions are materialized a page at a time as the table
+ * renders them, and only the last few pages are kept, so the table costs about the same for any number of
+ * transactions. Values are formatted for display only as cells are rendered. Sorting and filtering are done by the
+ * index; a new index is compared with the shown one, so only the rows that changed are reported to the table.
+ */
+class TransactionTableModel extends AbstractTableModel {
+    private static final String[] COLUMN_NAMES = {
+        "Type", "Direction", "Confirmed?", "Amount", "Date", "Destination Address"
+    };
+    private static final TransactionHistoryIndex.Column[] COLUMNS = TransactionHistoryIndex.Column.values();
+    private static final String CONFIRMED = App.SPECIAL_CHARACTER_PROVIDER.getConfirmedBalanceSymbol();
+    private static final String NOT_CONFIRMED = App.SPECIAL_CHARACTER_PROVIDER.getUnconfirmedBalanceSymbol();
+    private static final String NOT_LISTED = App.SPECIAL_CHARACTER_PROVIDER.getUnlistedAddressSymbol();
+    private static final int PAGE_SIZE = 256;
+    private static final int MAX_PAGES = 8;
+
+    // Format numbers - else sometimes we get exponential notation 1E-4 HUSH
+    private final DecimalFormat amountFormat = new DecimalFormat("########0.00######");
+    // Materialized pages by page number, least recently used first
+    private final Map<Integer, WalletTransaction[]> pages = new LinkedHashMap<Integer, WalletTransaction[]>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<Integer, WalletTransaction[]> eldest) {
+            return this.size() > MAX_PAGES;
+        }
+    };
+
+    private TransactionHistoryIndex index;
+    // Newest first by default
+    private TransactionHistoryIndex.Column sortColumn = TransactionHistoryIndex.Column.TIME;
+    private boolean sortDescending = true;
+    // Filter of the rows of each index, or null for all rows
+    private Function<TransactionHistoryIndex, IntPredicate> filter = null;
+    // Index rows in table order
+    private int[] view;
+
+    TransactionTableModel(final TransactionHistoryIndex index) {
+        this.index = index;
+        this.view = index.getView(sortColumn, sortDescending, this.getFilter(index));
+    }
+
+    WalletTransaction getTransactionAt(final int row) {
+        final int pageNumber = row / PAGE_SIZE;
+        WalletTransaction[] page = pages.get(pageNumber);
+        if (page == null) {
+            final int start = pageNumber * PAGE_SIZE;
+            page = new WalletTransaction[Math.min(PAGE_SIZE, view.length - start)];
+            for (int i = 0; i < page.length; i++) {
+                page[i] = index.get(view[start + i]);
+            }
+            pages.put(pageNumber, page);
+        }
+        return page[row % PAGE_SIZE];
+    }
+
+    TransactionHistoryIndex getIndex() {
+        return index;
+    }
+
+    /**
+     * @return an export of the rows as shown now, to be written in the background
+     */
+    TransactionExport createExport(final TransactionExport.Format format) {
+        return new TransactionExport(index, view, format);
+    }
+
+    /**
+     * Shows a new index - to be called on the event dispatch thread.
+     */
+    void setIndex(final TransactionHistoryIndex newIndex) {
+        final TransactionHistoryIndex oldIndex = index;
+        final int[] oldView = view;
+        index = newIndex;
+        view = newIndex.getView(sortColumn, sortDescending, this.getFilter(newIndex));
+        pages.clear();
+        this.fireChanges(oldIndex, oldView);
+    }
+
+    /**
+     * Sorts by a column, or reverses the order if already sorted by it - dates are sorted newest first at first.
+     */
+    void sortBy(final int column) {
+        if (COLUMNS[column] == sortColumn) {
+            sortDescending = !sortDescending;
+        } else {
+            sortColumn = COLUMNS[column];
+            sortDescending = (sortColumn == TransactionHistoryIndex.Column.TIME);
+        }
+        view = index.getView(sortColumn, sortDescending, this.getFilter(index));
+        pages.clear();
+        this.fireTableDataChanged();
+    }
+
+    /**
+     * Shows only the rows accepted by the filter, applied to each new index as well, or all rows if null.
+     */
+    void setFilter(final Function<TransactionHistoryIndex, IntPredicate> filter) {
+        final int[] oldView = view;
+        this.filter = filter;
+        view = index.getView(sortColumn, sortDescending, this.getFilter(index));
+        pages.clear();
+        this.fireChanges(index, oldView);
+    }
+
+    private IntPredicate getFilter(final TransactionHistoryIndex index) {
+        return (filter != null) ? filter.apply(index) : null;
+    }
+
+    boolean isFiltered() {
+        return filter != null;
+    }
+
+    int getSortColumn() {
+        return sortColumn.ordinal();
+    }
+
+    boolean isSortDescending() {
+        return sortDescending;
+    }
+
+    // Rows the old and new views start and end with stay; those in between are reported as changed, and the
+    // difference in their number as inserted or deleted. Rows that stay but look different are reported as updated.
+    private void fireChanges(final TransactionHistoryIndex oldIndex, final int[] oldView) {
+        final int common = Math.min(oldView.length, view.length);
+        int prefix = 0;
+        while ((prefix < common) && (oldIndex.getKeyHash(oldView[prefix]) == index.getKeyHash(view[prefix]))) {
+            prefix++;
+        }
+        int suffix = 0;
+        while ((suffix < (common - prefix)) &&
+               (oldIndex.getKeyHash(oldView[oldView.length - 1 - suffix]) == index.getKeyHash(view[view.length - 1 - suffix]))) {
+            suffix++;
+        }
+
+        final int oldMiddle = oldView.length - prefix - suffix;
+        final int newMiddle = view.length - prefix - suffix;
+        if (newMiddle > oldMiddle) {
+            this.fireTableRowsInserted(prefix + oldMiddle, prefix + newMiddle - 1);
+        } else if (oldMiddle > newMiddle) {
+            this.fireTableRowsDeleted(prefix + newMiddle, prefix + oldMiddle - 1);
+        }
+        if (Math.min(oldMiddle, newMiddle) > 0) {
+            this.fireTableRowsUpdated(prefix, prefix + Math.min(oldMiddle, newMiddle) - 1);
+        }
+
+        this.fireContentChanges(oldIndex, oldView, 0, 0, prefix);
+        this.fireContentChanges(oldIndex, oldView, oldView.length - suffix, view.length - suffix, suffix);
+    }
+
+    private void fireContentChanges(
+        final TransactionHistoryIndex oldIndex, final int[] oldView, final int oldStart, final int newStart, final int length
+    ) {
+        int updateStart = -1;
+        for (int i = 0; i <= length; i++) {
+            final boolean isChanged = (i < length) &&
+                (oldIndex.getContentHash(oldView[oldStart + i]) != index.getContentHash(view[newStart + i]));
+            if (isChanged && (updateStart < 0)) {
+                updateStart = newStart + i;
+            } else if (!isChanged && (updateStart >= 0)) {
+                this.fireTableRowsUpdated(updateStart, newStart + i - 1);
+                updateStart = -1;
+            }
+        }
+    }
+
+    @Override
+    public int getRowCount() {
+        return view.length;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMN_NAMES.length;
+    }
+
+    @Override
+    public String getColumnName(final int column) {
+        return COLUMN_NAMES[column];
+    }
+
+    @Override
+    public Object getValueAt(final int row, final int column) {
+        final WalletTransaction transaction = this.getTransactionAt(row);
+        switch (column) {
+            case 0:
+                return transaction.type.getLabel();
+            case 1:
+                return transaction.direction.getLabel();
+            case 2:
+                return transaction.isConfirmed() ? ("Yes " + CONFIRMED) : ("No  " + NOT_CONFIRMED);
+            case 3:
+                return amountFormat.format(BigDecimal.valueOf(Math.abs(transaction.amount), Zatoshi.DECIMALS));
+            case 4:
+                return (transaction.time < 0) ? "N/A" : new Date(transaction.time * 1000L).toLocaleString();
+            case 5:
+                return (transaction.address != null) ? transaction.address
+                                                     : (NOT_LISTED + " (Z Address not listed by wallet!)");
+            default:
+                throw new IndexOutOfBoundsException("No column " + column);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+// Copyright (c) 2018 The Hush Developers <contact@myhush.org>
+//
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+package org.myhush.gui;
+
+import java.util.function.Consumer;
+
+/**
+ * An entry of the `listunspent` result - a transparent output the wallet can spend or watches.
+ */
+final class UnspentOutput {
+    final String txID;
+    final int vout;
+    final String address;
+    final long amount;
+    final int confirmations;
+    final boolean spendable;
+
+    UnspentOutput(
+        final String txID,
+        final int vout,
+        final String address,
+        final long amount,
+        final int confirmations,
+        final boolean spendable
+    ) {
+        this.txID = txID;
+        this.vout = vout;
+        this.address = address;
+        this.amount = amount;
+        this.confirmations = confirmations;
+        this.spendable = spendable;
+    }
+
+    static class Decoder extends JsonRecordDecoder<UnspentOutput> {
+        private String txID;
+        private int vout;
+        private String address;
+        private long amount;
+        private int confirmations;
+        private boolean spendable;
+
+        Decoder(final Consumer<? super UnspentOutput> sink) {
+            super(sink);
+        }
+
+        @Override
+        protected void startRecord() {
+            txID = null;
+            vout = -1;
+            address = null;
+            amount = 0;
+            confirmations = 0;
+            spendable = false;
+        }
+
+        @Override
+        protected void stringField(final String name, final String value) {
+            switch (name) {
+                case "txid":
+                    txID = value;
+                    break;
+                case "address":
+                    address = value;
+                    break;
+            }
+        }
+
+        @Override
+        protected void numberField(final String name, final String value) {
+            switch (name) {
+                case "vout":
+                    vout = Integer.parseInt(value);
+                    break;
+                case "amount":
+                    amount = Zatoshi.parse(value);
+                    break;
+                case "confirmations":
+                    confirmations = Integer.parseInt(value);
+                    break;
+            }
+        }
+
+        @Override
+        protected void booleanField(final String name, final boolean value) {
+            if (name.equals("spendable")) {
+                spendable = value;
+            }
+        }
+
+        @Override
+        protected UnspentOutput endRecord() {
+            return new UnspentOutput(txID, vout, address, amount, confirmations, spendable);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+// Copyright (c) 2018 The Hush Developers <contact@myhush.org>
+//
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+package org.myhush.gui;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Tells whether data kept in the settings directory belongs to the wallet the daemon has loaded, by the contents of
+ * the wallet rather than the path of its file. The fingerprint is an address of the wallet, stored with the data;
+ * the data belongs to the loaded wallet if that wallet owns the address. As keys are never removed from a wallet,
+ * the fingerprint holds as the wallet grows, and also for a wallet restored from a backup.
+ */
+class WalletFingerprint {
+    private final HushCommandLineBridge bridge;
+    // null until asked for
+    private String fingerprint = null;
+
+    WalletFingerprint(final HushCommandLineBridge bridge) {
+        this.bridge = bridge;
+    }
+
+    /**
+     * @return the fingerprint of the loaded wallet - its first T address, or first Z address if it has no T address
+     */
+    synchronized String get() throws HushCommandLineBridge.WalletCallException, IOException, InterruptedException {
+        if (fingerprint == null) {
+            String[] addresses = bridge.getWalletAllPublicAddresses();
+            if (addresses.length == 0) {
+                addresses = bridge.getWalletZAddresses();
+            }
+            Arrays.sort(addresses);
+            fingerprint = (addresses.length > 0) ? addresses[0] : "";
+        }
+        return fingerprint;
+    }
+
+    /**
+     * @return whether the fingerprint stored with some data is that of the loaded wallet
+     */
+    boolean matches(final String storedFingerprint)
+            throws HushCommandLineBridge.WalletCallException, IOException, InterruptedException {
+        if (storedFingerprint.isEmpty()) {
+            return false;
+        }
+        if (storedFingerprint.equals(this.get())) {
+            return true;
+        }
+        return bridge.isWalletAddress(storedFingerprint);
+    }
+}
@@ -23,6 +23,7 @@ class WalletOperations {
     private final DashboardPanel dashboard;
     private final SendCashPanel sendCash;
     private final AddressesPanel addresses;
+    private final WalletStateService walletState;
 
     private final HushCommandLineBridge cliBridge;
     private final StatusUpdateErrorReporter errorReporter;
@@ -34,6 +35,7 @@ class WalletOperations {
             final DashboardPanel dashboard,
             final AddressesPanel addresses,
             final SendCashPanel sendCash,
+            final WalletStateService walletState,
             final HushCommandLineBridge cliBridge,
             final StatusUpdateErrorReporter errorReporter
     ) {
@@ -42,6 +44,7 @@ class WalletOperations {
         this.dashboard = dashboard;
         this.addresses = addresses;
         this.sendCash = sendCash;
+        this.walletState = walletState;
         this.cliBridge = cliBridge;
         this.errorReporter = errorReporter;
     }
@@ -69,6 +72,7 @@ class WalletOperations {
             final Cursor oldCursor = this.parent.getCursor();
             try {
                 this.parent.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+                this.walletState.stop();
                 this.dashboard.stopThreadsAndTimers();
                 this.sendCash.stopThreadsAndTimers();
                 this.cliBridge.encryptWallet(passwordEncryptionDialog.getPassword());
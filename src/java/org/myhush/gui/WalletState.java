@@ -0,0 +1,33 @@
+// Copyright (c) 2018 The Hush Developers <contact@myhush.org>
+//
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+package org.myhush.gui;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Snapshot of the wallet as shown by the panels - balances, addresses and transactions gathered at one time.
+ * Snapshots are shared between panels and must not be modified.
+ */
+final class WalletState {
+    final HushCommandLineBridge.WalletBalance balance;
+    final boolean walletEncrypted;
+    final TransactionHistoryIndex transactions;
+    // Valid T addresses, then Z addresses
+    final Map<String, AddressBalance> addressBalances;
+
+    WalletState(
+        final HushCommandLineBridge.WalletBalance balance,
+        final boolean walletEncrypted,
+        final TransactionHistoryIndex transactions,
+        final Map<String, AddressBalance> addressBalances
+    ) {
+        this.balance = balance;
+        this.walletEncrypted = walletEncrypted;
+        this.transactions = transactions;
+        this.addressBalances = Collections.unmodifiableMap(new LinkedHashMap<>(addressBalances));
+    }
+}
@@ -0,0 +1,208 @@
+// Copyright (c) 2018 The Hush Developers <contact@myhush.org>
+//
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+package org.myhush.gui;
+
+import javax.swing.*;
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Gathers the wallet state once for all panels and publishes each new {@link WalletState} to them on the event
+ * dispatch thread, so the load on the daemon does not depend on how many panels show wallet data.
+ * <p>
+ * The wallet state is gathered again only when a cheap probe shows that the chain tip or the set of wallet
+ * transactions changed, when the daemon signals such a change, on request, or when the state is older than the
+ * refresh interval. How often to probe and the refresh interval follow the {@link PollingCadence}.
+ */
+class WalletStateService {
+    private final HushCommandLineBridge cliBridge;
+    private final StatusUpdateErrorReporter errorReporter;
+    private final ChainTipWatcher tipWatcher;
+    private final TransactionStore transactionStore;
+    private final PollingCadence cadence;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private volatile WalletState state = null;
+    // Guards the gathering task apart from the gathering itself, so the event dispatch thread never waits for it
+    private final Object taskLock = new Object();
+    private DataGatheringTask<WalletState> gatheringTask = null;
+    // Probe result the current state was gathered at
+    private String stateTip = null;
+    private long stateTime = 0;
+    private volatile boolean refreshRequested = false;
+
+    WalletStateService(
+        final HushCommandLineBridge cliBridge,
+        final PollingCadence cadence,
+        final StatusUpdateErrorReporter errorReporter
+    ) {
+        this.cliBridge = cliBridge;
+        this.cadence = cadence;
+        this.errorReporter = errorReporter;
+        this.tipWatcher = new ChainTipWatcher(
+            cliBridge, new File(App.PATH_PROVIDER.getSettingsDirectory(), Constants.CHAIN_NOTIFY_FILENAME)
+        );
+        this.transactionStore = new TransactionStore(
+            new File(App.PATH_PROVIDER.getSettingsDirectory(), Constants.TRANSACTION_SNAPSHOT_FILENAME),
+            new File(App.PATH_PROVIDER.getSettingsDirectory(), Constants.TRANSACTION_LOG_FILENAME),
+            cliBridge.getWalletFingerprint()
+        );
+        cadence.addListener(this::reschedule);
+    }
+
+    // null until gathered once
+    WalletState getState() {
+        return state;
+    }
+
+    void addListener(final Listener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Gathers the wallet state now and publishes it.
+     *
+     * @return the new state
+     */
+    synchronized WalletState refresh() throws HushCommandLineBridge.WalletCallException, IOException, InterruptedException {
+        return this.refresh(tipWatcher.probe());
+    }
+
+    /**
+     * Gathers the wallet state with the transactions stored by the previous run - or none if nothing is stored -
+     * rather than waiting for all of them to be synchronized. They are synchronized with the daemon by the first
+     * background refresh, once started.
+     *
+     * @return the new state
+     */
+    synchronized WalletState refreshFromStore()
+            throws HushCommandLineBridge.WalletCallException, IOException, InterruptedException {
+        final long start = System.currentTimeMillis();
+        final TransactionHistoryIndex storedTransactions = transactionStore.load(cliBridge.getBlockCount());
+        final TransactionHistoryIndex transactions = (storedTransactions != null)
+            ? storedTransactions : TransactionHistoryIndex.build(Collections.<WalletTransaction>emptyList());
+        // No tip, so the first probe refreshes
+        return this.publish(this.gather(transactions), null, start);
+    }
+
+    // Gathers the wallet state if it is outdated, otherwise keeps the current one
+    private synchronized WalletState refreshIfChanged()
+            throws HushCommandLineBridge.WalletCallException, IOException, InterruptedException {
+        final boolean requested = refreshRequested;
+        refreshRequested = false;
+        final String tip = tipWatcher.probe();
+        if (requested || (state == null) || !tip.equals(stateTip) ||
+            ((System.currentTimeMillis() - stateTime) >= cadence.getInterval(PollingCadence.Poll.WALLET_REFRESH))) {
+            return this.refresh(tip);
+        }
+        return state;
+    }
+
+    private WalletState refresh(final String tip)
+            throws HushCommandLineBridge.WalletCallException, IOException, InterruptedException {
+        final long start = System.currentTimeMillis();
+        // Public+private transactions, synchronized incrementally - the index sorts them for the table
+        final TransactionHistoryIndex transactions = TransactionHistoryIndex.build(cliBridge.getWalletTransactions());
+        transactionStore.save(transactions, cliBridge.getSyncedTipHeight());
+        return this.publish(this.gather(transactions), tip, start);
+    }
+
+    private WalletState publish(final WalletState newState, final String tip, final long start) {
+        final long end = System.currentTimeMillis();
+        System.out.println("Gathering of wallet state done in " + (end - start) + "ms.");
+
+        // Changes after the probe show up in the next probe
+        stateTip = tip;
+        stateTime = start;
+        state = newState;
+        SwingUtilities.invokeLater(() -> {
+            for (final Listener listener : listeners) {
+                listener.walletStateChanged(newState);
+            }
+        });
+        return newState;
+    }
+
+    // Starts probing for changes periodically and watching for daemon notifications
+    void start() {
+        synchronized (taskLock) {
+            if (gatheringTask == null) {
+                gatheringTask = new DataGatheringTask<>(
+                    this::refreshIfChanged, errorReporter, () -> cadence.getInterval(PollingCadence.Poll.WALLET_PROBE)
+                );
+                tipWatcher.startWatching(this::probeNow);
+            }
+        }
+    }
+
+    // Refreshes in the background as soon as possible
+    void refreshNow() {
+        refreshRequested = true;
+        this.probeNow();
+    }
+
+    void stop() {
+        synchronized (taskLock) {
+            if (gatheringTask != null) {
+                tipWatcher.stopWatching();
+                gatheringTask.cancel();
+                gatheringTask = null;
+            }
+        }
+    }
+
+    private void reschedule() {
+        synchronized (taskLock) {
+            if (gatheringTask != null) {
+                gatheringTask.reschedule();
+            }
+        }
+    }
+
+    private void probeNow() {
+        synchronized (taskLock) {
+            if (gatheringTask != null) {
+                gatheringTask.refreshNow();
+            }
+        }
+    }
+
+    private WalletState gather(final TransactionHistoryIndex transactions)
+            throws HushCommandLineBridge.WalletCallException, IOException, InterruptedException {
+        // Sorted and searchable here rather than on the event dispatch thread
+        transactions.getView(TransactionHistoryIndex.Column.TIME, true, null);
+        transactions.getSearchIndex();
+
+        final HushCommandLineBridge.WalletBalance balance = cliBridge.getWalletInfo();
+        final boolean walletEncrypted = cliBridge.isWalletEncrypted();
+
+        // T addresses created inside the wallet that may be empty, and those with unspent outputs - just in case
+        // they are different
+        final Set<String> tAddresses = new HashSet<>();
+        Collections.addAll(tAddresses, cliBridge.getWalletAllPublicAddresses());
+        Collections.addAll(tAddresses, cliBridge.getWalletPublicAddressesWithUnspentOutputs());
+
+        // Invalid or watch-only addresses are not shown
+        final List<String> addresses = new ArrayList<>();
+        final Map<String, Boolean> watchOnlyOrInvalid = cliBridge.getWatchOnlyOrInvalidAddresses(tAddresses);
+        for (final String address : tAddresses) {
+            if (!watchOnlyOrInvalid.get(address)) {
+                addresses.add(address);
+            }
+        }
+        // Z addresses can't be handled above as they will be flagged as invalid.
+        Collections.addAll(addresses, cliBridge.getWalletZAddresses());
+
+        return new WalletState(balance, walletEncrypted, transactions, cliBridge.getAddressBalances(addresses));
+    }
+
+    /**
+     * Notified on the event dispatch thread of each newly gathered state.
+     */
+    interface Listener {
+        void walletStateChanged(WalletState state);
+    }
+}
@@ -13,9 +13,9 @@ import java.util.List;
  * Base for all panels contained as wallet TABS.
  */
 class WalletTabPanel extends JPanel {
-    // Lists of threads and timers that may be stopped if necessary
+    // Lists of gathering tasks and timers that may be stopped if necessary
     final List<Timer> timers = new ArrayList<>();
-    final List<DataGatheringThread<?>> threads = new ArrayList<>();
+    final List<DataGatheringTask<?>> gatheringTasks = new ArrayList<>();
 
     WalletTabPanel() {
         super();
@@ -25,8 +25,8 @@ class WalletTabPanel extends JPanel {
         for (final Timer timer : timers) {
             timer.stop();
         }
-        for (final DataGatheringThread<?> thread : threads) {
-            thread.setSuspended(true);
+        for (final DataGatheringTask<?> task : gatheringTasks) {
+            task.cancel();
         }
     }
 }
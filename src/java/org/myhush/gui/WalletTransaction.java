@@ -0,0 +1,126 @@
+// Copyright (c) 2018 The Hush Developers <contact@myhush.org>
+//
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+package org.myhush.gui;
+
+import java.util.Objects;
+
+/**
+ * A wallet transaction as shown on the dashboard - a transparent transaction entry or a note received by a Z address.
+ */
+public final class WalletTransaction {
+    public enum Type {
+        PUBLIC("\u2606T (Public)"),
+        PRIVATE("\u2605Z (Private)");
+
+        private final String label;
+
+        Type(final String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    public enum Direction {
+        IN("\u21E8 IN"),
+        OUT("\u21E6 OUT"),
+        MINED("\u2692\u2699 MINED"),
+        IMMATURE("\u2696 Immature"),
+        ORPHAN("Orphan"),
+        OTHER("?");
+
+        private final String label;
+
+        Direction(final String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        // From the transaction category as reported by the daemon
+        static Direction fromCategory(final String category) {
+            if (category == null) {
+                return OTHER;
+            }
+            switch (category) {
+                case "receive":
+                    return IN;
+                case "send":
+                    return OUT;
+                case "generate":
+                    return MINED;
+                case "immature":
+                    return IMMATURE;
+                case "orphan":
+                    return ORPHAN;
+                default:
+                    return OTHER;
+            }
+        }
+    }
+
+    public final Type type;
+    public final Direction direction;
+    public final int confirmations;
+    // In zatoshi, negative for outgoing transactions
+    public final long amount;
+    // Epoch seconds, negative if unknown
+    public final long time;
+    // null if the wallet does not list it
+    public final String address;
+    public final String txID;
+
+    WalletTransaction(
+        final Type type,
+        final Direction direction,
+        final int confirmations,
+        final long amount,
+        final long time,
+        final String address,
+        final String txID
+    ) {
+        this.type = type;
+        this.direction = direction;
+        this.confirmations = confirmations;
+        this.amount = amount;
+        this.time = time;
+        this.address = address;
+        this.txID = txID;
+    }
+
+    public boolean isConfirmed() {
+        return confirmations > 0;
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof WalletTransaction)) {
+            return false;
+        }
+        final WalletTransaction transaction = (WalletTransaction) other;
+        return (type == transaction.type) &&
+               (direction == transaction.direction) &&
+               (confirmations == transaction.confirmations) &&
+               (amount == transaction.amount) &&
+               (time == transaction.time) &&
+               Objects.equals(address, transaction.address) &&
+               Objects.equals(txID, transaction.txID);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = txID != null ? txID.hashCode() : 0;
+        result = 31 * result + Long.hashCode(amount);
+        result = 31 * result + confirmations;
+        return result;
+    }
+}
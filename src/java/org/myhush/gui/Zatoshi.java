@@ -0,0 +1,31 @@
+// Copyright (c) 2018 The Hush Developers <contact@myhush.org>
+//
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+package org.myhush.gui;
+
+import java.math.BigDecimal;
+
+/**
+ * Conversions of HUSH amounts to and from zatoshi, the 10^-8 unit amounts are kept in.
+ */
+final class Zatoshi {
+    static final int DECIMALS = 8;
+
+    private Zatoshi() {
+    }
+
+    /**
+     * Parses an amount as the daemon writes it, e.g. "-0.00010000".
+     */
+    static long parse(final String amount) {
+        return new BigDecimal(amount.trim()).movePointRight(DECIMALS).longValueExact();
+    }
+
+    /**
+     * Formats an amount the way the daemon does, with all 8 decimals.
+     */
+    static String toPlainString(final long zatoshi) {
+        return BigDecimal.valueOf(zatoshi, DECIMALS).toPlainString();
+    }
+}
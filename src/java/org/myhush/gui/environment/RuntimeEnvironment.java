@@ -8,6 +8,7 @@ import org.myhush.gui.App;
 import org.myhush.gui.CommandExecutor;
 import org.myhush.gui.environment.file.*;
 import org.myhush.gui.environment.system.DaemonInfoProvider;
+import org.myhush.gui.environment.system.LinuxDaemonInfoProvider;
 import org.myhush.gui.environment.system.NonWindowsDaemonInfoProvider;
 import org.myhush.gui.environment.system.WindowsDaemonInfoProvider;
 import org.myhush.gui.environment.text.NonWindowsSpecialCharacterProvider;
@@ -79,6 +80,8 @@ public class RuntimeEnvironment {
     public static DaemonInfoProvider getDaemonInfoProvider() {
         if (osType == OS_TYPE.WINDOWS) {
             return new WindowsDaemonInfoProvider();
+        } else if (LinuxDaemonInfoProvider.isSupported()) {
+            return new LinuxDaemonInfoProvider();
         } else {
             return new NonWindowsDaemonInfoProvider();
         }
@@ -90,9 +93,9 @@ public class RuntimeEnvironment {
             return System.getProperty("os.name");
         } else if (osType == OS_TYPE.MAC) {
             final CommandExecutor uname = new CommandExecutor(new String[]{ "uname", "-sr" });
-            return uname.execute() + "; " + System.getProperty("os.name") + " " + System.getProperty("os.version");
+            return uname.execute().getOutput() + "; " + System.getProperty("os.name") + " " + System.getProperty("os.version");
         } else {
-            return new CommandExecutor(new String[]{ "uname", "-srv" }).execute();
+            return new CommandExecutor(new String[]{ "uname", "-srv" }).execute().getOutput();
         }
     }
 }
@@ -4,5 +4,6 @@ public class DaemonInfo {
     public DaemonState status;
     public double residentSizeMB;
     public double virtualSizeMB;
+    // NaN if not known yet
     public double cpuPercentage;
 }
@@ -1,7 +1,45 @@
 package org.myhush.gui.environment.system;
 
+import org.myhush.gui.App;
+
+import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 
 public abstract class DaemonInfoProvider {
+    static final int NO_PID = -1;
+
     public abstract DaemonInfo getDaemonInfo() throws IOException, InterruptedException;
+
+    /**
+     * Watches a daemon started by the GUI, so that its exit is noticed right away rather than at the next lookup.
+     */
+    public void watchDaemonProcess(final Process daemonProcess) {
+        final Thread watcherThread = new Thread(() -> {
+            try {
+                daemonProcess.waitFor();
+            } catch (final InterruptedException e) {
+                return;
+            }
+            System.out.println("hushd exited with code " + daemonProcess.exitValue());
+            this.daemonExited();
+        }, "DaemonExitWatcher");
+        watcherThread.setDaemon(true);
+        watcherThread.start();
+    }
+
+    // Called once a daemon started by the GUI has exited
+    void daemonExited() {
+    }
+
+    // The daemon writes its pid to hushd.pid in the data directory while running (not on Windows) - NO_PID if missing
+    static int readPidFile() {
+        final File pidFile = new File(App.PATH_PROVIDER.getBlockchainDirectory(), App.BINARY_HUSH_DAEMON_BASENAME + ".pid");
+        try {
+            return Integer.parseInt(new String(Files.readAllBytes(pidFile.toPath()), StandardCharsets.US_ASCII).trim());
+        } catch (final IOException | NumberFormatException e) {
+            return NO_PID;
+        }
+    }
 }
@@ -0,0 +1,171 @@
+package org.myhush.gui.environment.system;
+
+import org.myhush.gui.environment.RuntimeEnvironment;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * Reads the daemon's process metrics from procfs, without starting a process per sample. The CPU usage is the share
+ * of CPU time the daemon used since the previous sample, with 100% per core as `ps` reports it - unknown (NaN) for
+ * the first sample of a daemon process.
+ * <p>
+ * The daemon is identified once by the pid in hushd.pid. Only without that file are the processes scanned for it,
+ * at most every {@link #SCAN_INTERVAL_MS}.
+ */
+public class LinuxDaemonInfoProvider extends DaemonInfoProvider {
+    private static final File PROC = new File("/proc");
+    private static final long SCAN_INTERVAL_MS = 30 * 1000;
+
+    private int pid = NO_PID;
+    private long lastScan = 0;
+    // Previous sample, to compute the CPU usage from
+    private long lastProcessJiffies = -1;
+    private long lastTotalJiffies = -1;
+
+    public static boolean isSupported() {
+        return new File(PROC, "self/stat").canRead();
+    }
+
+    @Override
+    public synchronized DaemonInfo getDaemonInfo() throws IOException, InterruptedException {
+        final DaemonInfo info = new DaemonInfo();
+        info.status = DaemonState.UNKNOWN;
+
+        final String[] stat = this.readDaemonStat();
+        if (stat == null) {
+            lastProcessJiffies = -1;
+            return info;
+        }
+        final String status;
+        try {
+            status = readFile(new File(PROC, pid + "/status"));
+        } catch (final IOException e) {
+            // Exited in between
+            return info;
+        }
+        info.status = DaemonState.RUNNING;
+        info.cpuPercentage = Double.NaN;
+        // Sizes in kB, shown in MB like `ps` figures are
+        info.residentSizeMB = getStatusKB(status, "VmRSS:") / 1000d;
+        info.virtualSizeMB = getStatusKB(status, "VmSize:") / 1000d;
+
+        // utime and stime, fields 14 and 15 of /proc/<pid>/stat
+        final long processJiffies = Long.parseLong(stat[11]) + Long.parseLong(stat[12]);
+        final long totalJiffies = readTotalJiffies();
+        if ((lastProcessJiffies >= 0) && (totalJiffies > lastTotalJiffies)) {
+            final double cores = Runtime.getRuntime().availableProcessors();
+            final double percentage =
+                100d * cores * (processJiffies - lastProcessJiffies) / (totalJiffies - lastTotalJiffies);
+            info.cpuPercentage = Math.round(percentage * 10) / 10d;
+        }
+        lastProcessJiffies = processJiffies;
+        lastTotalJiffies = totalJiffies;
+        return info;
+    }
+
+    @Override
+    synchronized void daemonExited() {
+        // Its pid may be reused by another process
+        pid = NO_PID;
+    }
+
+    // Fields of /proc/<pid>/stat after the command, starting with the state (field 3) - null if not running
+    private String[] readDaemonStat() throws IOException {
+        if (pid != NO_PID) {
+            final String[] stat = readStat(pid);
+            if (stat != null) {
+                return stat;
+            }
+            pid = NO_PID;
+        }
+        final int pidFromFile = readPidFile();
+        if (pidFromFile != NO_PID) {
+            // A stale file is left behind if the daemon crashed
+            final String[] stat = readStat(pidFromFile);
+            if (stat != null) {
+                pid = pidFromFile;
+                lastProcessJiffies = -1;
+            }
+            return stat;
+        }
+
+        // The daemon may have been started with another pid file
+        final long now = System.currentTimeMillis();
+        if ((now - lastScan) < SCAN_INTERVAL_MS) {
+            return null;
+        }
+        lastScan = now;
+        final String[] pids = PROC.list((dir, name) -> !name.isEmpty() && Character.isDigit(name.charAt(0)));
+        if (pids == null) {
+            throw new IOException("Listing " + PROC + " failed!");
+        }
+        for (final String candidate : pids) {
+            final String[] stat = readStat(Integer.parseInt(candidate));
+            if (stat != null) {
+                pid = Integer.parseInt(candidate);
+                lastProcessJiffies = -1;
+                return stat;
+            }
+        }
+        return null;
+    }
+
+    // null if the process is gone or is not the daemon
+    private static String[] readStat(final int pid) {
+        final String stat;
+        try {
+            stat = readFile(new File(PROC, pid + "/stat"));
+        } catch (final IOException e) {
+            return null;
+        }
+        // The command is in parentheses and may contain spaces, the kernel truncates it to 15 characters
+        final int commandStart = stat.indexOf('(');
+        final int commandEnd = stat.lastIndexOf(')');
+        if ((commandStart < 0) || (commandEnd < commandStart)) {
+            return null;
+        }
+        final String daemonName = RuntimeEnvironment.getHushDaemonFileName();
+        final String command = stat.substring(commandStart + 1, commandEnd);
+        if (!command.equals(daemonName.substring(0, Math.min(15, daemonName.length())))) {
+            return null;
+        }
+        final String[] fields = stat.substring(commandEnd + 1).trim().split(" ");
+        // Zombies keep their entry until reaped
+        return ((fields.length > 12) && !fields[0].equals("Z")) ? fields : null;
+    }
+
+    // Sum of user to steal time on the "cpu" line of /proc/stat - guest time is included in user time already
+    private static long readTotalJiffies() throws IOException {
+        final String stat = readFile(new File(PROC, "stat"));
+        final int lineEnd = stat.indexOf('\n');
+        final String[] fields = stat.substring(0, (lineEnd < 0) ? stat.length() : lineEnd).trim().split("\\s+");
+        long total = 0;
+        for (int i = 1; i < Math.min(fields.length, 9); i++) {
+            total += Long.parseLong(fields[i]);
+        }
+        return total;
+    }
+
+    private static long getStatusKB(final String status, final String key) {
+        final int keyStart = status.indexOf(key);
+        if (keyStart < 0) {
+            return 0;
+        }
+        final int lineEnd = status.indexOf('\n', keyStart);
+        final String value = status.substring(keyStart + key.length(), (lineEnd < 0) ? status.length() : lineEnd)
+                                   .replace("kB", "").trim();
+        try {
+            return Long.parseLong(value);
+        } catch (final NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static String readFile(final File file) throws IOException {
+        return new String(Files.readAllBytes(Paths.get(file.getPath())), StandardCharsets.US_ASCII);
+    }
+}
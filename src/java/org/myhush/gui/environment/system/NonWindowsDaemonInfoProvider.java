@@ -58,8 +58,15 @@ public class NonWindowsDaemonInfoProvider extends DaemonInfoProvider {
         final DaemonInfo info = new DaemonInfo();
         info.status = DaemonState.UNKNOWN;
 
+        // Look up only the daemon's process if it wrote its pid, else find it in the full process list. The columns
+        // are those of `ps aux`, except the start time, which may contain a space ("Oct 17") - the elapsed time is
+        // in its place.
+        final int pid = readPidFile();
+        final String[] psCommand = (pid != NO_PID) ?
+            new String[]{ "ps", "-o", "user=,pid=,%cpu=,%mem=,vsz=,rss=,tty=,stat=,etime=,time=,comm=", "-p", String.valueOf(pid) } :
+            new String[]{ "ps", "auxwww" };
         final String hushDaemonFileName = RuntimeEnvironment.getHushDaemonFileName();
-        final String psAuxResult = new CommandExecutor(new String[]{ "ps", "auxwww" }).execute();
+        final String psAuxResult = new CommandExecutor(psCommand).execute().getOutput();
         final LineNumberReader lineReader = new LineNumberReader(new StringReader(psAuxResult));
 
         do {
@@ -69,6 +76,9 @@ public class NonWindowsDaemonInfoProvider extends DaemonInfoProvider {
             }
             final NixProcessStatus processStatus = getProcessStatus(line);
 
+            if (processStatus.command == null) {
+                continue;
+            }
             if (processStatus.command.equals(hushDaemonFileName) || processStatus.command.endsWith("/" + hushDaemonFileName)) {
                 info.cpuPercentage = processStatus.cpuPercentage;
                 info.residentSizeMB = processStatus.residentSizeMB;
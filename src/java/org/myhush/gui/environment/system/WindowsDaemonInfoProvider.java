@@ -19,7 +19,7 @@ public class WindowsDaemonInfoProvider extends DaemonInfoProvider {
         info.virtualSizeMB = 0;
 
         final String hushDaemonFileName = RuntimeEnvironment.getHushDaemonFileName();
-        final String tasklist = new CommandExecutor(new String[]{ "tasklist" }).execute();
+        final String tasklist = new CommandExecutor(new String[]{ "tasklist" }).execute().getOutput();
         final LineNumberReader lineReader = new LineNumberReader(new StringReader(tasklist));
 
         do {
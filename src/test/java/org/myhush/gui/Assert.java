@@ -0,0 +1,52 @@
+// Copyright (c) 2018 The Hush Developers <contact@myhush.org>
+//
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+package org.myhush.gui;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Objects;
+
+/**
+ * Assertions and helpers shared by the tests.
+ */
+final class Assert {
+    interface Action {
+        void run() throws Exception;
+    }
+
+    private Assert() {
+    }
+
+    static void assertEquals(final Object expected, final Object actual) {
+        if (!Objects.equals(expected, actual)) {
+            throw new AssertionError("Expected " + expected + " but was " + actual);
+        }
+    }
+
+    static void assertTrue(final boolean condition, final String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+
+    static <E extends Throwable> E assertThrows(final Class<E> expected, final Action action) {
+        try {
+            action.run();
+        } catch (final Throwable e) {
+            if (expected.isInstance(e)) {
+                return expected.cast(e);
+            }
+            throw new AssertionError("Expected " + expected.getSimpleName() + " but got " + e, e);
+        }
+        throw new AssertionError("Expected " + expected.getSimpleName() + " but nothing was thrown");
+    }
+
+    static File createTempDirectory(final String prefix) throws IOException {
+        final File directory = Files.createTempDirectory(prefix).toFile();
+        directory.deleteOnExit();
+        return directory;
+    }
+}
@@ -0,0 +1,130 @@
+// Copyright (c) 2018 The Hush Developers <contact@myhush.org>
+//
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+package org.myhush.gui;
+
+import com.eclipsesource.json.Json;
+import com.eclipsesource.json.JsonArray;
+import com.eclipsesource.json.JsonValue;
+
+import java.io.EOFException;
+import java.net.ServerSocket;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.myhush.gui.Assert.assertEquals;
+import static org.myhush.gui.Assert.assertThrows;
+import static org.myhush.gui.Assert.assertTrue;
+
+public final class HttpRpcTransportTest {
+    // Echoes the method and parameters, fails "fail" with the code given as parameter
+    private static JsonValue echo(final String method, final JsonArray params) {
+        if (method.equals("fail")) {
+            throw new StubRpcServer.RpcError(Integer.parseInt(params.get(0).asString()), "failed on purpose");
+        }
+        return Json.value(method + params);
+    }
+
+    public void testCall() throws Exception {
+        try (final StubRpcServer server = new StubRpcServer(HttpRpcTransportTest::echo)) {
+            final HttpRpcTransport transport = new HttpRpcTransport("127.0.0.1", server.getPort(), "user", "password");
+            assertEquals(Json.value("getblockhash[5]"), transport.call("getblockhash", "5"));
+            assertEquals(Json.value("getblockheader[\"abc\"]"), transport.call("getblockheader", "abc"));
+            // Over the same connection
+            assertEquals(1, server.getConnectionCount());
+        }
+    }
+
+    public void testBatchResultsInOrderOfCalls() throws Exception {
+        try (final StubRpcServer server = new StubRpcServer(HttpRpcTransportTest::echo)) {
+            server.setReverseBatches(true);
+            final HttpRpcTransport transport = new HttpRpcTransport("127.0.0.1", server.getPort(), "user", "password");
+            final List<JsonValue> results = transport.callBatch(Arrays.asList(
+                new RpcCall("getblockhash", "1"), new RpcCall("getblockhash", "2"), new RpcCall("getblockcount")
+            ));
+            assertEquals(
+                Arrays.asList(Json.value("getblockhash[1]"), Json.value("getblockhash[2]"), Json.value("getblockcount[]")),
+                results
+            );
+            assertEquals(1, server.getRequestCount());
+            assertEquals(Collections.emptyList(), transport.callBatch(Collections.emptyList()));
+            assertEquals(1, server.getRequestCount());
+        }
+    }
+
+    public void testErrorResponse() throws Exception {
+        try (final StubRpcServer server = new StubRpcServer(HttpRpcTransportTest::echo)) {
+            final HttpRpcTransport transport = new HttpRpcTransport("127.0.0.1", server.getPort(), "user", "password");
+            final HushCommandLineBridge.WalletErrorException error = assertThrows(
+                HushCommandLineBridge.WalletErrorException.class, () -> transport.call("fail", "-8")
+            );
+            assertEquals(-8, error.getCode());
+            assertEquals("failed on purpose", error.getErrorMessage());
+
+            // The connection stays usable after an error
+            assertEquals(Json.value("getinfo[]"), transport.call("getinfo"));
+            assertEquals(1, server.getConnectionCount());
+        }
+    }
+
+    public void testErrorInBatch() throws Exception {
+        try (final StubRpcServer server = new StubRpcServer(HttpRpcTransportTest::echo)) {
+            final HttpRpcTransport transport = new HttpRpcTransport("127.0.0.1", server.getPort(), "user", "password");
+            final HushCommandLineBridge.WalletErrorException error = assertThrows(
+                HushCommandLineBridge.WalletErrorException.class,
+                () -> transport.callBatch(Arrays.asList(new RpcCall("getinfo"), new RpcCall("fail", "-5")))
+            );
+            assertEquals(-5, error.getCode());
+        }
+    }
+
+    public void testAuthorizationFailure() throws Exception {
+        try (final StubRpcServer server = new StubRpcServer(HttpRpcTransportTest::echo)) {
+            server.setStatus(401);
+            final HttpRpcTransport transport = new HttpRpcTransport("127.0.0.1", server.getPort(), "user", "wrong");
+            assertThrows(HushCommandLineBridge.DaemonConnectionException.class, () -> transport.call("getinfo"));
+        }
+    }
+
+    public void testDaemonNotRunning() throws Exception {
+        final int port;
+        try (final ServerSocket unused = new ServerSocket(0)) {
+            port = unused.getLocalPort();
+        }
+        final HttpRpcTransport transport = new HttpRpcTransport("127.0.0.1", port, "user", "password");
+        assertThrows(HushCommandLineBridge.DaemonConnectionException.class, () -> transport.call("getinfo"));
+    }
+
+    public void testReadOnlyCallRetriedOnClosedConnection() throws Exception {
+        try (final StubRpcServer server = new StubRpcServer(HttpRpcTransportTest::echo)) {
+            final HttpRpcTransport transport = new HttpRpcTransport("127.0.0.1", server.getPort(), "user", "password");
+            transport.call("getinfo");
+            server.dropNextRequest();
+            assertEquals(Json.value("getblockcount[]"), transport.call("getblockcount"));
+            assertEquals(Arrays.asList("getinfo", "getblockcount", "getblockcount"), server.getMethods());
+            assertEquals(2, server.getConnectionCount());
+        }
+    }
+
+    public void testWalletChangeNotResentOnClosedConnection() throws Exception {
+        try (final StubRpcServer server = new StubRpcServer(HttpRpcTransportTest::echo)) {
+            final HttpRpcTransport transport = new HttpRpcTransport("127.0.0.1", server.getPort(), "user", "password");
+            transport.call("getinfo");
+            server.dropNextRequest();
+            assertThrows(EOFException.class, () -> transport.call("sendtoaddress", "t1address", "1.5"));
+            assertEquals(Arrays.asList("getinfo", "sendtoaddress"), server.getMethods());
+        }
+    }
+
+    public void testFreshConnectionNotRetried() throws Exception {
+        try (final StubRpcServer server = new StubRpcServer(HttpRpcTransportTest::echo)) {
+            final HttpRpcTransport transport = new HttpRpcTransport("127.0.0.1", server.getPort(), "user", "password");
+            server.dropNextRequest();
+            assertThrows(EOFException.class, () -> transport.call("getinfo"));
+            assertEquals(1, server.getRequestCount());
+            assertTrue(transport.call("getinfo").isString(), "Transport not usable after a failed call");
+        }
+    }
+}
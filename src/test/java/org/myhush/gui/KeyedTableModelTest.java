@@ -0,0 +1,172 @@
+// Copyright (c) 2018 The Hush Developers <contact@myhush.org>
+//
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+package org.myhush.gui;
+
+import javax.swing.event.TableModelEvent;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.myhush.gui.Assert.assertEquals;
+
+public final class KeyedTableModelTest {
+    // Rows of key and content
+    private static final class Model extends KeyedTableModel<String[]> {
+        Model(final List<String[]> initialRows) {
+            super(initialRows);
+        }
+
+        @Override
+        Object getKey(final String[] row) {
+            return row[0];
+        }
+
+        @Override
+        boolean isSameContent(final String[] a, final String[] b) {
+            return a[1].equals(b[1]);
+        }
+
+        @Override
+        public int getColumnCount() {
+            return 2;
+        }
+
+        @Override
+        public Object getValueAt(final int row, final int column) {
+            return this.getRowAt(row)[column];
+        }
+    }
+
+    private final Model model = new Model(rows("a1", "b1", "c1", "d1", "e1"));
+    // The rows as a table that only follows the events would show them
+    private final List<String> shown = new ArrayList<>(Arrays.asList("a1", "b1", "c1", "d1", "e1"));
+    private final List<String> events = new ArrayList<>();
+
+    public KeyedTableModelTest() {
+        model.addTableModelListener(event -> {
+            final int first = event.getFirstRow();
+            final int last = Math.min(event.getLastRow(), model.getRowCount() - 1);
+            switch (event.getType()) {
+                case TableModelEvent.INSERT:
+                    events.add("insert " + first + "-" + last);
+                    for (int row = first; row <= last; row++) {
+                        shown.add(row, this.shownRow(row));
+                    }
+                    break;
+                case TableModelEvent.DELETE:
+                    events.add("delete " + first + "-" + event.getLastRow());
+                    shown.subList(first, event.getLastRow() + 1).clear();
+                    break;
+                default:
+                    if (event.getLastRow() == Integer.MAX_VALUE) {
+                        events.add("all changed");
+                        shown.clear();
+                        for (int row = 0; row < model.getRowCount(); row++) {
+                            shown.add(this.shownRow(row));
+                        }
+                    } else {
+                        events.add("update " + first + "-" + last);
+                        for (int row = first; row <= last; row++) {
+                            shown.set(row, this.shownRow(row));
+                        }
+                    }
+            }
+        });
+    }
+
+    private String shownRow(final int row) {
+        return model.getValueAt(row, 0) + "" + model.getValueAt(row, 1);
+    }
+
+    // Rows given as key letter followed by content
+    private static List<String[]> rows(final String... rows) {
+        final List<String[]> list = new ArrayList<>();
+        for (final String row : rows) {
+            list.add(new String[]{ row.substring(0, 1), row.substring(1) });
+        }
+        return list;
+    }
+
+    private void setRows(final String... rows) {
+        model.setRows(rows(rows));
+        final List<String> modelRows = new ArrayList<>();
+        for (int row = 0; row < model.getRowCount(); row++) {
+            modelRows.add(this.shownRow(row));
+        }
+        assertEquals(Arrays.asList(rows), modelRows);
+        assertEquals(modelRows, shown);
+    }
+
+    public void testUnchanged() {
+        this.setRows("a1", "b1", "c1", "d1", "e1");
+        assertEquals(Collections.emptyList(), events);
+    }
+
+    public void testInsert() {
+        this.setRows("a1", "b1", "x1", "c1", "d1", "e1");
+        assertEquals(Collections.singletonList("insert 2-2"), events);
+    }
+
+    public void testDelete() {
+        this.setRows("a1", "b1", "d1", "e1");
+        assertEquals(Collections.singletonList("delete 2-2"), events);
+    }
+
+    public void testUpdate() {
+        this.setRows("a1", "b1", "c2", "d1", "e1");
+        assertEquals(Collections.singletonList("update 2-2"), events);
+    }
+
+    public void testRangesCombined() {
+        this.setRows("x1", "y1", "a1", "b2", "c2", "e1", "z1");
+        assertEquals(Arrays.asList("delete 3-3", "insert 0-1", "update 3-4", "insert 6-6"), events);
+    }
+
+    public void testEqualKeysToldApartByOrder() {
+        this.setRows("a1", "a2", "b1", "c1", "d1", "e1");
+        assertEquals(Collections.singletonList("insert 1-1"), events);
+        events.clear();
+        this.setRows("a1", "b1", "c1", "d1", "e1");
+        assertEquals(Collections.singletonList("delete 1-1"), events);
+    }
+
+    public void testReordered() {
+        this.setRows("b1", "a1", "c1", "d1", "e1");
+        assertEquals(Collections.singletonList("all changed"), events);
+    }
+
+    public void testRandomChanges() {
+        final Random random = new Random(42);
+        for (int round = 0; round < 500; round++) {
+            final List<String> rows = new ArrayList<>(shown);
+            for (int change = random.nextInt(4); change >= 0; change--) {
+                final int position = rows.isEmpty() ? 0 : random.nextInt(rows.size());
+                final String row = (char) ('a' + random.nextInt(26)) + String.valueOf(random.nextInt(3));
+                switch (random.nextInt(4)) {
+                    case 0:
+                        rows.add(position, row);
+                        break;
+                    case 1:
+                        if (!rows.isEmpty()) {
+                            rows.remove(position);
+                        }
+                        break;
+                    case 2:
+                        if (!rows.isEmpty()) {
+                            rows.set(position, rows.get(position).charAt(0) + String.valueOf(random.nextInt(3)));
+                        }
+                        break;
+                    default:
+                        if (!rows.isEmpty() && random.nextInt(8) == 0) {
+                            Collections.swap(rows, position, random.nextInt(rows.size()));
+                        }
+                }
+            }
+            this.setRows(rows.toArray(new String[0]));
+        }
+    }
+}
@@ -0,0 +1,219 @@
+// Copyright (c) 2018 The Hush Developers <contact@myhush.org>
+//
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+package org.myhush.gui;
+
+import com.eclipsesource.json.Json;
+import com.eclipsesource.json.JsonArray;
+import com.eclipsesource.json.JsonObject;
+import com.eclipsesource.json.JsonValue;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A stand-in for the RPC port of `hushd`: speaks HTTP/1.1 with kept-alive connections and answers JSON-RPC
+ * requests and batches with a handler.
+ */
+final class StubRpcServer implements Closeable {
+    interface Handler {
+        /**
+         * @return the result of the call
+         * @throws RpcError to answer with an error instead
+         */
+        JsonValue handle(String method, JsonArray params);
+    }
+
+    static final class RpcError extends RuntimeException {
+        final int code;
+
+        RpcError(final int code, final String message) {
+            super(message);
+            this.code = code;
+        }
+    }
+
+    private final ServerSocket serverSocket;
+    private final Handler handler;
+    private final List<String> methods = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger connections = new AtomicInteger();
+
+    private volatile int status = 200;
+    private volatile boolean reverseBatches = false;
+    // Requests to be read and then answered by closing the connection
+    private final AtomicInteger requestsToDrop = new AtomicInteger();
+
+    StubRpcServer(final Handler handler) throws IOException {
+        this.serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        this.handler = handler;
+        final Thread acceptor = new Thread(this::accept, "StubRpcServer");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * @return the methods called so far, those of batches included, in the order they were received
+     */
+    List<String> getMethods() {
+        synchronized (methods) {
+            return new ArrayList<>(methods);
+        }
+    }
+
+    int getRequestCount() {
+        return requests.get();
+    }
+
+    int getConnectionCount() {
+        return connections.get();
+    }
+
+    // Answers every request with this HTTP status and no body, unless 200
+    void setStatus(final int status) {
+        this.status = status;
+    }
+
+    // Answers batches with the responses in reverse order
+    void setReverseBatches(final boolean reverseBatches) {
+        this.reverseBatches = reverseBatches;
+    }
+
+    // Closes the connection instead of answering the next request, as the daemon may do with a kept-alive one
+    void dropNextRequest() {
+        requestsToDrop.incrementAndGet();
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+    }
+
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            try {
+                final Socket socket = serverSocket.accept();
+                connections.incrementAndGet();
+                final Thread connection = new Thread(() -> this.serve(socket), "StubRpcConnection");
+                connection.setDaemon(true);
+                connection.start();
+            } catch (final IOException e) {
+                // Closed
+            }
+        }
+    }
+
+    private void serve(final Socket socket) {
+        try (final Socket closed = socket) {
+            final InputStream in = new BufferedInputStream(socket.getInputStream());
+            final OutputStream out = socket.getOutputStream();
+            while (true) {
+                final String requestLine = readLine(in);
+                if (requestLine == null) {
+                    return;
+                }
+                int contentLength = 0;
+                for (String header = readLine(in); (header != null) && !header.isEmpty(); header = readLine(in)) {
+                    if (header.toLowerCase(Locale.ROOT).startsWith("content-length:")) {
+                        contentLength = Integer.parseInt(header.substring("content-length:".length()).trim());
+                    }
+                }
+                final byte[] body = new byte[contentLength];
+                new DataInputStream(in).readFully(body);
+                requests.incrementAndGet();
+
+                final JsonValue request = Json.parse(new String(body, StandardCharsets.UTF_8));
+                if (request.isArray()) {
+                    for (final JsonValue call : request.asArray()) {
+                        methods.add(call.asObject().getString("method", null));
+                    }
+                } else {
+                    methods.add(request.asObject().getString("method", null));
+                }
+                if (requestsToDrop.getAndUpdate(count -> Math.max(0, count - 1)) > 0) {
+                    return;
+                }
+
+                int responseStatus = status;
+                final byte[] responseBody;
+                if (responseStatus != 200) {
+                    responseBody = new byte[0];
+                } else {
+                    final JsonValue response = this.respond(request);
+                    // Like the daemon, an error of a single call comes with HTTP 500
+                    if (response.isObject() && !response.asObject().get("error").isNull()) {
+                        responseStatus = 500;
+                    }
+                    responseBody = response.toString().getBytes(StandardCharsets.UTF_8);
+                }
+                final String head =
+                    "HTTP/1.1 " + responseStatus + " Stub\r\n" +
+                    "Content-Type: application/json\r\n" +
+                    "Content-Length: " + responseBody.length + "\r\n" +
+                    "Connection: keep-alive\r\n" +
+                    "\r\n";
+                out.write(head.getBytes(StandardCharsets.ISO_8859_1));
+                out.write(responseBody);
+                out.flush();
+            }
+        } catch (final IOException e) {
+            // The client went away
+        }
+    }
+
+    private JsonValue respond(final JsonValue request) {
+        if (!request.isArray()) {
+            return this.respondToCall(request.asObject());
+        }
+        final List<JsonValue> responses = new ArrayList<>();
+        for (final JsonValue call : request.asArray()) {
+            responses.add(this.respondToCall(call.asObject()));
+        }
+        if (reverseBatches) {
+            Collections.reverse(responses);
+        }
+        final JsonArray batchResponse = new JsonArray();
+        responses.forEach(batchResponse::add);
+        return batchResponse;
+    }
+
+    private JsonObject respondToCall(final JsonObject call) {
+        final JsonObject response = new JsonObject().add("id", call.get("id"));
+        try {
+            final JsonValue params = call.get("params");
+            final JsonValue result = handler.handle(
+                call.getString("method", null), (params != null) ? params.asArray() : new JsonArray()
+            );
+            return response.add("result", result).add("error", Json.NULL);
+        } catch (final RpcError e) {
+            return response.add("result", Json.NULL)
+                .add("error", new JsonObject().add("code", e.code).add("message", e.getMessage()));
+        }
+    }
+
+    private static String readLine(final InputStream in) throws IOException {
+        final StringBuilder line = new StringBuilder();
+        int c;
+        while ((c = in.read()) >= 0) {
+            if (c == '\n') {
+                final int length = line.length();
+                return ((length > 0) && (line.charAt(length - 1) == '\r')) ? line.substring(0, length - 1) : line.toString();
+            }
+            line.append((char) c);
+        }
+        return (line.length() > 0) ? line.toString() : null;
+    }
+}
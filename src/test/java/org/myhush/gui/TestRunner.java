@@ -0,0 +1,54 @@
+// Copyright (c) 2018 The Hush Developers <contact@myhush.org>
+//
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+package org.myhush.gui;
+
+import java.io.File;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runs the tests without a test framework: every public no-argument method named `test...` of every `...Test`
+ * class in the given class directory, each on a new instance of its class. Exits with status 1 if any failed.
+ */
+public final class TestRunner {
+    public static void main(final String[] args) throws Exception {
+        final File classDirectory = new File(args[0], TestRunner.class.getPackage().getName().replace('.', '/'));
+        final String[] classFiles = classDirectory.list((directory, name) -> name.endsWith("Test.class"));
+        Arrays.sort(classFiles);
+
+        int passed = 0;
+        final List<String> failures = new ArrayList<>();
+        for (final String classFile : classFiles) {
+            final Class<?> testClass = Class.forName(
+                TestRunner.class.getPackage().getName() + "." + classFile.substring(0, classFile.length() - ".class".length())
+            );
+            final Method[] methods = testClass.getDeclaredMethods();
+            Arrays.sort(methods, (a, b) -> a.getName().compareTo(b.getName()));
+            for (final Method method : methods) {
+                if (!method.getName().startsWith("test") || !Modifier.isPublic(method.getModifiers()) ||
+                    Modifier.isStatic(method.getModifiers()) || (method.getParameterCount() != 0)) {
+                    continue;
+                }
+                final String name = testClass.getSimpleName() + "." + method.getName();
+                try {
+                    method.invoke(testClass.getDeclaredConstructor().newInstance());
+                    passed++;
+                    System.out.println("PASS " + name);
+                } catch (final InvocationTargetException e) {
+                    failures.add(name);
+                    System.out.println("FAIL " + name);
+                    e.getCause().printStackTrace(System.out);
+                }
+            }
+        }
+
+        System.out.println(passed + " passed, " + failures.size() + " failed" + (failures.isEmpty() ? "" : ": " + failures));
+        System.exit(failures.isEmpty() ? 0 : 1);
+    }
+}
@@ -0,0 +1,200 @@
+// Copyright (c) 2018 The Hush Developers <contact@myhush.org>
+//
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+package org.myhush.gui;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.myhush.gui.Assert.assertEquals;
+import static org.myhush.gui.Assert.assertTrue;
+
+public final class TransactionStoreTest {
+    private static final int TIP = 1000;
+
+    private final File directory;
+    private final File snapshotFile;
+    private final File logFile;
+
+    public TransactionStoreTest() throws Exception {
+        directory = Assert.createTempDirectory("TransactionStoreTest");
+        snapshotFile = new File(directory, "transactions.dat");
+        logFile = new File(directory, "transactions.log");
+        snapshotFile.deleteOnExit();
+        logFile.deleteOnExit();
+    }
+
+    // The fingerprint of a wallet that owns only the given address
+    private static WalletFingerprint wallet(final String address) {
+        return new WalletFingerprint(null) {
+            @Override
+            synchronized String get() {
+                return address;
+            }
+
+            @Override
+            boolean matches(final String storedFingerprint) {
+                return storedFingerprint.equals(address);
+            }
+        };
+    }
+
+    private TransactionStore newStore() {
+        return new TransactionStore(snapshotFile, logFile, wallet("t1wallet"));
+    }
+
+    private static String txID(final int n) {
+        return String.format("%064x", n);
+    }
+
+    private static WalletTransaction transaction(final int n, final int confirmations) {
+        return new WalletTransaction(
+            (n % 3 == 0) ? WalletTransaction.Type.PRIVATE : WalletTransaction.Type.PUBLIC,
+            (n % 2 == 0) ? WalletTransaction.Direction.IN : WalletTransaction.Direction.OUT,
+            confirmations, 1000L * n, 1500000000L + n, (n % 5 == 0) ? null : "t1address" + (n % 7), txID(n)
+        );
+    }
+
+    // Confirmed, unconfirmed and conflicted rows, the first address-less, and one with an irregular transaction ID
+    private static List<WalletTransaction> sampleRows() {
+        final List<WalletTransaction> rows = new ArrayList<>();
+        for (int n = 0; n < 20; n++) {
+            rows.add(transaction(n, (n < 2) ? -n : (n * 10)));
+        }
+        rows.add(new WalletTransaction(
+            WalletTransaction.Type.PUBLIC, WalletTransaction.Direction.MINED, 3, 5, 6, "t1mined", "not-a-txid"
+        ));
+        return rows;
+    }
+
+    private static List<WalletTransaction> rowsOf(final TransactionHistoryIndex index) {
+        final List<WalletTransaction> rows = new ArrayList<>();
+        for (int row = 0; row < index.size(); row++) {
+            rows.add(index.get(row));
+        }
+        rows.sort(Comparator.comparing((WalletTransaction row) -> row.txID).thenComparing(row -> row.direction));
+        return rows;
+    }
+
+    private static List<WalletTransaction> sorted(final List<WalletTransaction> rows) {
+        return rowsOf(TransactionHistoryIndex.build(rows));
+    }
+
+    // The same rows some blocks later
+    private static List<WalletTransaction> afterBlocks(final List<WalletTransaction> rows, final int blocks) {
+        final List<WalletTransaction> later = new ArrayList<>();
+        for (final WalletTransaction row : rows) {
+            later.add(new WalletTransaction(
+                row.type, row.direction, row.isConfirmed() ? (row.confirmations + blocks) : row.confirmations,
+                row.amount, row.time, row.address, row.txID
+            ));
+        }
+        return later;
+    }
+
+    public void testNothingStored() throws Exception {
+        assertEquals(null, newStore().load(TIP));
+    }
+
+    public void testRoundTrip() throws Exception {
+        final List<WalletTransaction> rows = sampleRows();
+        newStore().save(TransactionHistoryIndex.build(rows), TIP);
+        assertEquals(sorted(rows), rowsOf(newStore().load(TIP)));
+    }
+
+    public void testConfirmationsCountedFromTip() throws Exception {
+        final List<WalletTransaction> rows = sampleRows();
+        newStore().save(TransactionHistoryIndex.build(rows), TIP);
+        assertEquals(sorted(afterBlocks(rows, 7)), rowsOf(newStore().load(TIP + 7)));
+    }
+
+    public void testUnchangedRowsNotWrittenAgain() throws Exception {
+        final List<WalletTransaction> rows = sampleRows();
+        final TransactionStore store = newStore();
+        store.save(TransactionHistoryIndex.build(rows), TIP);
+        store.save(TransactionHistoryIndex.build(rows), TIP);
+        final long headerLength = logFile.length();
+        // Only confirmations changed with new blocks
+        store.save(TransactionHistoryIndex.build(afterBlocks(rows, 3)), TIP + 3);
+        assertEquals(headerLength, logFile.length());
+
+        // A changed row is
+        rows.set(5, transaction(5, 0));
+        store.save(TransactionHistoryIndex.build(afterBlocks(rows, 3)), TIP + 3);
+        assertTrue(logFile.length() > headerLength, "Changed row not written");
+    }
+
+    public void testChangesApplied() throws Exception {
+        final List<WalletTransaction> rows = sampleRows();
+        final TransactionStore store = newStore();
+        store.save(TransactionHistoryIndex.build(rows), TIP);
+        rows.set(3, transaction(3, 77));
+        rows.remove(4);
+        rows.add(transaction(100, 0));
+        rows.add(transaction(101, 1));
+        store.save(TransactionHistoryIndex.build(rows), TIP);
+        assertTrue(logFile.exists(), "Changes not logged");
+        assertEquals(sorted(rows), rowsOf(newStore().load(TIP)));
+    }
+
+    public void testCompaction() throws Exception {
+        final List<WalletTransaction> rows = new ArrayList<>();
+        for (int n = 0; n < 1500; n++) {
+            rows.add(transaction(n, n + 1));
+        }
+        final TransactionStore store = newStore();
+        store.save(TransactionHistoryIndex.build(rows), TIP + 1500);
+        for (int n = 0; n < 700; n++) {
+            rows.set(n, transaction(n, 0));
+        }
+        store.save(TransactionHistoryIndex.build(rows), TIP + 1500);
+        assertTrue(logFile.exists(), "Compacted before the log grew as large as the snapshot");
+
+        for (int n = 700; n < 1500; n++) {
+            rows.set(n, transaction(n, 0));
+        }
+        store.save(TransactionHistoryIndex.build(rows), TIP + 1500);
+        assertTrue(!logFile.exists(), "Not compacted");
+        assertEquals(sorted(rows), rowsOf(newStore().load(TIP + 1500)));
+    }
+
+    public void testTruncatedLog() throws Exception {
+        final List<WalletTransaction> rows = sampleRows();
+        final TransactionStore store = newStore();
+        store.save(TransactionHistoryIndex.build(rows), TIP);
+        final List<WalletTransaction> firstChange = new ArrayList<>(rows);
+        firstChange.set(2, transaction(2, 0));
+        store.save(TransactionHistoryIndex.build(firstChange), TIP);
+        final List<WalletTransaction> secondChange = new ArrayList<>(firstChange);
+        secondChange.set(3, transaction(3, 0));
+        store.save(TransactionHistoryIndex.build(secondChange), TIP);
+
+        // The last record was not written completely
+        try (final RandomAccessFile log = new RandomAccessFile(logFile, "rw")) {
+            log.setLength(log.length() - 3);
+        }
+        assertEquals(sorted(firstChange), rowsOf(newStore().load(TIP)));
+        // Compacted, so the next save does not append to the broken record
+        assertTrue(!logFile.exists(), "Truncated log kept");
+        assertEquals(sorted(firstChange), rowsOf(newStore().load(TIP)));
+    }
+
+    public void testCorruptedSnapshot() throws Exception {
+        newStore().save(TransactionHistoryIndex.build(sampleRows()), TIP);
+        try (final RandomAccessFile snapshot = new RandomAccessFile(snapshotFile, "rw")) {
+            snapshot.setLength(snapshot.length() / 2);
+        }
+        assertEquals(null, newStore().load(TIP));
+        assertTrue(!snapshotFile.exists(), "Corrupted snapshot kept");
+    }
+
+    public void testAnotherWallet() throws Exception {
+        newStore().save(TransactionHistoryIndex.build(sampleRows()), TIP);
+        assertEquals(null, new TransactionStore(snapshotFile, logFile, wallet("t1other")).load(TIP));
+        assertTrue(!snapshotFile.exists(), "Transactions of another wallet kept");
+    }
+}
@@ -0,0 +1,221 @@
+// Copyright (c) 2018 The Hush Developers <contact@myhush.org>
+//
+// Distributed under the MIT software license, see the accompanying
+// file LICENSE or http://www.opensource.org/licenses/mit-license.php.
+package org.myhush.gui;
+
+import com.eclipsesource.json.Json;
+import com.eclipsesource.json.JsonArray;
+import com.eclipsesource.json.JsonObject;
+import com.eclipsesource.json.JsonValue;
+import org.myhush.gui.environment.RuntimeEnvironment;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.myhush.gui.Assert.assertEquals;
+
+public final class TransactionSyncEngineTest {
+    /**
+     * A chain of blocks and the wallet transactions in them, answering the calls the sync engine makes.
+     */
+    private static final class Chain implements StubRpcServer.Handler {
+        // Blocks of the main chain by height
+        private final List<String> mainChain = new ArrayList<>();
+        // Of all blocks ever seen, orphaned ones included
+        private final Map<String, Integer> heights = new HashMap<>();
+        private final Map<String, String> parents = new HashMap<>();
+        // Block of each wallet transaction, null if in the mempool
+        private final Map<String, String> transactions = new TreeMap<>();
+
+        Chain(final int blocks) {
+            this.extend("main", blocks);
+        }
+
+        // Adds blocks named after the branch and their height
+        synchronized void extend(final String branch, final int blocks) {
+            for (int i = 0; i < blocks; i++) {
+                final String hash = branch + "-" + mainChain.size();
+                parents.put(hash, mainChain.isEmpty() ? null : mainChain.get(mainChain.size() - 1));
+                heights.put(hash, mainChain.size());
+                mainChain.add(hash);
+            }
+        }
+
+        // Replaces the blocks above the height with blocks of a new branch
+        synchronized void reorganize(final int forkHeight, final String branch, final int blocks) {
+            mainChain.subList(forkHeight + 1, mainChain.size()).clear();
+            this.extend(branch, blocks);
+        }
+
+        synchronized String block(final int height) {
+            return mainChain.get(height);
+        }
+
+        synchronized void put(final String txID, final String blockHash) {
+            transactions.put(txID, blockHash);
+        }
+
+        synchronized void remove(final String txID) {
+            transactions.remove(txID);
+        }
+
+        private int tipHeight() {
+            return mainChain.size() - 1;
+        }
+
+        private boolean isOnMainChain(final String hash) {
+            return heights.containsKey(hash) && hash.equals(mainChain.get(heights.get(hash)));
+        }
+
+        @Override
+        public synchronized JsonValue handle(final String method, final JsonArray params) {
+            switch (method) {
+                case "getblockcount":
+                    return Json.value(this.tipHeight());
+                case "getblockhash": {
+                    final int height = params.get(0).asInt();
+                    if (height > this.tipHeight()) {
+                        throw new StubRpcServer.RpcError(-8, "Block height out of range");
+                    }
+                    return Json.value(mainChain.get(height));
+                }
+                case "getblockheader": {
+                    final String hash = params.get(0).asString();
+                    if (!heights.containsKey(hash)) {
+                        throw new StubRpcServer.RpcError(-5, "Block not found");
+                    }
+                    final int height = heights.get(hash);
+                    return new JsonObject()
+                        .add("hash", hash)
+                        .add("height", height)
+                        .add("confirmations", this.isOnMainChain(hash) ? (this.tipHeight() - height + 1) : -1);
+                }
+                case "listsinceblock":
+                    return this.listSinceBlock(params.isEmpty() ? null : params.get(0).asString());
+                case "getwalletinfo":
+                    return new JsonObject().add("txcount", transactions.size());
+                case "z_listaddresses":
+                    return new JsonArray();
+                default:
+                    throw new StubRpcServer.RpcError(-32601, "Method not found");
+            }
+        }
+
+        // The transactions in main chain blocks above the last common one with the given block, and the mempool
+        private JsonObject listSinceBlock(String hash) {
+            while ((hash != null) && !this.isOnMainChain(hash)) {
+                hash = parents.get(hash);
+            }
+            final int sinceHeight = (hash != null) ? heights.get(hash) : -1;
+            final JsonArray listed = new JsonArray();
+            for (final Map.Entry<String, String> transaction : transactions.entrySet()) {
+                final String blockHash = transaction.getValue();
+                final JsonObject entry = new JsonObject()
+                    .add("address", "t1address")
+                    .add("category", "receive")
+                    .add("amount", 1.5)
+                    .add("vout", 0)
+                    .add("txid", transaction.getKey())
+                    .add("time", 1500000000);
+                if (blockHash == null) {
+                    listed.add(entry.add("confirmations", 0));
+                } else if (this.isOnMainChain(blockHash) && (heights.get(blockHash) > sinceHeight)) {
+                    listed.add(entry
+                        .add("confirmations", this.tipHeight() - heights.get(blockHash) + 1)
+                        .add("blockhash", blockHash));
+                }
+            }
+            return new JsonObject().add("transactions", listed).add("lastblock", mainChain.get(this.tipHeight()));
+        }
+    }
+
+    private final Chain chain = new Chain(11);
+    private final StubRpcServer server;
+    private final TransactionSyncEngine engine;
+
+    public TransactionSyncEngineTest() throws Exception {
+        server = new StubRpcServer(chain);
+        // The bridge finds the daemon's RPC port in hush.conf, and needs `hush-cli` and `hushd` to exist
+        final File hushConfigFile = new File(App.PATH_PROVIDER.getBlockchainDirectory(), Constants.HUSH_CONFIG_FILENAME);
+        try (final Writer writer = new OutputStreamWriter(new FileOutputStream(hushConfigFile), StandardCharsets.UTF_8)) {
+            writer.write("rpcuser=user\nrpcpassword=password\nrpcport=" + server.getPort() + "\n");
+        }
+        final File installDirectory = Assert.createTempDirectory("TransactionSyncEngineTest");
+        for (final String fileName : new String[]{
+            RuntimeEnvironment.getHushCliFileName(), RuntimeEnvironment.getHushDaemonFileName()
+        }) {
+            final File file = new File(installDirectory, fileName);
+            new FileOutputStream(file).close();
+            file.deleteOnExit();
+        }
+        engine = new TransactionSyncEngine(new HushCommandLineBridge(installDirectory));
+    }
+
+    // Confirmations by transaction ID, each transaction must be listed once
+    private Map<String, Integer> sync() throws Exception {
+        final Map<String, Integer> confirmations = new TreeMap<>();
+        for (final WalletTransaction transaction : engine.sync()) {
+            assertEquals(null, confirmations.put(transaction.txID, transaction.confirmations));
+        }
+        return confirmations;
+    }
+
+    private static Map<String, Integer> confirmations(final Object... txIDsAndConfirmations) {
+        final Map<String, Integer> confirmations = new TreeMap<>();
+        for (int i = 0; i < txIDsAndConfirmations.length; i += 2) {
+            confirmations.put((String) txIDsAndConfirmations[i], (Integer) txIDsAndConfirmations[i + 1]);
+        }
+        return confirmations;
+    }
+
+    public void testNewBlocks() throws Exception {
+        chain.put("a", chain.block(3));
+        chain.put("b", chain.block(9));
+        chain.put("pending", null);
+        assertEquals(confirmations("a", 8, "b", 2, "pending", 0), this.sync());
+        assertEquals(10, engine.getTipHeight());
+
+        chain.extend("main", 2);
+        chain.put("pending", chain.block(12));
+        assertEquals(confirmations("a", 10, "b", 4, "pending", 1), this.sync());
+        assertEquals(12, engine.getTipHeight());
+    }
+
+    public void testReorganization() throws Exception {
+        chain.put("a", chain.block(3));
+        chain.put("moved", chain.block(9));
+        chain.put("dropped", chain.block(10));
+        chain.put("pending", null);
+        assertEquals(confirmations("a", 8, "moved", 2, "dropped", 1, "pending", 0), this.sync());
+
+        // Blocks 9 and 10 are replaced by three others, which hold the moved and the pending transaction
+        chain.reorganize(8, "fork", 3);
+        chain.put("moved", chain.block(11));
+        chain.put("pending", chain.block(10));
+        chain.remove("dropped");
+        assertEquals(confirmations("a", 9, "moved", 1, "pending", 2), this.sync());
+        assertEquals(11, engine.getTipHeight());
+    }
+
+    public void testReorganizationBeyondCheckpoints() throws Exception {
+        chain.put("a", chain.block(3));
+        chain.put("b", chain.block(10));
+        assertEquals(confirmations("a", 8, "b", 1), this.sync());
+
+        // Every block the engine knows of is replaced
+        chain.reorganize(1, "fork", 10);
+        chain.put("a", chain.block(2));
+        chain.put("b", chain.block(5));
+        assertEquals(confirmations("a", 10, "b", 7), this.sync());
+        assertEquals(11, engine.getTipHeight());
+    }
+}